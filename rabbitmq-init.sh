@@ -5,15 +5,30 @@ sleep 30
 
 # Create exchange and queues
 rabbitmqadmin declare exchange name=race.exchange type=topic
-rabbitmqadmin declare queue name=race.created.queue durable=true
-rabbitmqadmin declare queue name=race.updated.queue durable=true
-rabbitmqadmin declare queue name=race.deleted.queue durable=true
-rabbitmqadmin declare queue name=application.deleted.queue durable=true
+rabbitmqadmin declare exchange name=race.retry type=headers
+rabbitmqadmin declare exchange name=race.dead-letter type=fanout
+for partition in 0 1 2 3; do
+  rabbitmqadmin declare queue name=race.partition.$partition durable=true \
+    arguments='{"x-single-active-consumer": true, "x-dead-letter-exchange": "race.dead-letter"}'
+done
 
-# Create bindings
-rabbitmqadmin declare binding source=race.exchange destination=race.created.queue routing_key=race.created
-rabbitmqadmin declare binding source=race.exchange destination=race.updated.queue routing_key=race.updated
-rabbitmqadmin declare binding source=race.exchange destination=race.deleted.queue routing_key=race.deleted
-rabbitmqadmin declare binding source=race.exchange destination=application.deleted.queue routing_key=application.deleted
+# Delay queues, one per retry attempt; must match rabbitmq.retry in the query service
+delay=1000
+for attempt in 1 2 3 4 5; do
+  rabbitmqadmin declare queue name=race.retry.$attempt durable=true \
+    arguments="{\"x-message-ttl\": $delay, \"x-dead-letter-exchange\": \"race.exchange\"}"
+  delay=$((delay * 2))
+done
+rabbitmqadmin declare queue name=race.parking-lot durable=true
+
+# Create bindings - events are published as p<partition>.<routing key>
+for partition in 0 1 2 3; do
+  rabbitmqadmin declare binding source=race.exchange destination=race.partition.$partition routing_key="p$partition.#"
+done
+for attempt in 1 2 3 4 5; do
+  rabbitmqadmin declare binding source=race.retry destination=race.retry.$attempt \
+    arguments="{\"x-retry-level\": \"$attempt\"}"
+done
+rabbitmqadmin declare binding source=race.dead-letter destination=race.parking-lot
 
 echo "RabbitMQ queues and bindings created!"
\ No newline at end of file
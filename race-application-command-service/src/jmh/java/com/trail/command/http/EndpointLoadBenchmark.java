@@ -0,0 +1,99 @@
+package com.trail.command.http;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against running services, used to compare the
+ * default platform-thread mode with the {@code virtual-threads} profile.
+ * Start both services (and Postgres/RabbitMQ) in one mode, run
+ *
+ * <pre>
+ * gradle jmh -PjmhIncludes=EndpointLoadBenchmark -PjmhCommandUrl=http://localhost:8080 -PjmhQueryUrl=http://localhost:8081
+ * </pre>
+ *
+ * then restart them with {@code -PvirtualThreads} and run it again. The
+ * 256 client threads exceed Tomcat's default 200 request threads, so in
+ * platform mode requests queue behind blocking JPA and RabbitMQ calls. Compare
+ * the throughput scores and the p0.99 line of the sample-time results.
+ *
+ * <p>The write endpoint creates real races; run it against a scratch database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(256)
+@Fork(1)
+public class EndpointLoadBenchmark {
+
+    @Param({"GET query /api/races", "GET query /api/applications", "POST command /api/races"})
+    public String endpoint;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private HttpClient client;
+    private String method;
+    private URI uri;
+    private String bearer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = endpoint.split(" ");
+        method = parts[0];
+        String baseUrl = "command".equals(parts[1])
+                ? System.getProperty("jmh.command.url", "http://localhost:8080")
+                : System.getProperty("jmh.query.url", "http://localhost:8081");
+        uri = URI.create(baseUrl + parts[2]);
+
+        String secret = System.getProperty("jmh.jwt.secret",
+                "58cb2d122cb82a7fd1e3d03c1425fd2bf4a4c8679c5229b4621b01f80cde031ec36ffb4bc5e08bc33554e7d88eabbe0bd30c4d48");
+        bearer = "Bearer " + Jwts.builder()
+                .setSubject("benchmark")
+                .claim("role", "ADMINISTRATOR")
+                .setExpiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @Benchmark
+    public int request() throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", bearer);
+        if ("POST".equals(method)) {
+            String body = "{\"name\":\"Bench " + sequence.incrementAndGet() + "-" + UUID.randomUUID()
+                    + "\",\"distance\":\"TenK\"}";
+            request.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            request.GET();
+        }
+
+        HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(method + " " + uri + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
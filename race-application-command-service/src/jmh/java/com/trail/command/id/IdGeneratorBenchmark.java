@@ -0,0 +1,35 @@
+package com.trail.command.id;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of minting an id under contention, v4 (SecureRandom) against v7
+ * (CAS on a shared timestamp/sequence word).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"v4", "v7"})
+    public String strategy;
+
+    private IdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = "v7".equals(strategy) ? new UuidV7Generator() : new RandomUuidGenerator();
+    }
+
+    @Benchmark
+    public UUID nextId() {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,109 @@
+package com.trail.command.id;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput and resulting index size for v4 against v7 primary keys.
+ * Each strategy writes into its own copy of the application table layout
+ * (primary key plus the race_id index) on a real Postgres instance:
+ *
+ * <pre>
+ * gradle jmh -PjmhIncludes=UuidInsertBenchmark -PjmhJdbcUrl=jdbc:postgresql://localhost:5432/postgres
+ * </pre>
+ *
+ * Index and table sizes are printed after each trial. With v4 keys the
+ * primary key index ends up noticeably larger for the same row count because
+ * random inserts split pages that are then left half full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int RACES = 50;
+
+    @Param({"v4", "v7"})
+    public String strategy;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private IdGenerator generator;
+    private UUID[] raceIds;
+    private String table;
+    private long batches;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("jmh.jdbc.url", "jdbc:postgresql://localhost:5432/postgres");
+        connection = DriverManager.getConnection(url,
+                System.getProperty("jmh.jdbc.user", "postgres"),
+                System.getProperty("jmh.jdbc.password", "postgres"));
+        connection.setAutoCommit(false);
+
+        generator = "v7".equals(strategy) ? new UuidV7Generator() : new RandomUuidGenerator();
+        table = "uuid_bench_" + strategy;
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS " + table);
+            ddl.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, race_id uuid NOT NULL, "
+                    + "first_name varchar(255) NOT NULL, last_name varchar(255) NOT NULL, club varchar(255))");
+            ddl.execute("CREATE INDEX " + table + "_race_id_idx ON " + table + " (race_id)");
+        }
+        connection.commit();
+
+        raceIds = new UUID[RACES];
+        for (int i = 0; i < RACES; i++) {
+            raceIds[i] = generator.nextId();
+        }
+        insert = connection.prepareStatement("INSERT INTO " + table
+                + " (id, race_id, first_name, last_name, club) VALUES (?, ?, ?, ?, ?)");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, generator.nextId());
+            insert.setObject(2, raceIds[i % RACES]);
+            insert.setString(3, "Marko");
+            insert.setString(4, "Marković");
+            insert.setString(5, "AK Zagreb");
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+        batches++;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement query = connection.createStatement();
+             ResultSet sizes = query.executeQuery("SELECT pg_relation_size('" + table + "'), "
+                     + "pg_relation_size('" + table + "_pkey'), "
+                     + "pg_relation_size('" + table + "_race_id_idx')")) {
+            sizes.next();
+            long rows = batches * BATCH_SIZE;
+            System.out.printf("%n[%s] rows=%d table=%d kB pkey=%d kB (%.1f B/row) race_id_idx=%d kB%n",
+                    strategy, rows, sizes.getLong(1) / 1024, sizes.getLong(2) / 1024,
+                    rows == 0 ? 0.0 : (double) sizes.getLong(2) / rows, sizes.getLong(3) / 1024);
+        }
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE " + table);
+        }
+        connection.commit();
+        insert.close();
+        connection.close();
+    }
+}
@@ -0,0 +1,103 @@
+package com.trail.command.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request in JwtAuthenticationFilter.
+ *
+ * <ul>
+ *     <li>{@code perRequestParser} - the previous implementation: derive the key
+ *     and build a parser for every request, then verify and parse.</li>
+ *     <li>{@code cacheMiss} - the current filter with a token it has not seen:
+ *     shared parser, full verification, plus the cache insert.</li>
+ *     <li>{@code cacheHit} - the current filter with a repeated token: one
+ *     SHA-256 and a cache lookup.</li>
+ * </ul>
+ *
+ * <pre>
+ * gradle jmh -PjmhIncludes=JwtAuthenticationFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET =
+            "58cb2d122cb82a7fd1e3d03c1425fd2bf4a4c8679c5229b4621b01f80cde031ec36ffb4bc5e08bc33554e7d88eabbe0bd30c4d48";
+    private static final int DISTINCT_TOKENS = 1 << 16;
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest repeatedRequest;
+    private MockHttpServletResponse response;
+    private String[] distinctHeaders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // A cache this small keeps evicting, so every distinct token is a miss
+        filter = new JwtAuthenticationFilter(SECRET, 1, 300);
+        response = new MockHttpServletResponse();
+
+        repeatedRequest = new MockHttpServletRequest("GET", "/api/races");
+        repeatedRequest.addHeader("Authorization", "Bearer " + token("ana"));
+
+        distinctHeaders = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            distinctHeaders[i] = "Bearer " + token("user-" + i);
+        }
+    }
+
+    @Benchmark
+    public void perRequestParser(Blackhole blackhole) {
+        String token = repeatedRequest.getHeader("Authorization").substring(7);
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(claims.get("role", String.class));
+    }
+
+    @Benchmark
+    public void cacheMiss() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/races");
+        request.addHeader("Authorization", distinctHeaders[next++ & (DISTINCT_TOKENS - 1)]);
+        filter.doFilterInternal(request, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void cacheHit() throws Exception {
+        filter.doFilterInternal(repeatedRequest, response, NO_OP_CHAIN);
+    }
+
+    private static String token(String subject) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("role", "APPLICANT")
+                .setExpiration(Date.from(Instant.now().plus(Duration.ofHours(2))))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
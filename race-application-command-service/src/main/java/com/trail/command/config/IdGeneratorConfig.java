@@ -0,0 +1,25 @@
+package com.trail.command.config;
+
+import com.trail.command.id.IdGenerator;
+import com.trail.command.id.RandomUuidGenerator;
+import com.trail.command.id.UuidV7Generator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    // v7 = time-ordered (default), v4 = random
+    @Value("${ids.strategy:v7}")
+    private String strategy;
+
+    @Bean
+    public IdGenerator idGenerator() {
+        return switch (strategy) {
+            case "v7" -> new UuidV7Generator();
+            case "v4" -> new RandomUuidGenerator();
+            default -> throw new IllegalStateException("Unknown ids.strategy: " + strategy);
+        };
+    }
+}
@@ -38,10 +38,11 @@ public class OpenApiConfig {
                             - **APPLICANT**: Can create and manage their own applications
                             
                             ## Events
-                            This service publishes the following events:
+                            This service publishes the following events through a transactional outbox:
                             - `RaceCreatedEvent` - When a new race is created
                             - `RaceUpdatedEvent` - When a race is updated
                             - `RaceDeletedEvent` - When a race is deleted
+                            - `ApplicationCreatedEvent` - When an application is created
                             - `ApplicationDeletedEvent` - When an application is deleted
                             """)
                         .version("1.0.0")
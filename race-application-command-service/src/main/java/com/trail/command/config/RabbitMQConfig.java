@@ -38,6 +38,8 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(jsonMessageConverter());
+        // Unroutable messages come back as returns so the outbox relay can retry them
+        template.setMandatory(true);
         return template;
     }
 
@@ -1,5 +1,6 @@
 package com.trail.command.config;
 
+import com.trail.command.idempotency.IdempotencyService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -17,6 +18,7 @@ public class WebConfig {
                         .allowedOrigins("http://localhost:4200")
                         .allowedMethods("GET", "POST", "PATCH", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders(IdempotencyService.REPLAYED_HEADER)
                         .allowCredentials(true);
             }
         };
@@ -1,6 +1,9 @@
 package com.trail.command.controller;
 
+import com.trail.command.dto.ApplicationImportResult;
 import com.trail.command.entity.Application;
+import com.trail.command.idempotency.IdempotencyService;
+import com.trail.command.service.ApplicationImportService;
 import com.trail.command.service.ApplicationService;
 import com.trail.command.service.LoggingService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,15 +14,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.UUID;
 
 @RestController
@@ -31,48 +38,53 @@ import java.util.UUID;
 public class ApplicationController {
 
     private final ApplicationService applicationService;
+    private final ApplicationImportService applicationImportService;
     private final LoggingService loggingService;
+    private final IdempotencyService idempotencyService;
 
     @Operation(
             summary = "Create a new application",
-            description = "Creates a new race application. Both applicants and administrators can create applications."
+            description = "Creates a new race application. Both applicants and administrators can create applications. " +
+                    "Send an Idempotency-Key header to make retries return the original response instead of creating a duplicate."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Application created successfully",
                     content = @Content(schema = @Schema(implementation = Application.class))),
             @ApiResponse(responseCode = "400", description = "Invalid application data"),
             @ApiResponse(responseCode = "404", description = "Race not found"),
-            @ApiResponse(responseCode = "409", description = "Application already exists for this race"),
+            @ApiResponse(responseCode = "409", description = "Application already exists for this race, the race is full, or a request with the same Idempotency-Key is still running"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used with a different request body"),
             @ApiResponse(responseCode = "403", description = "Access denied"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required")
     })
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMINISTRATOR', 'APPLICANT')")
-    public ResponseEntity<Application> create(
+    public ResponseEntity<?> create(
             @Parameter(description = "Application data to create", required = true)
             @Valid @RequestBody Application app,
+            @Parameter(description = "Client-generated key that makes retries return the original response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
 
-        long startTime = System.currentTimeMillis();
-
         try {
             log.info("Creating application for race ID: {} by user: {}",
                     app.getRace().getId(), app.getFirstName() + " " + app.getLastName());
 
-            Application createdApp = applicationService.create(app);
+            return idempotencyService.execute("POST /api/applications", authentication, idempotencyKey,
+                    app, HttpStatus.CREATED, () -> {
+                        Application createdApp = applicationService.create(app);
 
-            // Structured logging
-            String userRole = getUserRole(authentication);
-            loggingService.logApplicationCreated(createdApp.getId(),
-                    createdApp.getFirstName() + " " + createdApp.getLastName(),
-                    createdApp.getRace().getId(), userRole);
-            loggingService.logApiCall("POST", "/api/applications", userRole,
-                    System.currentTimeMillis() - startTime);
+                        // Structured logging
+                        String userRole = getUserRole(authentication);
+                        loggingService.logApplicationCreated(createdApp.getId(),
+                                createdApp.getFirstName() + " " + createdApp.getLastName(),
+                                createdApp.getRace().getId(), userRole);
 
-            log.info("Application created successfully with ID: {} for race: {}",
-                    createdApp.getId(), createdApp.getRace());
+                        log.info("Application created successfully with ID: {} for race: {}",
+                                createdApp.getId(), createdApp.getRace());
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdApp);
+                        return createdApp;
+                    });
 
         } catch (Exception e) {
             log.error("Error creating application for race ID: {}", app.getRace().getId(), e);
@@ -81,6 +93,46 @@ public class ApplicationController {
         }
     }
 
+    @Operation(
+            summary = "Bulk import applications",
+            description = """
+                    Streams a file of applications into the system. Send `application/x-ndjson` with one
+                    object per line, or `text/csv` with a header row naming the columns
+                    `raceId,firstName,lastName,club`. Rows are validated and stored in chunks; invalid
+                    rows are reported by line number and do not stop the import."""
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished, see the result for rejected rows",
+                    content = @Content(schema = @Schema(implementation = ApplicationImportResult.class))),
+            @ApiResponse(responseCode = "415", description = "Unsupported content type"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required")
+    })
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<ApplicationImportResult> importApplications(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request) throws IOException {
+
+        try {
+            log.info("Importing applications from {} upload", contentType);
+
+            ApplicationImportResult result = "csv".equalsIgnoreCase(contentType.getSubtype())
+                    ? applicationImportService.importCsv(request.getInputStream())
+                    : applicationImportService.importNdjson(request.getInputStream());
+
+            log.info("Application import finished: {} imported, {} rejected of {} rows",
+                    result.getImported(), result.getRejected(), result.getTotalRows());
+
+            return ResponseEntity.ok(result);
+
+        } catch (Exception e) {
+            log.error("Error importing applications", e);
+            loggingService.logError("IMPORT_APPLICATIONS", e, null);
+            throw e;
+        }
+    }
+
     @Operation(
             summary = "Delete an application",
             description = "Deletes an existing race application by ID. Applicants can delete their own applications, administrators can delete any application."
@@ -98,8 +150,6 @@ public class ApplicationController {
             @PathVariable UUID id,
             Authentication authentication) {
 
-        long startTime = System.currentTimeMillis();
-
         try {
             log.info("Deleting application with ID: {}", id);
 
@@ -111,8 +161,6 @@ public class ApplicationController {
             // Structured logging
             String userRole = getUserRole(authentication);
             loggingService.logApplicationDeleted(id, userRole);
-            loggingService.logApiCall("DELETE", "/api/applications/" + id, userRole,
-                    System.currentTimeMillis() - startTime);
 
             log.info("Application deleted successfully with ID: {}", id);
 
@@ -1,6 +1,7 @@
 package com.trail.command.controller;
 
 import com.trail.command.entity.Race;
+import com.trail.command.idempotency.IdempotencyService;
 import com.trail.command.service.RaceService;
 import com.trail.command.service.LoggingService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,41 +33,46 @@ public class RaceController {
 
     private final RaceService raceService;
     private final LoggingService loggingService;
+    private final IdempotencyService idempotencyService;
 
     @Operation(
             summary = "Create a new race",
-            description = "Creates a new trail race. Only administrators can create races."
+            description = "Creates a new trail race. Only administrators can create races. " +
+                    "Send an Idempotency-Key header to make retries return the original response instead of creating a duplicate."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Race created successfully",
                     content = @Content(schema = @Schema(implementation = Race.class))),
             @ApiResponse(responseCode = "400", description = "Invalid race data"),
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still running"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used with a different request body"),
             @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required")
     })
     @PostMapping
     @PreAuthorize("hasRole('ADMINISTRATOR')")
-    public ResponseEntity<Race> create(
+    public ResponseEntity<?> create(
             @Parameter(description = "Race data to create", required = true)
             @Valid @RequestBody Race race,
+            @Parameter(description = "Client-generated key that makes retries return the original response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
 
-        long startTime = System.currentTimeMillis();
-
         try {
             log.info("Creating race: {}", race.getName());
 
-            Race createdRace = raceService.createRace(race);
+            return idempotencyService.execute("POST /api/races", authentication, idempotencyKey,
+                    race, HttpStatus.CREATED, () -> {
+                        Race createdRace = raceService.createRace(race);
 
-            // Structured logging
-            String userRole = getUserRole(authentication);
-            loggingService.logRaceCreated(createdRace.getId(), createdRace.getName(), userRole);
-            loggingService.logApiCall("POST", "/api/races", userRole,
-                    System.currentTimeMillis() - startTime);
+                        // Structured logging
+                        String userRole = getUserRole(authentication);
+                        loggingService.logRaceCreated(createdRace.getId(), createdRace.getName(), userRole);
 
-            log.info("Race created successfully with ID: {}", createdRace.getId());
+                        log.info("Race created successfully with ID: {}", createdRace.getId());
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdRace);
+                        return createdRace;
+                    });
 
         } catch (Exception e) {
             log.error("Error creating race: {}", race.getName(), e);
@@ -95,8 +101,6 @@ public class RaceController {
             @Valid @RequestBody Race race,
             Authentication authentication) {
 
-        long startTime = System.currentTimeMillis();
-
         try {
             log.info("Updating race with ID: {}", id);
 
@@ -105,8 +109,6 @@ public class RaceController {
             // Structured logging
             String userRole = getUserRole(authentication);
             loggingService.logRaceUpdated(updatedRace.getId(), updatedRace.getName(), userRole);
-            loggingService.logApiCall("PUT", "/api/races/" + id, userRole,
-                    System.currentTimeMillis() - startTime);
 
             log.info("Race updated successfully: {}", updatedRace.getName());
 
@@ -135,8 +137,6 @@ public class RaceController {
             @PathVariable UUID id,
             Authentication authentication) {
 
-        long startTime = System.currentTimeMillis();
-
         try {
             log.info("Deleting race with ID: {}", id);
 
@@ -145,8 +145,6 @@ public class RaceController {
             // Structured logging
             String userRole = getUserRole(authentication);
             loggingService.logRaceDeleted(id, userRole);
-            loggingService.logApiCall("DELETE", "/api/races/" + id, userRole,
-                    System.currentTimeMillis() - startTime);
 
             log.info("Race deleted successfully with ID: {}", id);
 
@@ -0,0 +1,22 @@
+package com.trail.command.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of a bulk import. Only the first {@code maxReportedErrors} row
+ * errors are kept so large files with many bad rows stay cheap to report.
+ */
+@Data
+public class ApplicationImportResult {
+    private long totalRows;
+    private long imported;
+    private long rejected;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.trail.command.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One row of a bulk application import, either an NDJSON object or a CSV line
+ * with the columns {@code raceId,firstName,lastName,club}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplicationImportRow {
+    @NotNull
+    private UUID raceId;
+
+    @NotBlank
+    @Size(max = 255)
+    private String firstName;
+
+    @NotBlank
+    @Size(max = 255)
+    private String lastName;
+
+    @Size(max = 255)
+    private String club;
+}
@@ -0,0 +1,45 @@
+package com.trail.command.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event waiting to be relayed to RabbitMQ. Rows are written in the same
+ * transaction as the aggregate they describe and deleted once the broker
+ * has confirmed them.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "outbox_event")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Null for batch events that span several aggregates
+    private UUID aggregateId;
+
+    @Column(nullable = false, length = 255)
+    private String routingKey;
+
+    @Column(nullable = false, length = 255)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Set while a relay is sending the row and after a failed attempt; other
+    // relays skip the row until then
+    private Instant claimedUntil;
+}
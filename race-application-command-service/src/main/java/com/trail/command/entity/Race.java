@@ -1,6 +1,8 @@
 package com.trail.command.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,6 +24,16 @@ public class Race {
     @Column(nullable = false)
     private Distance distance;
 
+    // Maximum number of applications; null means the race is not capped
+    @Positive
+    private Integer capacity;
+
+    // Slots leased to SlotReservationEngine instances. Only changed through
+    // RaceRepository.claimSlots/releaseSlots, never by saving the entity.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false, updatable = false, columnDefinition = "integer not null default 0")
+    private int reservedSlots;
+
     public enum Distance {
         FiveK, TenK, HalfMarathon, Marathon
     }
@@ -9,8 +9,14 @@ import java.util.UUID;
 @NoArgsConstructor
 public class ApplicationDeletedEvent {
     private UUID id;
+    // Partition key: keeps the deletion ordered after the race's other events
+    private UUID raceId;
+    // Lets the read model adjust its per-club counts once the row is gone
+    private String club;
 
-    public ApplicationDeletedEvent(UUID id) {
+    public ApplicationDeletedEvent(UUID id, UUID raceId, String club) {
         this.id = id;
+        this.raceId = raceId;
+        this.club = club;
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.trail.command.event;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ApplicationsImportedEvent {
+    private List<ApplicationCreatedEvent> applications;
+
+    public ApplicationsImportedEvent(List<ApplicationCreatedEvent> applications) {
+        this.applications = applications;
+    }
+}
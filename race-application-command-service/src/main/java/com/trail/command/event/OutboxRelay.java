@@ -0,0 +1,164 @@
+package com.trail.command.event;
+
+import com.trail.command.entity.OutboxEvent;
+import com.trail.command.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the outbox in batches. Each batch is sent with publisher confirms and
+ * only rows the broker acknowledged are deleted; anything else stays in the
+ * table and is retried after {@code outbox.retry-backoff-ms} (at-least-once
+ * delivery).
+ *
+ * <p>A batch is claimed in a short transaction of its own, so no row lock is
+ * held while waiting for confirms. The claim lapses after twice the confirm
+ * timeout, which hands the rows of a relay that died mid-batch to the next one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${rabbitmq.exchange:race.exchange}")
+    private String exchange;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:200}")
+    public void relay() {
+        // Keep going only while full batches are confirmed; while the broker
+        // rejects events the next scheduled run tries again
+        int confirmed;
+        do {
+            confirmed = relayBatch();
+        } while (confirmed == batchSize);
+    }
+
+    /**
+     * Relays the next batch and returns how many of its events the broker confirmed.
+     */
+    int relayBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claimNextBatch(now));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CorrelationData> confirmations = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            CorrelationData correlation = new CorrelationData(event.getId().toString());
+            try {
+                rabbitTemplate.send(exchange, event.getRoutingKey(), toMessage(event), correlation);
+            } catch (AmqpException e) {
+                log.warn("Could not send outbox event {}: {}", event.getId(), e.getMessage());
+                correlation.getFuture().complete(new CorrelationData.Confirm(false, e.getMessage()));
+            }
+            confirmations.add(correlation);
+        }
+
+        List<Long> confirmed = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            Long id = batch.get(i).getId();
+            if (isConfirmed(confirmations.get(i), deadline)) {
+                confirmed.add(id);
+            } else {
+                failed.add(id);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!confirmed.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(confirmed);
+            }
+            if (!failed.isEmpty()) {
+                outboxEventRepository.incrementAttempts(failed, Instant.now().plusMillis(retryBackoffMs));
+            }
+        });
+        if (!failed.isEmpty()) {
+            log.warn("Broker did not confirm {} of {} outbox events, will retry", failed.size(), batch.size());
+        }
+        return confirmed.size();
+    }
+
+    private List<OutboxEvent> claimNextBatch(Instant now) {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(now, batchSize);
+        if (!batch.isEmpty()) {
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+            outboxEventRepository.claim(ids, now.plusMillis(2 * confirmTimeoutMs));
+        }
+        return batch;
+    }
+
+    private boolean isConfirmed(CorrelationData correlation, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            CorrelationData.Confirm confirm = correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS);
+            if (!confirm.isAck()) {
+                log.warn("Outbox event {} nacked by broker: {}", correlation.getId(), confirm.getReason());
+                return false;
+            }
+            if (correlation.getReturned() != null) {
+                log.warn("Outbox event {} returned as unroutable: {}",
+                        correlation.getId(), correlation.getReturned().getReplyText());
+                return false;
+            }
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.warn("Confirm for outbox event {} failed", correlation.getId(), e.getCause());
+            return false;
+        }
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setMessageId(event.getId().toString());
+        properties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, event.getEventType());
+        // The AMQP timestamp only has second precision, hence the extra header
+        properties.setTimestamp(Date.from(event.getCreatedAt()));
+        properties.setHeader(RaceEventPublisher.PUBLISHED_AT_HEADER, event.getCreatedAt().toEpochMilli());
+        properties.setHeader(RaceEventPublisher.SEQUENCE_HEADER, event.getId());
+        return new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
@@ -13,10 +13,12 @@ public class RaceCreatedEvent {
     private UUID id;
     private String name;
     private Race.Distance distance;
+    private Integer capacity;
 
-    public RaceCreatedEvent(UUID id, String name, Race.Distance distance) {
+    public RaceCreatedEvent(UUID id, String name, Race.Distance distance, Integer capacity) {
         this.id = id;
         this.name = name;
         this.distance = distance;
+        this.capacity = capacity;
     }
 }
\ No newline at end of file
@@ -1,20 +1,49 @@
 package com.trail.command.event;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.command.entity.OutboxEvent;
+import com.trail.command.repository.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Writes events to the outbox table. Every publish joins the caller's
+ * transaction, so an event exists exactly when the change it describes was
+ * committed. {@link OutboxRelay} forwards the rows to RabbitMQ.
+ *
+ * <p>Routing keys are prefixed with a partition derived from the race id,
+ * e.g. {@code p3.race.updated}. The query service consumes each partition
+ * with a single ordered consumer, so all events of one race, race and
+ * application events alike, are applied in the order they were published.
+ *
+ * <p>Every event is stamped with the time it was published and a sequence
+ * number, the id of its outbox row, which increases in publish order. The
+ * relay sends both as the {@value #PUBLISHED_AT_HEADER} and
+ * {@value #SEQUENCE_HEADER} headers so the query service can measure how far
+ * its read model is behind.
+ */
 @Component
 @RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
 public class RaceEventPublisher {
 
-    private final RabbitTemplate rabbitTemplate;
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+    public static final String SEQUENCE_HEADER = "x-sequence";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
 
-    @Value("${rabbitmq.exchange:race.exchange}")
-    private String exchange;
+    @Value("${rabbitmq.partitions:4}")
+    private int partitions;
 
-    @Value("${rabbitmq.routing-key:race.created}")
+    @Value("${rabbitmq.routing-key-created:race.created}")
     private String createdRoutingKey;
 
     @Value("${rabbitmq.routing-key-deleted:race.deleted}")
@@ -29,22 +58,65 @@ public class RaceEventPublisher {
     @Value("${rabbitmq.routing-key-application-deleted:application.deleted}")
     private String applicationDeletedKey;
 
+    @Value("${rabbitmq.routing-key-application-imported:application.imported}")
+    private String applicationImportedKey;
+
     public void publishApplicationDeleted(ApplicationDeletedEvent event) {
-        rabbitTemplate.convertAndSend(exchange, applicationDeletedKey, event);
+        enqueue(applicationDeletedKey, event.getId(), event.getRaceId(), event);
     }
 
     public void publishRaceCreated(RaceCreatedEvent event) {
-        rabbitTemplate.convertAndSend(exchange, createdRoutingKey, event);
+        enqueue(createdRoutingKey, event.getId(), event.getId(), event);
     }
 
     public void publishRaceDeleted(RaceDeletedEvent event) {
-        rabbitTemplate.convertAndSend(exchange, deletedRoutingKey, event);
+        enqueue(deletedRoutingKey, event.getId(), event.getId(), event);
     }
 
     public void publishRaceUpdated(RaceUpdatedEvent event) {
-        rabbitTemplate.convertAndSend(exchange, updatedRoutingKey, event);
+        enqueue(updatedRoutingKey, event.getId(), event.getId(), event);
     }
+
     public void publishApplicationCreated(ApplicationCreatedEvent event) {
-        rabbitTemplate.convertAndSend(exchange, applicationCreatedKey, event);
+        enqueue(applicationCreatedKey, event.getId(), event.getRace().getId(), event);
+    }
+
+    /**
+     * Publishes applications of a single race; imports spanning several
+     * races publish one event per race.
+     */
+    public void publishApplicationsImported(ApplicationsImportedEvent event) {
+        UUID raceId = event.getApplications().get(0).getRace().getId();
+        for (ApplicationCreatedEvent application : event.getApplications()) {
+            if (!raceId.equals(application.getRace().getId())) {
+                throw new IllegalArgumentException("Imported applications must belong to one race");
+            }
+        }
+        enqueue(applicationImportedKey, null, raceId, event);
+    }
+
+    /**
+     * Partition of a race, the same for every event that concerns it.
+     */
+    int partition(UUID raceId) {
+        return Math.floorMod(raceId.hashCode(), partitions);
+    }
+
+    private void enqueue(String routingKey, UUID aggregateId, UUID raceId, Object event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(aggregateId);
+        outboxEvent.setRoutingKey("p" + partition(raceId) + "." + routingKey);
+        outboxEvent.setEventType(event.getClass().getName());
+        outboxEvent.setPayload(serialize(event));
+        outboxEvent.setCreatedAt(Instant.now());
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    private String serialize(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event.getClass().getSimpleName(), e);
+        }
     }
 }
@@ -12,10 +12,12 @@ public class RaceUpdatedEvent {
     private UUID id;
     private String name;
     private Race.Distance distance;
+    private Integer capacity;
 
-    public RaceUpdatedEvent(UUID id, String name, Race.Distance distance) {
+    public RaceUpdatedEvent(UUID id, String name, Race.Distance distance, Integer capacity) {
         this.id = id;
         this.name = name;
         this.distance = distance;
+        this.capacity = capacity;
     }
 }
@@ -0,0 +1,12 @@
+package com.trail.command.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotentRequestInProgressException extends RuntimeException {
+
+    public IdempotentRequestInProgressException() {
+        super("A request with this Idempotency-Key is still being processed");
+    }
+}
@@ -0,0 +1,14 @@
+package com.trail.command.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class RaceFullException extends RuntimeException {
+
+    public RaceFullException(UUID raceId) {
+        super("Race is full: " + raceId);
+    }
+}
@@ -0,0 +1,14 @@
+package com.trail.command.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class RaceNotFoundException extends RuntimeException {
+
+    public RaceNotFoundException(UUID raceId) {
+        super("Race not found: " + raceId);
+    }
+}
@@ -0,0 +1,11 @@
+package com.trail.command.id;
+
+import java.util.UUID;
+
+/**
+ * Source of primary keys for new races and applications.
+ */
+public interface IdGenerator {
+
+    UUID nextId();
+}
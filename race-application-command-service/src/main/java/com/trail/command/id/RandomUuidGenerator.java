@@ -0,0 +1,14 @@
+package com.trail.command.id;
+
+import java.util.UUID;
+
+/**
+ * Random version 4 UUIDs, kept for comparison and as a fallback strategy.
+ */
+public class RandomUuidGenerator implements IdGenerator {
+
+    @Override
+    public UUID nextId() {
+        return UUID.randomUUID();
+    }
+}
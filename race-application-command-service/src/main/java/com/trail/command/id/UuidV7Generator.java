@@ -0,0 +1,69 @@
+package com.trail.command.id;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered version 7 UUIDs (RFC 9562). The 48-bit millisecond timestamp is
+ * followed by a 12-bit sequence in {@code rand_a}, so ids minted by this
+ * generator are strictly increasing even within the same millisecond. New keys
+ * land at the right edge of the primary key B-tree instead of at random pages.
+ *
+ * <p>The timestamp and sequence share one {@link AtomicLong} that is advanced
+ * with a CAS loop, so concurrent callers never block. When more than 4096 ids
+ * are requested within one millisecond the timestamp is borrowed from the next
+ * millisecond rather than breaking monotonicity.
+ */
+public class UuidV7Generator implements IdGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+    private static final long VARIANT_RFC = 0x8000000000000000L;
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final Clock clock;
+
+    // unix millis << 12 | sequence of the last id handed out
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    public UuidV7Generator() {
+        this(Clock.systemUTC());
+    }
+
+    public UuidV7Generator(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID nextId() {
+        long timeAndSequence = nextTimeAndSequence();
+        long millis = timeAndSequence >>> SEQUENCE_BITS;
+        long sequence = timeAndSequence & ((1L << SEQUENCE_BITS) - 1);
+
+        long mostSigBits = (millis << 16) | VERSION_7 | sequence;
+        long leastSigBits = (RANDOM.get().nextLong() & VARIANT_MASK) | VARIANT_RFC;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private long nextTimeAndSequence() {
+        while (true) {
+            long last = lastTimeAndSequence.get();
+            long now = clock.millis() << SEQUENCE_BITS;
+            long next = now > last ? now : last + 1;
+            if (lastTimeAndSequence.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Milliseconds since the epoch encoded in a version 7 UUID.
+     */
+    public static long timestampOf(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
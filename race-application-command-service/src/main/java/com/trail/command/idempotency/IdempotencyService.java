@@ -0,0 +1,164 @@
+package com.trail.command.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trail.command.exception.IdempotencyKeyReusedException;
+import com.trail.command.exception.IdempotentRequestInProgressException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Makes create endpoints safe to retry with an {@code Idempotency-Key} header.
+ *
+ * <p>The first request claims the key with an insert into
+ * {@code idempotency_record}, runs the action and stores the serialized
+ * response. Retries are answered from a bounded in-memory cache, or from the
+ * table when the cache has evicted the entry or another instance handled the
+ * original request, without running the action again. Keys are scoped to the
+ * endpoint and the caller and live for {@code idempotency.ttl-hours}.
+ *
+ * <p>If the process dies after the action committed but before the response
+ * was stored, the key stays claimed until it expires and retries get a 409
+ * rather than a duplicate.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Cache<String, StoredResponse> responses;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.cache-max-size:10000}") long cacheMaxSize) {
+        this(repository, objectMapper, Clock.systemUTC(), Duration.ofHours(ttlHours), cacheMaxSize);
+    }
+
+    IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                       Clock clock, Duration ttl, long cacheMaxSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} once per key and answers with {@code status} and its
+     * result. Without a key the action simply runs. The request must be
+     * hashed before the action can modify it, so pass the deserialized body.
+     */
+    public ResponseEntity<?> execute(String endpoint, Authentication authentication, String key,
+                                     Object request, HttpStatus status, Supplier<?> action) {
+        if (key == null || key.isBlank()) {
+            return ResponseEntity.status(status).body(action.get());
+        }
+
+        String principal = authentication != null ? authentication.getName() : "anonymous";
+        String id = sha256(endpoint + '\n' + principal + '\n' + key);
+        String requestHash = sha256(serialize(request));
+
+        StoredResponse cached = responses.getIfPresent(id);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        Instant now = clock.instant();
+        if (repository.claim(id, requestHash, now, now.plus(ttl)) == 0) {
+            return replay(stored(id), requestHash);
+        }
+
+        Object result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // Let the client retry the same key once the failure is fixed
+            repository.release(id);
+            throw e;
+        }
+
+        String body = serialize(result);
+        repository.complete(id, status.value(), body);
+        responses.put(id, new StoredResponse(requestHash, status.value(), body));
+        return ResponseEntity.status(status).body(result);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(clock.instant());
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    private StoredResponse stored(String id) {
+        Optional<IdempotencyRecord> record = repository.findById(id);
+        if (record.isEmpty() || record.get().getResponseStatus() == null) {
+            throw new IdempotentRequestInProgressException();
+        }
+        StoredResponse response = new StoredResponse(
+                record.get().getRequestHash(),
+                record.get().getResponseStatus(),
+                record.get().getResponseBody());
+        responses.put(id, response);
+        return response;
+    }
+
+    private static ResponseEntity<?> replay(StoredResponse response, String requestHash) {
+        if (!response.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        return ResponseEntity.status(response.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(response.body());
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, int status, String body) {
+    }
+}
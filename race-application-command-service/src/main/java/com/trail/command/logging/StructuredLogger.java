@@ -1,13 +1,14 @@
 package com.trail.command.logging;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.trail.common.logging.EventLogPipeline;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
 
 @Component
+@RequiredArgsConstructor
 public class StructuredLogger {
 
     // MDC Keys for structured logging
@@ -19,178 +20,80 @@ public class StructuredLogger {
     public static final String RESOURCE_TYPE = "resourceType";
     public static final String RESOURCE_ID = "resourceId";
 
-    private static final Logger logger = LoggerFactory.getLogger(StructuredLogger.class);
+    private final EventLogPipeline pipeline;
 
     // Business Events
     public void logRaceCreated(String userId, UUID raceId, String raceName) {
-        try {
-            MDC.put(USER_ID, userId);
-            MDC.put(ACTION, "RACE_CREATED");
-            MDC.put(RESOURCE_TYPE, "race");
-            MDC.put(RESOURCE_ID, raceId.toString());
-
-            logger.info("Race created successfully: name='{}', id='{}'", raceName, raceId);
-        } finally {
-            clearMDC();
-        }
+        pipeline.info(StructuredLogger.class, "RACE_CREATED",
+                "Race created successfully: {}, {}",
+                "raceName", raceName, RESOURCE_ID, raceId, USER_ID, userId, RESOURCE_TYPE, "race");
     }
 
     public void logRaceUpdated(String userId, UUID raceId, String raceName) {
-        try {
-            MDC.put(USER_ID, userId);
-            MDC.put(ACTION, "RACE_UPDATED");
-            MDC.put(RESOURCE_TYPE, "race");
-            MDC.put(RESOURCE_ID, raceId.toString());
-
-            logger.info("Race updated successfully: name='{}', id='{}'", raceName, raceId);
-        } finally {
-            clearMDC();
-        }
+        pipeline.info(StructuredLogger.class, "RACE_UPDATED",
+                "Race updated successfully: {}, {}",
+                "raceName", raceName, RESOURCE_ID, raceId, USER_ID, userId, RESOURCE_TYPE, "race");
     }
 
     public void logRaceDeleted(String userId, UUID raceId) {
-        try {
-            MDC.put(USER_ID, userId);
-            MDC.put(ACTION, "RACE_DELETED");
-            MDC.put(RESOURCE_TYPE, "race");
-            MDC.put(RESOURCE_ID, raceId.toString());
-
-            logger.info("Race deleted successfully: id='{}'", raceId);
-        } finally {
-            clearMDC();
-        }
+        pipeline.info(StructuredLogger.class, "RACE_DELETED",
+                "Race deleted successfully: {}",
+                RESOURCE_ID, raceId, USER_ID, userId, RESOURCE_TYPE, "race");
     }
 
     public void logApplicationCreated(String userId, UUID applicationId, UUID raceId) {
-        try {
-            MDC.put(USER_ID, userId);
-            MDC.put(ACTION, "APPLICATION_CREATED");
-            MDC.put(RESOURCE_TYPE, "application");
-            MDC.put(RESOURCE_ID, applicationId.toString());
-
-            logger.info("Application created successfully: id='{}', raceId='{}'", applicationId, raceId);
-        } finally {
-            clearMDC();
-        }
+        pipeline.info(StructuredLogger.class, "APPLICATION_CREATED",
+                "Application created successfully: {}, {}",
+                RESOURCE_ID, applicationId, "raceId", raceId, USER_ID, userId, RESOURCE_TYPE, "application");
     }
 
     // Security Events
     public void logAuthenticationAttempt(String username, boolean success, String clientIp) {
-        try {
-            MDC.put(ACTION, success ? "AUTH_SUCCESS" : "AUTH_FAILURE");
-            MDC.put("clientIp", clientIp);
-
-            if (success) {
-                logger.info("Authentication successful for user: '{}'", username);
-            } else {
-                logger.warn("Authentication failed for user: '{}'", username);
-            }
-        } finally {
-            clearMDC();
+        if (success) {
+            pipeline.info(StructuredLogger.class, "AUTH_SUCCESS",
+                    "Authentication successful for user: {}",
+                    "username", username, "clientIp", clientIp);
+        } else {
+            pipeline.warn(StructuredLogger.class, "AUTH_FAILURE",
+                    "Authentication failed for user: {}",
+                    "username", username, "clientIp", clientIp);
         }
     }
 
     public void logAuthorizationFailure(String userId, String action, String resource) {
-        try {
-            MDC.put(USER_ID, userId);
-            MDC.put(ACTION, "AUTHORIZATION_FAILURE");
-            MDC.put("attemptedAction", action);
-            MDC.put("resource", resource);
-
-            logger.warn("Authorization failed: user='{}', action='{}', resource='{}'",
-                    userId, action, resource);
-        } finally {
-            clearMDC();
-        }
-    }
-
-    // Performance Events
-    public void logSlowQuery(String query, long durationMs) {
-        try {
-            MDC.put(ACTION, "SLOW_QUERY");
-            MDC.put("queryDurationMs", String.valueOf(durationMs));
-
-            logger.warn("Slow database query detected: duration={}ms, query='{}'",
-                    durationMs, query);
-        } finally {
-            clearMDC();
-        }
-    }
-
-    public void logApiPerformance(String endpoint, String method, long durationMs, int statusCode) {
-        try {
-            MDC.put(ACTION, "API_CALL");
-            MDC.put("endpoint", endpoint);
-            MDC.put("httpMethod", method);
-            MDC.put("durationMs", String.valueOf(durationMs));
-            MDC.put("statusCode", String.valueOf(statusCode));
-
-            if (durationMs > 1000) {
-                logger.warn("Slow API call: {} {} - {}ms - status:{}",
-                        method, endpoint, durationMs, statusCode);
-            } else {
-                logger.info("API call: {} {} - {}ms - status:{}",
-                        method, endpoint, durationMs, statusCode);
-            }
-        } finally {
-            clearMDC();
-        }
+        pipeline.warn(StructuredLogger.class, "AUTHORIZATION_FAILURE",
+                "Authorization failed: {}, {}, {}",
+                USER_ID, userId, "attemptedAction", action, "resource", resource);
     }
 
     // Error Events
     public void logBusinessError(String userId, String action, String errorMessage, Exception e) {
-        try {
-            MDC.put(USER_ID, userId);
-            MDC.put(ACTION, action + "_ERROR");
-
-            logger.error("Business error occurred: action='{}', message='{}', user='{}'",
-                    action, errorMessage, userId, e);
-        } finally {
-            clearMDC();
-        }
+        pipeline.error(StructuredLogger.class, action + "_ERROR",
+                "Business error occurred: {}, {}, {}", e,
+                ACTION, action, "errorMessage", errorMessage, USER_ID, userId);
     }
 
     public void logTechnicalError(String component, String operation, Exception e) {
-        try {
-            MDC.put(ACTION, "TECHNICAL_ERROR");
-            MDC.put("component", component);
-            MDC.put("operation", operation);
-
-            logger.error("Technical error in component='{}', operation='{}': {}",
-                    component, operation, e.getMessage(), e);
-        } finally {
-            clearMDC();
-        }
+        pipeline.error(StructuredLogger.class, "TECHNICAL_ERROR",
+                "Technical error in {}, {}: {}", e,
+                "component", component, "operation", operation, "errorMessage", e.getMessage());
     }
 
     // Event Processing
     public void logEventPublished(String eventType, UUID resourceId, String exchange, String routingKey) {
-        try {
-            MDC.put(ACTION, "EVENT_PUBLISHED");
-            MDC.put("eventType", eventType);
-            MDC.put(RESOURCE_ID, resourceId.toString());
-            MDC.put("exchange", exchange);
-            MDC.put("routingKey", routingKey);
-
-            logger.info("Event published: type='{}', resourceId='{}', exchange='{}', routingKey='{}'",
-                    eventType, resourceId, exchange, routingKey);
-        } finally {
-            clearMDC();
-        }
+        pipeline.info(StructuredLogger.class, "EVENT_PUBLISHED",
+                "Event published: {}, {}, {}, {}",
+                "eventType", eventType, RESOURCE_ID, resourceId, "exchange", exchange, "routingKey", routingKey);
     }
 
     public void logEventProcessingError(String eventType, String error, Exception e) {
-        try {
-            MDC.put(ACTION, "EVENT_PROCESSING_ERROR");
-            MDC.put("eventType", eventType);
-
-            logger.error("Event processing failed: type='{}', error='{}'", eventType, error, e);
-        } finally {
-            clearMDC();
-        }
+        pipeline.error(StructuredLogger.class, "EVENT_PROCESSING_ERROR",
+                "Event processing failed: {}, {}", e,
+                "eventType", eventType, "errorMessage", error);
     }
 
-    // Utility methods
+    // Utility methods. Request and trace ids stay in the MDC, which the
+    // pipeline copies onto every event published from this thread.
     public void setRequestContext(String requestId, String userId) {
         MDC.put(REQUEST_ID, requestId);
         MDC.put(USER_ID, userId);
@@ -204,4 +107,4 @@ public class StructuredLogger {
     public void clearMDC() {
         MDC.clear();
     }
-}
\ No newline at end of file
+}
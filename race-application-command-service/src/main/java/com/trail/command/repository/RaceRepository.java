@@ -2,8 +2,31 @@ package com.trail.command.repository;
 
 import com.trail.command.entity.Race;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.UUID;
 
 public interface RaceRepository extends JpaRepository<Race, UUID> {
-}
\ No newline at end of file
+
+    // Single conditional update: succeeds only while the lease still fits under capacity.
+    // Uncapped races are counted as well, so a capacity set later starts from the right number.
+    @Modifying
+    @Query("UPDATE Race r SET r.reservedSlots = r.reservedSlots + :slots "
+            + "WHERE r.id = :id AND (r.capacity IS NULL OR r.capacity - r.reservedSlots >= :slots)")
+    int claimSlots(@Param("id") UUID id, @Param("slots") int slots);
+
+    @Modifying
+    @Query("UPDATE Race r SET r.reservedSlots = r.reservedSlots - :slots "
+            + "WHERE r.id = :id AND r.reservedSlots >= :slots")
+    int releaseSlots(@Param("id") UUID id, @Param("slots") int slots);
+
+    // Never lowers the count: leased but unused permits are counted too. Raises
+    // it for races whose applications were admitted without being counted.
+    @Modifying
+    @Query(value = "UPDATE race SET reserved_slots = GREATEST(reserved_slots, "
+            + "(SELECT COUNT(*) FROM application WHERE race_id = :id)) WHERE id = :id",
+            nativeQuery = true)
+    int recountReservedSlots(@Param("id") UUID id);
+}
@@ -0,0 +1,50 @@
+package com.trail.command.reservation;
+
+import com.trail.command.repository.RaceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Keeps the lease count in {@code race.reserved_slots}. Leases commit on
+ * their own so the row is touched once per block of slots rather than once
+ * per application, and no row lock is held while an application is written.
+ */
+@Component
+@RequiredArgsConstructor
+public class JpaSlotLedger implements SlotLedger {
+
+    private final RaceRepository raceRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public OptionalInt capacity(UUID raceId) {
+        return raceRepository.findById(raceId)
+                .map(race -> OptionalInt.of(race.getCapacity() == null ? UNLIMITED : race.getCapacity()))
+                .orElse(OptionalInt.empty());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int lease(UUID raceId, int slots) {
+        // Near sell-out a full block no longer fits, so halve until whatever is left is granted
+        for (int wanted = slots; wanted > 0; wanted /= 2) {
+            if (raceRepository.claimSlots(raceId, wanted) == 1) {
+                return wanted;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(UUID raceId, int slots) {
+        if (slots > 0) {
+            raceRepository.releaseSlots(raceId, slots);
+        }
+    }
+}
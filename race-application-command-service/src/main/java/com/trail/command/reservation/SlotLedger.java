@@ -0,0 +1,32 @@
+package com.trail.command.reservation;
+
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Durable record of how many slots of each race have been handed out.
+ * Implementations must never grant more slots than the race's capacity,
+ * no matter how many callers lease concurrently.
+ */
+public interface SlotLedger {
+
+    int UNLIMITED = -1;
+
+    /**
+     * Capacity of the race, {@link #UNLIMITED} if it is not capped, or empty
+     * when the race does not exist.
+     */
+    OptionalInt capacity(UUID raceId);
+
+    /**
+     * Claims up to {@code slots} slots and returns how many were granted,
+     * zero once the race is full. Uncapped races always grant, but still
+     * count the slots.
+     */
+    int lease(UUID raceId, int slots);
+
+    /**
+     * Returns previously leased slots that were not used.
+     */
+    void release(UUID raceId, int slots);
+}
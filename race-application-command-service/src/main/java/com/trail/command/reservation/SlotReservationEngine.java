@@ -0,0 +1,244 @@
+package com.trail.command.reservation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Admits or rejects registrations against race capacity without a global
+ * lock or a per-request row lock.
+ *
+ * <p>Each race keeps a set of striped permit counters in memory. A request
+ * takes a permit from its stripe with a CAS and only goes to the
+ * {@link SlotLedger} when the local permits run out, leasing a whole block
+ * with one conditional update. The ledger never hands out more than the
+ * capacity, and a permit is only ever consumed once, so the race cannot be
+ * oversold even with several service instances.
+ *
+ * <p>Uncapped races lease too, so the ledger counts every slot in use and a
+ * race that gets a capacity later starts from the right count. A cached
+ * entry is dropped and reloaded after {@code reservations.refresh-ms}, which
+ * bounds how long an instance keeps using permits leased before another
+ * instance lowered the capacity.
+ *
+ * <p>Permits still held locally when the process stops are returned to the
+ * ledger on shutdown. After a crash they stay counted as reserved, which can
+ * undersell a race but never oversell it.
+ */
+@Component
+@Slf4j
+public class SlotReservationEngine {
+
+    public enum Reservation {
+        ADMITTED, FULL, UNKNOWN_RACE
+    }
+
+    // Stripes sit 16 ints (64 bytes) apart so neighbouring counters do not share a cache line
+    private static final int PADDING = 16;
+
+    private final SlotLedger ledger;
+    private final int leaseSize;
+    private final int stripeMask;
+    private final long refreshNanos;
+    private final ConcurrentHashMap<UUID, RaceSlots> races = new ConcurrentHashMap<>();
+
+    public SlotReservationEngine(SlotLedger ledger,
+                                 @Value("${reservations.lease-size:32}") int leaseSize,
+                                 @Value("${reservations.refresh-ms:10000}") long refreshMs) {
+        this(ledger, leaseSize, Runtime.getRuntime().availableProcessors(), refreshMs);
+    }
+
+    SlotReservationEngine(SlotLedger ledger, int leaseSize, int parallelism, long refreshMs) {
+        this.ledger = ledger;
+        this.leaseSize = Math.max(1, leaseSize);
+        this.stripeMask = Integer.highestOneBit(Math.max(1, parallelism) * 2 - 1) - 1;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMs);
+    }
+
+    /**
+     * Takes one slot of the race. Call this outside of a database transaction:
+     * a lease commits on its own and would otherwise need a second connection.
+     */
+    public Reservation reserve(UUID raceId) {
+        RaceSlots slots = races.get(raceId);
+        if (slots != null && slots.expired()) {
+            if (races.remove(raceId, slots)) {
+                ledger.release(raceId, slots.drain());
+            }
+            slots = null;
+        }
+        if (slots == null) {
+            // Not computeIfAbsent: the bin lock would pin a virtual thread for the whole query
+            if (ledger.capacity(raceId).isEmpty()) {
+                return Reservation.UNKNOWN_RACE;
+            }
+            RaceSlots loaded = new RaceSlots(stripeMask + 1, System.nanoTime() + refreshNanos);
+            RaceSlots existing = races.putIfAbsent(raceId, loaded);
+            slots = existing != null ? existing : loaded;
+        }
+
+        int stripe = stripe();
+        if (slots.tryAcquire(stripe)) {
+            return Reservation.ADMITTED;
+        }
+        int granted = ledger.lease(raceId, leaseSize);
+        if (granted > 0) {
+            deposit(raceId, slots, stripe, granted - 1);
+            return Reservation.ADMITTED;
+        }
+        // The ledger is exhausted, but a concurrent lease may just have refilled a stripe
+        return slots.tryAcquire(stripe) ? Reservation.ADMITTED : Reservation.FULL;
+    }
+
+    /**
+     * Gives a slot back, e.g. when an application is deleted or its insert failed.
+     */
+    public void release(UUID raceId) {
+        RaceSlots slots = races.get(raceId);
+        if (slots == null) {
+            ledger.release(raceId, 1);
+        } else {
+            deposit(raceId, slots, stripe(), 1);
+        }
+    }
+
+    /**
+     * Adds permits to the cached state of a race. If that state expired or
+     * was forgotten meanwhile, its drain may already have run, so whatever it
+     * holds now goes back to the ledger instead of staying there unseen.
+     */
+    private void deposit(UUID raceId, RaceSlots slots, int stripe, int count) {
+        slots.deposit(stripe, count);
+        if (races.get(raceId) != slots) {
+            int stale = slots.drain();
+            if (stale > 0) {
+                ledger.release(raceId, stale);
+            }
+        }
+    }
+
+    /**
+     * Gives a slot back once the current transaction commits.
+     */
+    public void releaseAfterCommit(UUID raceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(raceId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(raceId);
+            }
+        });
+    }
+
+    /**
+     * Drops the cached state of a race, returning unused permits to the
+     * ledger. Called when the capacity changes or the race is deleted.
+     */
+    public void forget(UUID raceId) {
+        RaceSlots slots = races.remove(raceId);
+        if (slots != null) {
+            ledger.release(raceId, slots.drain());
+        }
+    }
+
+    public void forgetAfterCommit(UUID raceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget(raceId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                forget(raceId);
+            }
+        });
+    }
+
+    /**
+     * Permits leased from the ledger but not yet handed out.
+     */
+    int unusedPermits(UUID raceId) {
+        RaceSlots slots = races.get(raceId);
+        return slots == null ? 0 : slots.available();
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        for (UUID raceId : races.keySet()) {
+            try {
+                forget(raceId);
+            } catch (RuntimeException e) {
+                log.warn("Could not return unused slots of race {}", raceId, e);
+            }
+        }
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private static final class RaceSlots {
+        private final int stripes;
+        private final long expiresAt;
+        private final AtomicIntegerArray permits;
+
+        RaceSlots(int stripes, long expiresAt) {
+            this.stripes = stripes;
+            this.expiresAt = expiresAt;
+            this.permits = new AtomicIntegerArray(stripes * PADDING);
+        }
+
+        boolean expired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+
+        boolean tryAcquire(int home) {
+            for (int i = 0; i < stripes; i++) {
+                int index = ((home + i) % stripes) * PADDING;
+                int available = permits.get(index);
+                while (available > 0) {
+                    if (permits.compareAndSet(index, available, available - 1)) {
+                        return true;
+                    }
+                    available = permits.get(index);
+                }
+            }
+            return false;
+        }
+
+        void deposit(int stripe, int count) {
+            if (count > 0) {
+                permits.addAndGet(stripe * PADDING, count);
+            }
+        }
+
+        int drain() {
+            int drained = 0;
+            for (int i = 0; i < stripes; i++) {
+                drained += permits.getAndSet(i * PADDING, 0);
+            }
+            return drained;
+        }
+
+        int available() {
+            int available = 0;
+            for (int i = 0; i < stripes; i++) {
+                available += permits.get(i * PADDING);
+            }
+            return available;
+        }
+    }
+}
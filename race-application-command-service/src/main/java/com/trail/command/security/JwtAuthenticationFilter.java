@@ -1,30 +1,56 @@
 package com.trail.command.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final JwtParser parser;
+    private final long maxCacheNanos;
+
+    // Verified tokens by SHA-256, so a repeated token skips the HMAC check and claim parsing.
+    // Each entry expires with its token's exp claim.
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtAuthenticationFilter(@Value("${jwt.secret}") String jwtSecret,
+                                   @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                                   @Value("${jwt.cache.max-ttl-seconds:300}") long cacheMaxTtlSeconds) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .build();
+        this.maxCacheNanos = Duration.ofSeconds(cacheMaxTtlSeconds).toNanos();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.creating((String hash, VerifiedToken token) ->
+                        Duration.ofNanos(token.timeToLive(maxCacheNanos))))
+                .build();
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -40,25 +66,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String token = authHeader.substring(7);
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            String hash = sha256(token);
 
-            String username = claims.getSubject();
-            String role = claims.get("role", String.class);
-
-            // Dodavanje ROLE_ prefix-a ako ne postoji
-            String authority = role.startsWith("ROLE_") ? role : "ROLE_" + role;
+            VerifiedToken verified = verifiedTokens.getIfPresent(hash);
+            if (verified == null) {
+                verified = verify(token);
+                if (verified.timeToLive(maxCacheNanos) > 0) {
+                    verifiedTokens.put(hash, verified);
+                }
+            }
 
             UsernamePasswordAuthenticationToken authToken =
                     new UsernamePasswordAuthenticationToken(
-                            username,
+                            verified.username(),
                             null,
-                            List.of(new SimpleGrantedAuthority(authority))
+                            verified.authorities()
                     );
 
             SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -69,4 +91,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private VerifiedToken verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+
+        String username = claims.getSubject();
+        String role = claims.get("role", String.class);
+
+        // Dodavanje ROLE_ prefix-a ako ne postoji
+        String authority = role.startsWith("ROLE_") ? role : "ROLE_" + role;
+
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(username, List.of(new SimpleGrantedAuthority(authority)),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    private static String sha256(String token) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private record VerifiedToken(String username, List<GrantedAuthority> authorities, long expiresAtMillis) {
+
+        // Never longer than maxNanos, so a token without exp is still re-verified periodically
+        long timeToLive(long maxNanos) {
+            if (expiresAtMillis == Long.MAX_VALUE) {
+                return maxNanos;
+            }
+            long remaining = Duration.ofMillis(expiresAtMillis - System.currentTimeMillis()).toNanos();
+            return Math.min(Math.max(remaining, 0), maxNanos);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.trail.command.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.trail.command.dto.ApplicationImportResult;
+import com.trail.command.dto.ApplicationImportRow;
+import com.trail.command.entity.Race;
+import com.trail.command.event.ApplicationCreatedEvent;
+import com.trail.command.event.ApplicationsImportedEvent;
+import com.trail.command.event.RaceEventPublisher;
+import com.trail.command.id.IdGenerator;
+import com.trail.command.repository.RaceRepository;
+import com.trail.command.reservation.SlotReservationEngine;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a bulk application import. Rows are parsed one line at a time,
+ * validated, and written in bounded chunks with a JDBC batch insert; each
+ * chunk commits together with a single {@link ApplicationsImportedEvent}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ApplicationImportService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO application (id, first_name, last_name, club, race_id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final List<String> CSV_COLUMNS = List.of("raceId", "firstName", "lastName", "club");
+
+    private static final String NOT_AN_OBJECT = "Expected a JSON object";
+
+    private final RaceRepository raceRepository;
+    private final RaceEventPublisher publisher;
+    private final IdGenerator idGenerator;
+    private final SlotReservationEngine slotReservations;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${import.max-line-length:8192}")
+    private int maxLineLength;
+
+    public ApplicationImportResult importNdjson(InputStream input) throws IOException {
+        ObjectReader rowReader = objectMapper.readerFor(ApplicationImportRow.class);
+        Import run = new Import();
+        try (BoundedLineReader reader = newReader(input)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (reader.truncated()) {
+                    run.reject(lineNumber, lineTooLong());
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                ApplicationImportRow row;
+                try {
+                    row = rowReader.readValue(line);
+                } catch (MismatchedInputException e) {
+                    // An empty path means the line as a whole is not an object, e.g. 42 or [...]
+                    run.reject(lineNumber, e.getPath().isEmpty()
+                            ? NOT_AN_OBJECT : "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                } catch (JsonProcessingException e) {
+                    run.reject(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                // A line holding just null reads as no row at all
+                if (row == null) {
+                    run.reject(lineNumber, NOT_AN_OBJECT);
+                    continue;
+                }
+                run.accept(lineNumber, row);
+            }
+            return run.finish();
+        } finally {
+            run.releasePending();
+        }
+    }
+
+    public ApplicationImportResult importCsv(InputStream input) throws IOException {
+        Import run = new Import();
+        try (BoundedLineReader reader = newReader(input)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return run.finish();
+            }
+            Map<String, Integer> columns = csvColumns(parseCsvLine(stripBom(header)));
+
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (reader.truncated()) {
+                    run.reject(lineNumber, lineTooLong());
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = parseCsvLine(line);
+                UUID raceId;
+                try {
+                    raceId = UUID.fromString(field(fields, columns.get("raceId")));
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    run.reject(lineNumber, "raceId: must be a valid UUID");
+                    continue;
+                }
+                run.accept(lineNumber, new ApplicationImportRow(
+                        raceId,
+                        field(fields, columns.get("firstName")),
+                        field(fields, columns.get("lastName")),
+                        field(fields, columns.get("club"))));
+            }
+            return run.finish();
+        } finally {
+            run.releasePending();
+        }
+    }
+
+    private String lineTooLong() {
+        return "Line is longer than " + maxLineLength + " characters";
+    }
+
+    private static Map<String, Integer> csvColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            for (String column : CSV_COLUMNS) {
+                if (column.equalsIgnoreCase(name)) {
+                    columns.put(column, i);
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, Integer index) {
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits a single CSV line, honouring double-quoted fields and {@code ""}
+     * escapes. Quoted fields may not span lines.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+
+    private BoundedLineReader newReader(InputStream input) {
+        return new BoundedLineReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxLineLength);
+    }
+
+    /**
+     * State of one import run: the pending chunk, the races seen so far and the
+     * running totals. Only the current chunk is held in memory.
+     */
+    private class Import {
+        private final ApplicationImportResult result = new ApplicationImportResult();
+        private final Map<UUID, Optional<Race>> races = new HashMap<>();
+        private final List<PendingRow> chunk = new ArrayList<>(chunkSize);
+
+        void accept(long lineNumber, ApplicationImportRow row) {
+            result.setTotalRows(result.getTotalRows() + 1);
+
+            Set<ConstraintViolation<ApplicationImportRow>> violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                recordError(lineNumber, violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                return;
+            }
+
+            Optional<Race> race = races.computeIfAbsent(row.getRaceId(), raceRepository::findById);
+            if (race.isEmpty()) {
+                recordError(lineNumber, "raceId: race " + row.getRaceId() + " does not exist");
+                return;
+            }
+            UUID id = idGenerator.nextId();
+            if (slotReservations.reserve(row.getRaceId()) != SlotReservationEngine.Reservation.ADMITTED) {
+                recordError(lineNumber, "raceId: race " + row.getRaceId() + " is full");
+                return;
+            }
+
+            chunk.add(new PendingRow(lineNumber, id, row, race.get()));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long lineNumber, String message) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            recordError(lineNumber, message);
+        }
+
+        private void recordError(long lineNumber, String message) {
+            result.setRejected(result.getRejected() + 1);
+            if (result.getErrors().size() < maxReportedErrors) {
+                result.getErrors().add(new ApplicationImportResult.RowError(lineNumber, message));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+
+        ApplicationImportResult finish() {
+            flush();
+            return result;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(chunk));
+                result.setImported(result.getImported() + chunk.size());
+                chunk.clear();
+            } catch (DataAccessException e) {
+                log.warn("Import chunk of {} rows starting at line {} failed",
+                        chunk.size(), chunk.get(0).lineNumber(), e);
+                for (PendingRow pending : chunk) {
+                    recordError(pending.lineNumber(), "Chunk rejected: " + e.getMostSpecificCause().getMessage());
+                }
+            } finally {
+                releasePending();
+            }
+        }
+
+        /**
+         * Returns the slots of rows that were reserved but not written. Runs
+         * after every chunk and when the import ends, also when the upload
+         * failed half-way.
+         */
+        void releasePending() {
+            for (PendingRow pending : chunk) {
+                try {
+                    slotReservations.release(pending.row().getRaceId());
+                } catch (RuntimeException e) {
+                    log.warn("Could not release the slot of line {} in race {}",
+                            pending.lineNumber(), pending.row().getRaceId(), e);
+                }
+            }
+            chunk.clear();
+        }
+    }
+
+    private void writeChunk(List<PendingRow> chunk) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, pending) -> {
+            ps.setObject(1, pending.id());
+            ps.setString(2, pending.row().getFirstName());
+            ps.setString(3, pending.row().getLastName());
+            ps.setString(4, pending.row().getClub());
+            ps.setObject(5, pending.row().getRaceId());
+        });
+
+        // One event per race, so each lands in its race's partition
+        Map<UUID, List<ApplicationCreatedEvent>> byRace = new LinkedHashMap<>();
+        for (PendingRow pending : chunk) {
+            byRace.computeIfAbsent(pending.race().getId(), raceId -> new ArrayList<>())
+                    .add(new ApplicationCreatedEvent(
+                            pending.id(),
+                            pending.row().getFirstName(),
+                            pending.row().getLastName(),
+                            pending.row().getClub(),
+                            pending.race()));
+        }
+        byRace.values().forEach(applications ->
+                publisher.publishApplicationsImported(new ApplicationsImportedEvent(applications)));
+    }
+
+    private record PendingRow(long lineNumber, UUID id, ApplicationImportRow row, Race race) {
+    }
+}
@@ -1,11 +1,18 @@
 package com.trail.command.service;
 
 import com.trail.command.entity.Application;
+import com.trail.command.event.ApplicationCreatedEvent;
 import com.trail.command.event.ApplicationDeletedEvent;
 import com.trail.command.event.RaceEventPublisher;
+import com.trail.command.exception.RaceFullException;
+import com.trail.command.exception.RaceNotFoundException;
+import com.trail.command.id.IdGenerator;
 import com.trail.command.repository.ApplicationRepository;
+import com.trail.command.reservation.SlotReservationEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.UUID;
 
@@ -14,16 +21,51 @@ import java.util.UUID;
 public class ApplicationService {
     private final ApplicationRepository applicationRepository;
     private final RaceEventPublisher publisher;
+    private final IdGenerator idGenerator;
+    private final SlotReservationEngine slotReservations;
+    private final TransactionTemplate transactionTemplate;
 
     public Application create(Application app) {
-        app.setId(UUID.randomUUID());
-        return applicationRepository.save(app);
+        // Admission happens before the transaction opens so a lease never waits on a second connection
+        UUID raceId = app.getRace().getId();
+        switch (slotReservations.reserve(raceId)) {
+            case UNKNOWN_RACE -> throw new RaceNotFoundException(raceId);
+            case FULL -> throw new RaceFullException(raceId);
+            case ADMITTED -> { }
+        }
+
+        try {
+            return transactionTemplate.execute(status -> insert(app));
+        } catch (RuntimeException e) {
+            slotReservations.release(raceId);
+            throw e;
+        }
+    }
+
+    private Application insert(Application app) {
+        app.setId(idGenerator.nextId());
+        Application saved = applicationRepository.save(app);
+
+        ApplicationCreatedEvent event = new ApplicationCreatedEvent(
+                saved.getId(),
+                saved.getFirstName(),
+                saved.getLastName(),
+                saved.getClub(),
+                saved.getRace()
+        );
+        publisher.publishApplicationCreated(event);
+
+        return saved;
     }
 
+    @Transactional
     public void delete(UUID id) {
-        applicationRepository.deleteById(id);
+        applicationRepository.findById(id).ifPresent(app -> {
+            applicationRepository.delete(app);
+            slotReservations.releaseAfterCommit(app.getRace().getId());
 
-        ApplicationDeletedEvent event = new ApplicationDeletedEvent(id);
-        publisher.publishApplicationDeleted(event);
+            ApplicationDeletedEvent event = new ApplicationDeletedEvent(id, app.getRace().getId(), app.getClub());
+            publisher.publishApplicationDeleted(event);
+        });
     }
-}
\ No newline at end of file
+}
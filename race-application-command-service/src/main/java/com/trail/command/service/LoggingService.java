@@ -1,104 +1,67 @@
 package com.trail.command.service;
 
-import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
+import com.trail.common.logging.EventLogPipeline;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
 
+/**
+ * Business and API events. Everything goes through the asynchronous
+ * {@link EventLogPipeline}; the calling thread only allocates the event.
+ */
 @Service
-@Slf4j
+@RequiredArgsConstructor
 public class LoggingService {
 
-    public void logRaceCreated(UUID raceId, String raceName, String userRole) {
-        MDC.put("event", "RACE_CREATED");
-        MDC.put("raceId", raceId.toString());
-        MDC.put("raceName", raceName);
-        MDC.put("userRole", userRole);
+    private final EventLogPipeline pipeline;
 
-        log.info("Race created successfully: {} by user with role {}", raceName, userRole);
-        MDC.clear();
+    public void logRaceCreated(UUID raceId, String raceName, String userRole) {
+        pipeline.info(LoggingService.class, "RACE_CREATED",
+                "Race created successfully: {} {} by user with role {}",
+                "raceName", raceName, "raceId", raceId, "userRole", userRole);
     }
 
     public void logRaceUpdated(UUID raceId, String raceName, String userRole) {
-        MDC.put("event", "RACE_UPDATED");
-        MDC.put("raceId", raceId.toString());
-        MDC.put("raceName", raceName);
-        MDC.put("userRole", userRole);
-
-        log.info("Race updated successfully: {} by user with role {}", raceName, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "RACE_UPDATED",
+                "Race updated successfully: {} {} by user with role {}",
+                "raceName", raceName, "raceId", raceId, "userRole", userRole);
     }
 
     public void logRaceDeleted(UUID raceId, String userRole) {
-        MDC.put("event", "RACE_DELETED");
-        MDC.put("raceId", raceId.toString());
-        MDC.put("userRole", userRole);
-
-        log.info("Race deleted: {} by user with role {}", raceId, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "RACE_DELETED",
+                "Race deleted: {} by user with role {}",
+                "raceId", raceId, "userRole", userRole);
     }
 
     public void logEventPublished(String eventType, UUID entityId) {
-        MDC.put("event", "EVENT_PUBLISHED");
-        MDC.put("eventType", eventType);
-        MDC.put("entityId", entityId.toString());
-
-        log.info("Event published: {} for entity {}", eventType, entityId);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "EVENT_PUBLISHED",
+                "Event published: {} for entity {}",
+                "eventType", eventType, "entityId", entityId);
     }
 
     public void logError(String operation, Exception error, UUID entityId) {
-        MDC.put("event", "ERROR");
-        MDC.put("operation", operation);
-        if (entityId != null) {
-            MDC.put("entityId", entityId.toString());
-        }
-
-        log.error("Error during {}: {}", operation, error.getMessage(), error);
-        MDC.clear();
+        pipeline.error(LoggingService.class, "ERROR",
+                "Error during {}: {}", error,
+                "operation", operation, "errorMessage", error.getMessage(), "entityId", entityId);
     }
 
-    public void logApiCall(String method, String endpoint, String userRole, long duration) {
-        MDC.put("event", "API_CALL");
-        MDC.put("httpMethod", method);
-        MDC.put("endpoint", endpoint);
-        MDC.put("userRole", userRole);
-        MDC.put("duration", String.valueOf(duration));
-
-        log.info("API call: {} {} executed in {}ms by user with role {}",
-                method, endpoint, duration, userRole);
-        MDC.clear();
-    }
     public void logApplicationCreated(UUID applicationId, String applicantName, UUID raceId, String userRole) {
-        MDC.put("event", "APPLICATION_CREATED");
-        MDC.put("applicationId", applicationId.toString());
-        MDC.put("applicantName", applicantName);
-        MDC.put("raceId", raceId.toString());
-        MDC.put("userRole", userRole);
-
-        log.info("Application created successfully: {} for race {} by user with role {}",
-                applicantName, raceId, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "APPLICATION_CREATED",
+                "Application created successfully: {} {} for race {} by user with role {}",
+                "applicantName", applicantName, "applicationId", applicationId,
+                "raceId", raceId, "userRole", userRole);
     }
 
     public void logApplicationDeleted(UUID applicationId, String userRole) {
-        MDC.put("event", "APPLICATION_DELETED");
-        MDC.put("applicationId", applicationId.toString());
-        MDC.put("userRole", userRole);
-
-        log.info("Application deleted: {} by user with role {}", applicationId, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "APPLICATION_DELETED",
+                "Application deleted: {} by user with role {}",
+                "applicationId", applicationId, "userRole", userRole);
     }
 
     public void logApplicationAccessDenied(UUID applicationId, String userRole, String reason) {
-        MDC.put("event", "APPLICATION_ACCESS_DENIED");
-        MDC.put("applicationId", applicationId.toString());
-        MDC.put("userRole", userRole);
-        MDC.put("reason", reason);
-
-        log.warn("Access denied to application {}: {} for user with role {}",
-                applicationId, reason, userRole);
-        MDC.clear();
+        pipeline.warn(LoggingService.class, "APPLICATION_ACCESS_DENIED",
+                "Access denied to application {}: {} for user with role {}",
+                "applicationId", applicationId, "reason", reason, "userRole", userRole);
     }
-}
\ No newline at end of file
+}
@@ -4,13 +4,18 @@ import com.trail.command.entity.Application;
 import com.trail.command.entity.Race;
 import com.trail.command.event.ApplicationCreatedEvent;
 import com.trail.command.event.RaceCreatedEvent;
+import com.trail.command.event.RaceDeletedEvent;
 import com.trail.command.event.RaceEventPublisher;
+import com.trail.command.id.IdGenerator;
 import com.trail.command.event.RaceUpdatedEvent;
 import com.trail.command.repository.ApplicationRepository;
 import com.trail.command.repository.RaceRepository;
+import com.trail.command.reservation.SlotReservationEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
@@ -19,24 +24,29 @@ public class RaceService {
     private final RaceRepository raceRepository;
     private final RaceEventPublisher publisher;
     private final ApplicationRepository applicationRepository;
+    private final IdGenerator idGenerator;
+    private final SlotReservationEngine slotReservations;
 
+    @Transactional
     public Race createRace(Race race) {
-        race.setId(UUID.randomUUID());
+        race.setId(idGenerator.nextId());
         Race saved = raceRepository.save(race);
 
         // Pošalji event
         RaceCreatedEvent event = new RaceCreatedEvent(
                 saved.getId(),
                 saved.getName(),
-                saved.getDistance()
+                saved.getDistance(),
+                saved.getCapacity()
         );
         publisher.publishRaceCreated(event);
 
         return saved;
     }
 
+    @Transactional
     public Application create(Application app) {
-        app.setId(UUID.randomUUID());
+        app.setId(idGenerator.nextId());
         Application saved = applicationRepository.save(app);
 
         ApplicationCreatedEvent event = new ApplicationCreatedEvent(
@@ -52,24 +62,37 @@ public class RaceService {
     }
 
 
+    @Transactional
     public Race updateRace(UUID id, Race updated) {
         Race existing = raceRepository.findById(id).orElseThrow();
+        boolean capacityChanged = !Objects.equals(existing.getCapacity(), updated.getCapacity());
         existing.setName(updated.getName());
         existing.setDistance(updated.getDistance());
+        existing.setCapacity(updated.getCapacity());
         Race saved = raceRepository.save(existing);
+        if (capacityChanged) {
+            raceRepository.recountReservedSlots(id);
+            slotReservations.forgetAfterCommit(id);
+        }
 
         RaceUpdatedEvent event = new RaceUpdatedEvent(
                 saved.getId(),
                 saved.getName(),
-                saved.getDistance()
+                saved.getDistance(),
+                saved.getCapacity()
         );
         publisher.publishRaceUpdated(event);
 
         return saved;
     }
 
+    @Transactional
     public void deleteRace(UUID id) {
         raceRepository.deleteById(id);
+        slotReservations.forgetAfterCommit(id);
+
+        RaceDeletedEvent event = new RaceDeletedEvent(id);
+        publisher.publishRaceDeleted(event);
     }
 
 }
\ No newline at end of file
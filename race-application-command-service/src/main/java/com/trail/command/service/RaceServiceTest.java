@@ -32,8 +32,8 @@ class RaceServiceTest {
     @Test
     void shouldCreateRaceSuccessfully() {
         // Given
-        RaceCreatedEvent request = new RaceCreatedEvent(UUID.randomUUID(),"Zagreb Marathon", Distance.Marathon);
-        Race requestPrepresentations=new Race(request.getId(),request.getName(),request.getDistance());
+        RaceCreatedEvent request = new RaceCreatedEvent(UUID.randomUUID(),"Zagreb Marathon", Distance.Marathon, 500);
+        Race requestPrepresentations=new Race(request.getId(),request.getName(),request.getDistance(),request.getCapacity(),0);
         Race savedRace = new Race();
         savedRace.setId(UUID.randomUUID());
         savedRace.setName("Zagreb Marathon");
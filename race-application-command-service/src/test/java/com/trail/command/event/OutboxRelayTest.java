@@ -0,0 +1,108 @@
+package com.trail.command.event;
+
+import com.trail.command.entity.OutboxEvent;
+import com.trail.command.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    private OutboxEventRepository repository;
+    private RabbitTemplate rabbitTemplate;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OutboxEventRepository.class);
+        rabbitTemplate = mock(RabbitTemplate.class);
+        relay = new OutboxRelay(repository, rabbitTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(relay, "exchange", "race.exchange");
+        ReflectionTestUtils.setField(relay, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(relay, "confirmTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(relay, "retryBackoffMs", 1000L);
+        when(repository.lockNextBatch(any(), anyInt())).thenReturn(batch());
+    }
+
+    @Test
+    void shouldStopAfterOneBatchWhileTheBrokerNacks() {
+        confirmAll(false);
+
+        relay.relay();
+
+        verify(repository, times(1)).lockNextBatch(any(), anyInt());
+        verify(repository).incrementAttempts(eq(List.of(1L, 2L, 3L)), any(Instant.class));
+        verify(repository, never()).deleteAllByIdInBatch(anyCollection());
+    }
+
+    @Test
+    void shouldClaimTheBatchBeforeSendingAndDeleteConfirmedRows() {
+        confirmAll(true);
+        when(repository.lockNextBatch(any(), anyInt())).thenReturn(batch()).thenReturn(List.of());
+
+        relay.relay();
+
+        verify(repository).claim(eq(List.of(1L, 2L, 3L)), any(Instant.class));
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(repository, times(2)).lockNextBatch(any(), anyInt());
+    }
+
+    @Test
+    void shouldReportOnlyConfirmedEvents() {
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            boolean ack = !correlation.getId().equals("2");
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        assertThat(relay.relayBatch()).isEqualTo(2);
+        verify(repository).incrementAttempts(eq(List.of(2L)), any(Instant.class));
+    }
+
+    private void confirmAll(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static List<OutboxEvent> batch() {
+        return LongStream.rangeClosed(1, BATCH_SIZE).mapToObj(id -> {
+            OutboxEvent event = new OutboxEvent();
+            event.setId(id);
+            event.setAggregateId(UUID.randomUUID());
+            event.setRoutingKey("p0.race.created");
+            event.setEventType(RaceCreatedEvent.class.getName());
+            event.setPayload("{}");
+            event.setCreatedAt(Instant.now());
+            return event;
+        }).toList();
+    }
+}
@@ -0,0 +1,85 @@
+package com.trail.command.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void shouldSetVersionVariantAndTimestamp() {
+        Instant now = Instant.parse("2025-03-01T10:15:30.123Z");
+        UuidV7Generator generator = new UuidV7Generator(Clock.fixed(now, ZoneOffset.UTC));
+
+        UUID id = generator.nextId();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(UuidV7Generator.timestampOf(id)).isEqualTo(now.toEpochMilli());
+    }
+
+    @Test
+    void shouldStayMonotonicWithinTheSameMillisecond() {
+        Instant now = Instant.parse("2025-03-01T10:15:30.123Z");
+        UuidV7Generator generator = new UuidV7Generator(Clock.fixed(now, ZoneOffset.UTC));
+
+        UUID previous = generator.nextId();
+        // More ids than the 12-bit sequence holds, forcing a borrow from the next millisecond
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = generator.nextId();
+            assertThat(compareUnsigned(next, previous)).isPositive();
+            previous = next;
+        }
+    }
+
+    @Test
+    void shouldGenerateUniqueIncreasingIdsAcrossThreads() throws Exception {
+        UuidV7Generator generator = new UuidV7Generator();
+        int threads = 8;
+        int perThread = 50_000;
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                UUID previous = generator.nextId();
+                seen.add(previous);
+                boolean ordered = true;
+                for (int i = 1; i < perThread; i++) {
+                    UUID next = generator.nextId();
+                    ordered &= compareUnsigned(next, previous) > 0;
+                    seen.add(next);
+                    previous = next;
+                }
+                return ordered;
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertThat(result.get()).isTrue();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(seen).hasSize(threads * perThread);
+    }
+
+    // UUID.compareTo uses signed longs; Postgres orders uuid values as unsigned bytes
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
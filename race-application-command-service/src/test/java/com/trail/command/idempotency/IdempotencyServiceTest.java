@@ -0,0 +1,130 @@
+package com.trail.command.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.command.exception.IdempotencyKeyReusedException;
+import com.trail.command.exception.IdempotentRequestInProgressException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final Authentication user = new TestingAuthenticationToken("ana", null);
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    private IdempotencyRecordRepository repository;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.claim(anyString(), anyString(), any(), any())).thenReturn(1);
+        service = new IdempotencyService(repository, new ObjectMapper(), Clock.systemUTC(), Duration.ofHours(1), 100);
+    }
+
+    @Test
+    void shouldReplayFromCacheWithoutRunningActionAgain() {
+        ResponseEntity<?> first = create("key-1", Map.of("name", "Ultra"));
+        ResponseEntity<?> retry = create("key-1", Map.of("name", "Ultra"));
+
+        assertThat(invocations.get()).isEqualTo(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getBody()).isEqualTo("{\"id\":1}");
+        assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        verify(repository, times(1)).claim(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void shouldReplayStoredResponseWhenAnotherInstanceOwnsTheKey() {
+        when(repository.claim(anyString(), anyString(), any(), any())).thenReturn(0);
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRequestHash(hashOf(Map.of("name", "Ultra")));
+        record.setResponseStatus(201);
+        record.setResponseBody("{\"id\":7}");
+        when(repository.findById(anyString())).thenReturn(Optional.of(record));
+
+        ResponseEntity<?> retry = create("key-1", Map.of("name", "Ultra"));
+
+        assertThat(invocations.get()).isZero();
+        assertThat(retry.getBody()).isEqualTo("{\"id\":7}");
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        create("key-1", Map.of("name", "Ultra"));
+
+        assertThatThrownBy(() -> create("key-1", Map.of("name", "Sprint")))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(invocations.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReportRequestStillInProgress() {
+        when(repository.claim(anyString(), anyString(), any(), any())).thenReturn(0);
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setRequestHash(hashOf(Map.of("name", "Ultra")));
+        when(repository.findById(anyString())).thenReturn(Optional.of(claim));
+
+        assertThatThrownBy(() -> create("key-1", Map.of("name", "Ultra")))
+                .isInstanceOf(IdempotentRequestInProgressException.class);
+    }
+
+    @Test
+    void shouldReleaseClaimWhenActionFails() {
+        assertThatThrownBy(() -> service.execute("POST /api/races", user, "key-1", Map.of(), HttpStatus.CREATED,
+                () -> {
+                    throw new IllegalStateException("boom");
+                }))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(repository).release(anyString());
+        verify(repository, never()).complete(anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    void shouldRunActionEveryTimeWithoutKey() {
+        create(null, Map.of("name", "Ultra"));
+        create(null, Map.of("name", "Ultra"));
+
+        assertThat(invocations.get()).isEqualTo(2);
+        verify(repository, never()).claim(anyString(), anyString(), any(), any());
+    }
+
+    private ResponseEntity<?> create(String key, Object request) {
+        return service.execute("POST /api/races", user, key, request, HttpStatus.CREATED,
+                () -> Map.of("id", invocations.incrementAndGet()));
+    }
+
+    private static String hashOf(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(new ObjectMapper().writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
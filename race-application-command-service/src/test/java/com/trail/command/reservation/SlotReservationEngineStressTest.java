@@ -0,0 +1,246 @@
+package com.trail.command.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotReservationEngineStressTest {
+
+    private static final UUID RACE_ID = UUID.randomUUID();
+    private static final int REGISTRATIONS = 40_000;
+    private static final int THREADS = 64;
+
+    @Test
+    void shouldAdmitExactlyCapacityUnderParallelRegistrations() throws Exception {
+        InMemoryLedger ledger = new InMemoryLedger(1_000);
+        SlotReservationEngine engine = new SlotReservationEngine(ledger, 32, 8, 60_000);
+
+        AtomicInteger admitted = register(List.of(engine));
+
+        assertThat(admitted.get()).isEqualTo(1_000);
+        assertThat(ledger.reserved.get()).isEqualTo(1_000);
+        assertThat(engine.unusedPermits(RACE_ID)).isZero();
+    }
+
+    @Test
+    void shouldNeverOversellAcrossSeveralInstances() throws Exception {
+        InMemoryLedger ledger = new InMemoryLedger(2_500);
+        List<SlotReservationEngine> instances = IntStream.range(0, 4)
+                .mapToObj(i -> new SlotReservationEngine(ledger, 32, 8, 60_000))
+                .toList();
+
+        AtomicInteger admitted = register(instances);
+
+        int unused = instances.stream().mapToInt(engine -> engine.unusedPermits(RACE_ID)).sum();
+        assertThat(admitted.get()).isLessThanOrEqualTo(2_500);
+        assertThat(ledger.reserved.get()).isLessThanOrEqualTo(2_500);
+        assertThat(admitted.get() + unused).isEqualTo(ledger.reserved.get());
+
+        instances.forEach(SlotReservationEngine::releaseAll);
+        assertThat(ledger.reserved.get()).isEqualTo(admitted.get());
+    }
+
+    @Test
+    void shouldReuseReleasedSlots() throws Exception {
+        InMemoryLedger ledger = new InMemoryLedger(500);
+        SlotReservationEngine engine = new SlotReservationEngine(ledger, 16, 8, 60_000);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger holding = new AtomicInteger();
+        AtomicInteger maxHolding = new AtomicInteger();
+
+        CountDownLatch done = new CountDownLatch(REGISTRATIONS);
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            executor.execute(() -> {
+                try {
+                    if (engine.reserve(RACE_ID) == SlotReservationEngine.Reservation.ADMITTED) {
+                        maxHolding.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                        // Cancel the registration again
+                        holding.decrementAndGet();
+                        engine.release(RACE_ID);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(maxHolding.get()).isLessThanOrEqualTo(500);
+        assertThat(ledger.reserved.get()).isLessThanOrEqualTo(500);
+        assertThat(engine.unusedPermits(RACE_ID)).isEqualTo(ledger.reserved.get());
+        engine.releaseAll();
+        assertThat(ledger.reserved.get()).isZero();
+    }
+
+    @Test
+    void shouldNotLeakSlotsReleasedWhileTheCachedStateIsDropped() throws Exception {
+        InMemoryLedger ledger = new InMemoryLedger(SlotLedger.UNLIMITED);
+        // Expires on every call, so deposits keep racing with drains
+        SlotReservationEngine engine = new SlotReservationEngine(ledger, 4, 8, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+
+        CountDownLatch done = new CountDownLatch(REGISTRATIONS);
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            boolean cancel = i % 2 == 0;
+            boolean forget = i % 97 == 0;
+            executor.execute(() -> {
+                try {
+                    if (forget) {
+                        engine.forget(RACE_ID);
+                    }
+                    if (engine.reserve(RACE_ID) == SlotReservationEngine.Reservation.ADMITTED) {
+                        admitted.incrementAndGet();
+                        if (cancel) {
+                            engine.release(RACE_ID);
+                            released.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        engine.releaseAll();
+        assertThat(ledger.reserved.get()).isEqualTo(admitted.get() - released.get());
+    }
+
+    @Test
+    void shouldCountUncappedRacesInTheLedger() {
+        InMemoryLedger ledger = new InMemoryLedger(SlotLedger.UNLIMITED);
+        SlotReservationEngine engine = new SlotReservationEngine(ledger, 32, 8, 60_000);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(engine.reserve(RACE_ID)).isEqualTo(SlotReservationEngine.Reservation.ADMITTED);
+        }
+        assertThat(ledger.reserved.get()).isEqualTo(10_000 + engine.unusedPermits(RACE_ID));
+
+        engine.release(RACE_ID);
+        engine.releaseAll();
+        assertThat(ledger.reserved.get()).isEqualTo(9_999);
+    }
+
+    @Test
+    void shouldNotOversellWhenAnUncappedRaceGetsACapacity() throws Exception {
+        InMemoryLedger ledger = new InMemoryLedger(SlotLedger.UNLIMITED);
+        List<SlotReservationEngine> instances = IntStream.range(0, 4)
+                .mapToObj(i -> new SlotReservationEngine(ledger, 32, 8, 60_000))
+                .toList();
+        for (int i = 0; i < 1_000; i++) {
+            instances.get(i % instances.size()).reserve(RACE_ID);
+        }
+
+        // Only the instance that handled the update forgets its state
+        ledger.capacity = 1_500;
+        instances.get(0).forget(RACE_ID);
+        AtomicInteger admitted = register(instances);
+
+        assertThat(1_000 + admitted.get()).isLessThanOrEqualTo(1_500);
+        assertThat(ledger.reserved.get()).isLessThanOrEqualTo(1_500);
+    }
+
+    @Test
+    void shouldHonourALowerCapacityOnceTheCachedStateExpires() throws Exception {
+        InMemoryLedger ledger = new InMemoryLedger(1_000);
+        SlotReservationEngine engine = new SlotReservationEngine(ledger, 32, 8, 0);
+        for (int i = 0; i < 100; i++) {
+            engine.reserve(RACE_ID);
+        }
+
+        // Lowered on another instance; this one never hears about it
+        ledger.capacity = 100;
+        Thread.sleep(1);
+
+        assertThat(engine.reserve(RACE_ID)).isEqualTo(SlotReservationEngine.Reservation.FULL);
+        assertThat(ledger.reserved.get()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldReportUnknownRace() {
+        SlotReservationEngine engine = new SlotReservationEngine(new InMemoryLedger(10), 32, 8, 60_000);
+
+        assertThat(engine.reserve(UUID.randomUUID())).isEqualTo(SlotReservationEngine.Reservation.UNKNOWN_RACE);
+    }
+
+    private AtomicInteger register(List<SlotReservationEngine> instances) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(REGISTRATIONS);
+        AtomicInteger admitted = new AtomicInteger();
+
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            SlotReservationEngine engine = instances.get(i % instances.size());
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    if (engine.reserve(RACE_ID) == SlotReservationEngine.Reservation.ADMITTED) {
+                        admitted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        return admitted;
+    }
+
+    /**
+     * Mirrors the conditional update in RaceRepository.claimSlots with a CAS.
+     */
+    private static final class InMemoryLedger implements SlotLedger {
+        private volatile int capacity;
+        private final AtomicInteger reserved = new AtomicInteger();
+
+        InMemoryLedger(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public OptionalInt capacity(UUID raceId) {
+            return RACE_ID.equals(raceId) ? OptionalInt.of(capacity) : OptionalInt.empty();
+        }
+
+        @Override
+        public int lease(UUID raceId, int slots) {
+            if (capacity == UNLIMITED) {
+                reserved.addAndGet(slots);
+                return slots;
+            }
+            for (int wanted = slots; wanted > 0; wanted /= 2) {
+                int current = reserved.get();
+                while (capacity - current >= wanted) {
+                    if (reserved.compareAndSet(current, current + wanted)) {
+                        return wanted;
+                    }
+                    current = reserved.get();
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public void release(UUID raceId, int slots) {
+            reserved.addAndGet(-slots);
+        }
+    }
+}
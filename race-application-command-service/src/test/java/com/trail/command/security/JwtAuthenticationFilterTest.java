@@ -0,0 +1,82 @@
+package com.trail.command.security;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET =
+            "58cb2d122cb82a7fd1e3d03c1425fd2bf4a4c8679c5229b4621b01f80cde031ec36ffb4bc5e08bc33554e7d88eabbe0bd30c4d48";
+
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(SECRET, 100, 300);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldAuthenticateRepeatedTokenFromCache() throws Exception {
+        String token = token(SECRET, Instant.now().plus(Duration.ofHours(1)));
+        JwtParser parser = spy((JwtParser) ReflectionTestUtils.getField(filter, "parser"));
+        ReflectionTestUtils.setField(filter, "parser", parser);
+
+        for (int i = 0; i < 2; i++) {
+            SecurityContextHolder.clearContext();
+            authenticate(token);
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            assertThat(authentication.getName()).isEqualTo("ana");
+            assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_APPLICANT");
+        }
+        // Only the first request checked the signature
+        verify(parser).parseClaimsJws(token);
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithAnotherKey() throws Exception {
+        authenticate(token(SECRET.replace('5', '6'), Instant.now().plus(Duration.ofHours(1))));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void shouldRejectExpiredToken() throws Exception {
+        authenticate(token(SECRET, Instant.now().minus(Duration.ofMinutes(1))));
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private void authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/races");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private static String token(String secret, Instant expiresAt) {
+        return Jwts.builder()
+                .setSubject("ana")
+                .claim("role", "APPLICANT")
+                .setExpiration(Date.from(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,111 @@
+package com.trail.command.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.command.dto.ApplicationImportResult;
+import com.trail.command.entity.Race;
+import com.trail.command.event.RaceEventPublisher;
+import com.trail.command.id.IdGenerator;
+import com.trail.command.repository.RaceRepository;
+import com.trail.command.reservation.SlotReservationEngine;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApplicationImportServiceTest {
+
+    private static final UUID RACE_ID = UUID.randomUUID();
+
+    private SlotReservationEngine slotReservations;
+    private ApplicationImportService service;
+
+    @BeforeEach
+    void setUp() {
+        RaceRepository raceRepository = mock(RaceRepository.class);
+        Race race = new Race();
+        race.setId(RACE_ID);
+        when(raceRepository.findById(RACE_ID)).thenReturn(Optional.of(race));
+        IdGenerator idGenerator = mock(IdGenerator.class);
+        when(idGenerator.nextId()).thenAnswer(invocation -> UUID.randomUUID());
+        slotReservations = mock(SlotReservationEngine.class);
+        when(slotReservations.reserve(any())).thenReturn(SlotReservationEngine.Reservation.ADMITTED);
+
+        service = new ApplicationImportService(raceRepository, mock(RaceEventPublisher.class), idGenerator,
+                slotReservations, mock(JdbcTemplate.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "chunkSize", 500);
+        ReflectionTestUtils.setField(service, "maxReportedErrors", 100);
+        ReflectionTestUtils.setField(service, "maxLineLength", 200);
+    }
+
+    @Test
+    void shouldReleaseReservationsOfThePendingChunkWhenTheUploadFails() {
+        InputStream input = new SequenceInputStream(ndjson(row("Ana") + "\n" + row("Ivo") + "\n"), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThatThrownBy(() -> service.importNdjson(input)).isInstanceOf(IOException.class);
+
+        verify(slotReservations, times(2)).reserve(RACE_ID);
+        verify(slotReservations, times(2)).release(RACE_ID);
+    }
+
+    @Test
+    void shouldRejectLinesOverTheLengthLimitAndKeepGoing() throws IOException {
+        String longLine = "{\"firstName\":\"" + "x".repeat(1_000) + "\"}";
+
+        ApplicationImportResult result = service.importNdjson(ndjson(longLine + "\n" + row("Ana") + "\n"));
+
+        assertThat(result.getTotalRows()).isEqualTo(2);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement()
+                .satisfies(error -> {
+                    assertThat(error.line()).isEqualTo(1);
+                    assertThat(error.message()).contains("longer than 200");
+                });
+        verify(slotReservations, never()).release(any());
+    }
+
+    @Test
+    void shouldRejectLinesThatAreNotObjectsAndKeepGoing() throws IOException {
+        ApplicationImportResult result = service.importNdjson(ndjson("null\n42\n[]\n\"Ana\"\n" + row("Ana") + "\n"));
+
+        assertThat(result.getTotalRows()).isEqualTo(5);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(ApplicationImportResult.RowError::line).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(result.getErrors()).extracting(ApplicationImportResult.RowError::message)
+                .containsOnly("Expected a JSON object");
+    }
+
+    private static String row(String firstName) {
+        return "{\"raceId\":\"" + RACE_ID + "\",\"firstName\":\"" + firstName + "\",\"lastName\":\"Horvat\"}";
+    }
+
+    private static InputStream ndjson(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
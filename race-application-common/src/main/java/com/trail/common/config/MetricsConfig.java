@@ -0,0 +1,47 @@
+package com.trail.common.config;
+
+import com.trail.common.monitoring.ApiPerformanceInterceptor;
+import com.trail.common.monitoring.SlowRepositoryCallListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Latency histograms and SLO buckets for HTTP endpoints, repository methods
+ * and RabbitMQ listeners are configured under {@code management.metrics} in
+ * application.yml; this wires the matching slow-call logging.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Static and lazy: post-processors are created before the beans the listener depends on
+    @Bean
+    public static BeanPostProcessor slowRepositoryCallListenerRegistrar(ObjectProvider<SlowRepositoryCallListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(
+                            factory -> factory.addInvocationListener(listener.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer apiPerformanceConfigurer(ApiPerformanceInterceptor interceptor,
+                                                     @Value("${monitoring.api-performance.excluded-paths:}") String[] excludedPaths) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/**").excludePathPatterns(excludedPaths);
+            }
+        };
+    }
+}
@@ -0,0 +1,250 @@
+package com.trail.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.logstash.logback.argument.StructuredArguments;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves structured event logging off the request thread.
+ *
+ * <p>Callers hand over a {@link LogEvent} that is queued in a bounded buffer;
+ * a single writer thread drains it in batches and appends each event to
+ * logback with its fields as logstash structured arguments. Once the buffer
+ * is more than {@code logging.pipeline.sample-threshold} full only every
+ * n-th INFO/DEBUG event is kept, and when it is full they are dropped.
+ * WARN and ERROR events are never dropped: if they cannot be queued they are
+ * written synchronously on the caller's thread.
+ */
+@Component
+public class EventLogPipeline implements SmartLifecycle, MeterBinder {
+
+    private static final String FQCN = EventLogPipeline.class.getName();
+
+    private final BlockingQueue<LogEvent> queue;
+    private final int capacity;
+    private final int sampleAbove;
+    private final int sampleRate;
+    private final int batchSize;
+
+    // Tracks the queue without taking its lock on every publish
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong droppedFull = new AtomicLong();
+    private final AtomicLong droppedSampled = new AtomicLong();
+    private final AtomicLong writtenSynchronously = new AtomicLong();
+
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public EventLogPipeline(@Value("${logging.pipeline.capacity:8192}") int capacity,
+                            @Value("${logging.pipeline.sample-threshold:0.75}") double sampleThreshold,
+                            @Value("${logging.pipeline.sample-rate:10}") int sampleRate,
+                            @Value("${logging.pipeline.batch-size:256}") int batchSize) {
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sampleAbove = (int) (capacity * sampleThreshold);
+        this.sampleRate = Math.max(1, sampleRate);
+        this.batchSize = batchSize;
+    }
+
+    public void info(Class<?> source, String type, String message, Object... fields) {
+        publish(source, Level.INFO, type, message, null, fields);
+    }
+
+    public void warn(Class<?> source, String type, String message, Object... fields) {
+        publish(source, Level.WARN, type, message, null, fields);
+    }
+
+    public void error(Class<?> source, String type, String message, Throwable error, Object... fields) {
+        publish(source, Level.ERROR, type, message, error, fields);
+    }
+
+    /**
+     * Queues an event. {@code message} is a logback pattern whose {@code {}}
+     * placeholders are filled with the fields in order, rendered as
+     * {@code name=value}; every field also becomes a JSON attribute.
+     */
+    public void publish(Class<?> source, Level level, String type, String message, Throwable error, Object... fields) {
+        Logger logger = (Logger) LoggerFactory.getLogger(source);
+        if (!logger.isEnabledFor(level)) {
+            return;
+        }
+        LogEvent event = new LogEvent(logger, level, type, message, fields, error,
+                Instant.now(), Thread.currentThread().getName(), MDC.getCopyOfContextMap());
+
+        boolean important = level.isGreaterOrEqual(Level.WARN);
+        if (!running) {
+            append(event);
+            writtenSynchronously.incrementAndGet();
+            return;
+        }
+        if (!important && pending.get() >= sampleAbove
+                && sampleCounter.incrementAndGet() % sampleRate != 0) {
+            droppedSampled.incrementAndGet();
+            return;
+        }
+        // Counted before it can be taken, so the writer never takes it below zero
+        pending.incrementAndGet();
+        if (!queue.offer(event)) {
+            pending.decrementAndGet();
+            if (important) {
+                append(event);
+                writtenSynchronously.incrementAndGet();
+            } else {
+                droppedFull.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            current = writer;
+            writer = null;
+        }
+        if (current == null) {
+            return;
+        }
+        current.interrupt();
+        try {
+            current.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything queued after the writer exited
+        flush(new ArrayList<>());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after everything that still logs while shutting down
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE + 1000;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("logging.pipeline.queue.depth", pending, AtomicInteger::get)
+                .description("Structured log events waiting for the writer")
+                .register(registry);
+        Gauge.builder("logging.pipeline.queue.capacity", () -> capacity)
+                .register(registry);
+        FunctionCounter.builder("logging.pipeline.events.written", written, AtomicLong::get)
+                .tag("mode", "async")
+                .register(registry);
+        FunctionCounter.builder("logging.pipeline.events.written", writtenSynchronously, AtomicLong::get)
+                .tag("mode", "sync")
+                .register(registry);
+        FunctionCounter.builder("logging.pipeline.events.dropped", droppedFull, AtomicLong::get)
+                .tag("reason", "full")
+                .register(registry);
+        FunctionCounter.builder("logging.pipeline.events.dropped", droppedSampled, AtomicLong::get)
+                .tag("reason", "sampled")
+                .register(registry);
+    }
+
+    int queueDepth() {
+        return pending.get();
+    }
+
+    long dropped() {
+        return droppedFull.get() + droppedSampled.get();
+    }
+
+    long writtenSynchronously() {
+        return writtenSynchronously.get();
+    }
+
+    private void drain() {
+        List<LogEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                LogEvent first = queue.take();
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                pending.addAndGet(-batch.size());
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<LogEvent> batch) {
+        writeBatch(batch);
+        int drained;
+        while ((drained = queue.drainTo(batch, batchSize)) > 0) {
+            pending.addAndGet(-drained);
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<LogEvent> batch) {
+        for (LogEvent event : batch) {
+            try {
+                append(event);
+                written.incrementAndGet();
+            } catch (RuntimeException e) {
+                // A broken appender must not kill the writer
+                droppedFull.incrementAndGet();
+            }
+        }
+        batch.clear();
+    }
+
+    private static void append(LogEvent event) {
+        Object[] fields = event.fields() == null ? new Object[0] : event.fields();
+        Object[] arguments = new Object[fields.length / 2 + 1];
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            arguments[i / 2] = StructuredArguments.keyValue((String) fields[i], fields[i + 1]);
+        }
+        // Not referenced by the message, so it only shows up as a JSON field
+        arguments[arguments.length - 1] = StructuredArguments.keyValue("event", event.type());
+
+        LoggingEvent loggingEvent = new LoggingEvent(FQCN, event.logger(), event.level(),
+                event.message(), event.error(), arguments);
+        loggingEvent.setInstant(event.timestamp());
+        loggingEvent.setThreadName(event.threadName());
+        loggingEvent.setMDCPropertyMap(event.mdc() != null ? event.mdc() : Map.of());
+        event.logger().callAppenders(loggingEvent);
+    }
+}
@@ -0,0 +1,25 @@
+package com.trail.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One structured log event waiting in the {@link EventLogPipeline}. Captures
+ * what must be read on the calling thread (time, thread, MDC); the message is
+ * only formatted by the writer.
+ *
+ * @param fields alternating field names and values
+ */
+record LogEvent(Logger logger,
+                Level level,
+                String type,
+                String message,
+                Object[] fields,
+                Throwable error,
+                Instant timestamp,
+                String threadName,
+                Map<String, String> mdc) {
+}
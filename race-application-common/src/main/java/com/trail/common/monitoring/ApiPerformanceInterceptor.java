@@ -0,0 +1,43 @@
+package com.trail.common.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Logs one API_CALL event per request. Latency percentiles come from the
+ * {@code http.server.requests} timer; this only feeds the event log.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApiPerformanceInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = ApiPerformanceInterceptor.class.getName() + ".start";
+
+    private final PerformanceLogger performanceLogger;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Runs again on the ASYNC dispatch of a streamed response; keep the start of the request
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        long durationMs = (System.nanoTime() - (Long) start) / 1_000_000;
+        // The mapping pattern, not the raw URI, so ids do not end up in the endpoint field
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern != null ? pattern.toString() : request.getRequestURI();
+        performanceLogger.logApiPerformance(endpoint, request.getMethod(), durationMs, response.getStatus());
+    }
+}
@@ -0,0 +1,33 @@
+package com.trail.common.monitoring;
+
+import com.trail.common.logging.EventLogPipeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * API_CALL and SLOW_QUERY events, written the same way by both services.
+ */
+@Component
+@RequiredArgsConstructor
+public class PerformanceLogger {
+
+    private final EventLogPipeline pipeline;
+
+    public void logApiPerformance(String endpoint, String method, long durationMs, int statusCode) {
+        if (durationMs > 1000) {
+            pipeline.warn(PerformanceLogger.class, "API_CALL",
+                    "Slow API call: {} {} - {}ms - status:{}",
+                    "httpMethod", method, "endpoint", endpoint, "durationMs", durationMs, "statusCode", statusCode);
+        } else {
+            pipeline.info(PerformanceLogger.class, "API_CALL",
+                    "API call: {} {} - {}ms - status:{}",
+                    "httpMethod", method, "endpoint", endpoint, "durationMs", durationMs, "statusCode", statusCode);
+        }
+    }
+
+    public void logSlowQuery(String query, long durationMs) {
+        pipeline.warn(PerformanceLogger.class, "SLOW_QUERY",
+                "Slow database query detected: {}ms, {}",
+                "queryDurationMs", durationMs, "query", query);
+    }
+}
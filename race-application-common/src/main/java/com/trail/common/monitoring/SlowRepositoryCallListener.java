@@ -0,0 +1,34 @@
+package com.trail.common.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports repository calls slower than {@code monitoring.slow-query-threshold-ms}
+ * as SLOW_QUERY events. Registered on every repository factory by
+ * {@link com.trail.common.config.MetricsConfig}, next to the invocation timer.
+ */
+@Component
+public class SlowRepositoryCallListener implements RepositoryMethodInvocationListener {
+
+    private final PerformanceLogger performanceLogger;
+    private final long thresholdMs;
+
+    public SlowRepositoryCallListener(PerformanceLogger performanceLogger,
+                                      @Value("${monitoring.slow-query-threshold-ms:200}") long thresholdMs) {
+        this.performanceLogger = performanceLogger;
+        this.thresholdMs = thresholdMs;
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        long durationMs = invocation.getDuration(TimeUnit.MILLISECONDS);
+        if (durationMs >= thresholdMs) {
+            performanceLogger.logSlowQuery(invocation.getRepositoryInterface().getSimpleName() + "."
+                    + invocation.getMethod().getName(), durationMs);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.trail.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class EventLogPipelineTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(EventLogPipelineTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        MDC.clear();
+    }
+
+    @Test
+    void shouldWriteEventsOnWriterThreadWithCallerContext() {
+        EventLogPipeline pipeline = new EventLogPipeline(16, 0.75, 10, 8);
+        pipeline.start();
+        UUID raceId = UUID.randomUUID();
+        MDC.put("requestId", "req-1");
+
+        pipeline.info(EventLogPipelineTest.class, "RACE_CREATED", "Race created: {}", "raceId", raceId);
+
+        await().until(() -> appender.list.size() == 1);
+        pipeline.stop();
+        ILoggingEvent event = appender.list.get(0);
+        assertThat(event.getFormattedMessage()).isEqualTo("Race created: raceId=" + raceId);
+        assertThat(event.getThreadName()).isEqualTo(Thread.currentThread().getName());
+        assertThat(event.getMDCPropertyMap()).containsEntry("requestId", "req-1");
+        assertThat(event.getArgumentArray()).hasSize(2);
+    }
+
+    @Test
+    void shouldSampleAndDropInfoButKeepErrorsWhenFull() throws InterruptedException {
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Simulates a stalled disk: the writer hangs on its first event and the queue fills up
+        UnsynchronizedAppenderBase<ILoggingEvent> slowAppender = new UnsynchronizedAppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                if (Thread.currentThread().getName().equals("event-log-writer") && writerBlocked.getCount() > 0) {
+                    writerBlocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        slowAppender.start();
+        logger.addAppender(slowAppender);
+
+        EventLogPipeline pipeline = new EventLogPipeline(10, 0.5, 5, 1);
+        pipeline.start();
+        try {
+            pipeline.info(EventLogPipelineTest.class, "API_CALL", "call {}", "n", 0);
+            assertThat(writerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            for (int i = 1; i < 100; i++) {
+                pipeline.info(EventLogPipelineTest.class, "API_CALL", "call {}", "n", i);
+            }
+            pipeline.error(EventLogPipelineTest.class, "ERROR", "failed", new IllegalStateException("boom"));
+
+            // 5 queued freely, 5 more kept by 1-in-5 sampling, the rest sampled out or rejected
+            assertThat(pipeline.queueDepth()).isEqualTo(10);
+            assertThat(pipeline.dropped()).isEqualTo(89);
+            assertThat(pipeline.writtenSynchronously()).isEqualTo(1);
+            // The event the writer is stuck on, then the error written on this thread
+            assertThat(appender.list).extracting(ILoggingEvent::getLevel).containsExactly(Level.INFO, Level.ERROR);
+        } finally {
+            release.countDown();
+            pipeline.stop();
+            logger.detachAppender(slowAppender);
+        }
+        assertThat(appender.list).hasSize(12);
+    }
+}
@@ -0,0 +1,33 @@
+package com.trail.common.monitoring;
+
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ApiPerformanceInterceptorTest {
+
+    private final PerformanceLogger performanceLogger = mock(PerformanceLogger.class);
+    private final ApiPerformanceInterceptor interceptor = new ApiPerformanceInterceptor(performanceLogger);
+
+    @Test
+    void shouldTimeAStreamedResponseFromTheFirstDispatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/applications/export");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, new Object());
+        Thread.sleep(50);
+
+        // The body is written after the handler returned, then the request is dispatched again
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        verify(performanceLogger).logApiPerformance(eq("/api/applications/export"), eq("GET"),
+                longThat(durationMs -> durationMs >= 50), eq(200));
+    }
+}
@@ -0,0 +1,123 @@
+package com.trail.query.catalog;
+
+import com.trail.query.entity.Race;
+import com.trail.query.repository.RaceRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Race lookups served from {@link RaceCatalog} against the same lookups
+ * through Hibernate, with a fresh session per call as a request would get.
+ * The races live in their own schema on a real Postgres instance:
+ *
+ * <pre>
+ * gradle jmh -PjmhIncludes=RaceCatalogBenchmark -PjmhJdbcUrl=jdbc:postgresql://localhost:5432/postgres
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RaceCatalogBenchmark {
+
+    private static final String SCHEMA = "race_catalog_bench";
+
+    @Param({"50", "1000"})
+    public int races;
+
+    private SessionFactory sessionFactory;
+    private RaceCatalog catalog;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("jmh.jdbc.url", "jdbc:postgresql://localhost:5432/postgres");
+        String user = System.getProperty("jmh.jdbc.user", "postgres");
+        String password = System.getProperty("jmh.jdbc.password", "postgres");
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        }
+
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Race.class)
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", user)
+                .setProperty("hibernate.connection.password", password)
+                .setProperty("hibernate.default_schema", SCHEMA)
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .buildSessionFactory();
+
+        ids = new UUID[races];
+        Race.Distance[] distances = Race.Distance.values();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < races; i++) {
+                ids[i] = UUID.randomUUID();
+                session.persist(new Race(ids[i], "Race " + i, distances[i % distances.length], 500));
+            }
+        });
+
+        catalog = new RaceCatalog(repositoryFor(sessionFactory));
+        catalog.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Race catalogFindById() {
+        return catalog.findById(randomId()).orElseThrow();
+    }
+
+    @Benchmark
+    public Race jpaFindById() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.find(Race.class, randomId());
+        }
+    }
+
+    @Benchmark
+    public List<Race> catalogFindAll() {
+        return catalog.findAll();
+    }
+
+    @Benchmark
+    public List<Race> jpaFindAll() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createSelectionQuery("from Race", Race.class).getResultList();
+        }
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    // The catalog only needs findAll to load; a stand-in avoids bootstrapping Spring Data
+    private static RaceRepository repositoryFor(SessionFactory sessionFactory) {
+        return (RaceRepository) Proxy.newProxyInstance(RaceRepository.class.getClassLoader(),
+                new Class<?>[]{RaceRepository.class}, (proxy, method, args) -> {
+                    if (!"findAll".equals(method.getName()) || method.getParameterCount() != 0) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    try (Session session = sessionFactory.openSession()) {
+                        return session.createSelectionQuery("from Race", Race.class).getResultList();
+                    }
+                });
+    }
+}
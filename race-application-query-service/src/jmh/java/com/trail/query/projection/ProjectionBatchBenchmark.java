@@ -0,0 +1,111 @@
+package com.trail.query.projection;
+
+import com.trail.query.entity.Application;
+import com.trail.query.entity.Race;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projection write throughput for application events: one transaction and
+ * one {@code merge} per message, as the listener did before, against
+ * batches of events persisted in one transaction with JDBC batching. Runs
+ * against a throwaway schema on a real Postgres instance:
+ *
+ * <pre>
+ * gradle jmh -PjmhIncludes=ProjectionBatchBenchmark -PjmhJdbcUrl=jdbc:postgresql://localhost:5432/postgres
+ * </pre>
+ *
+ * Scores are applications written per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ProjectionBatchBenchmark {
+
+    private static final String SCHEMA = "projection_bench";
+    private static final int EVENTS = 1000;
+
+    @Param({"1", "50", "250"})
+    public int batchSize;
+
+    private SessionFactory sessionFactory;
+    private Race race;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("jmh.jdbc.url", "jdbc:postgresql://localhost:5432/postgres");
+        String user = System.getProperty("jmh.jdbc.user", "postgres");
+        String password = System.getProperty("jmh.jdbc.password", "postgres");
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        }
+
+        // Same JDBC settings as application.yml
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Race.class)
+                .addAnnotatedClass(Application.class)
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", user)
+                .setProperty("hibernate.connection.password", password)
+                .setProperty("hibernate.connection.reWriteBatchedInserts", "true")
+                .setProperty("hibernate.jdbc.batch_size", "250")
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.default_schema", SCHEMA)
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .buildSessionFactory();
+
+        race = new Race(UUID.randomUUID(), "Benchmark Trail", Race.Distance.TenK, null);
+        sessionFactory.inTransaction(session -> session.persist(race));
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        sessionFactory.inTransaction(session ->
+                session.createMutationQuery("delete from Application").executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void apply() {
+        if (batchSize == 1) {
+            for (int i = 0; i < EVENTS; i++) {
+                Application application = application();
+                // JpaRepository.save on an assigned id: merge selects the row, then inserts
+                sessionFactory.inTransaction(session -> session.merge(application));
+            }
+            return;
+        }
+        for (int written = 0; written < EVENTS; written += batchSize) {
+            int count = Math.min(batchSize, EVENTS - written);
+            sessionFactory.inTransaction(session -> {
+                Race reference = session.getReference(Race.class, race.getId());
+                for (int i = 0; i < count; i++) {
+                    Application application = application();
+                    application.setRace(reference);
+                    session.persist(application);
+                }
+            });
+        }
+    }
+
+    private Application application() {
+        return new Application(UUID.randomUUID(), "Marko", "Horvat", "AK Zagreb", race);
+    }
+}
@@ -0,0 +1,82 @@
+package com.trail.query.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency over a synthetic million-applicant index built from common
+ * Croatian names, with queries from a single letter up to two whole words:
+ *
+ * <pre>
+ * gradle jmh -PjmhIncludes=ApplicantSearchIndexBenchmark
+ * </pre>
+ *
+ * Run with a heap of at least 2 GB; the trial setup prints the time taken to
+ * build the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ApplicantSearchIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {
+            "Ivan", "Marko", "Luka", "Ana", "Petra", "Ivana", "Josip", "Tomislav", "Maja", "Katarina",
+            "Željko", "Đurđa", "Matija", "Nikola", "Lucija", "Mia", "Filip", "Karla", "Dario", "Šime"};
+    private static final String[] LAST_NAMES = {
+            "Horvat", "Kovačević", "Babić", "Marić", "Jurić", "Novak", "Kovačić", "Knežević", "Vuković",
+            "Marković", "Petrović", "Matić", "Tomić", "Pavlović", "Božić", "Blažević", "Grgić", "Pavić",
+            "Radić", "Perić", "Šarić", "Lovrić", "Vidović", "Perković", "Popović", "Đurić", "Petrić"};
+    private static final String[] CLUBS = {
+            "AK Zagreb", "Trail Team Učka", "Sljeme Runners", "AK Split", "Velebit Trail", "AK Rijeka"};
+
+    @Param({"1000000"})
+    public int applicants;
+
+    @Param({"m", "mar", "markovic", "ana horvat", "zzz"})
+    public String query;
+
+    private ApplicantSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        UUID[] races = new UUID[20];
+        for (int i = 0; i < races.length; i++) {
+            races[i] = UUID.randomUUID();
+        }
+
+        long started = System.nanoTime();
+        index = new ApplicantSearchIndex();
+        List<Applicant> batch = new ArrayList<>(1000);
+        for (int i = 0; i < applicants; i++) {
+            // A numeric suffix on some last names keeps the dictionary from being trivially small
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)]
+                    + (random.nextInt(4) == 0 ? "-" + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + random.nextInt(500) : "");
+            batch.add(new Applicant(UUID.randomUUID(),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    lastName,
+                    random.nextInt(3) == 0 ? null : CLUBS[random.nextInt(CLUBS.length)],
+                    races[random.nextInt(races.length)]));
+            if (batch.size() == 1000) {
+                index.addLoaded(batch);
+                batch.clear();
+            }
+        }
+        index.addLoaded(batch);
+        index.markReady();
+        System.out.printf("%nIndexed %d applicants in %d ms%n", index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Benchmark
+    public List<Applicant> search() {
+        return index.search(query, 20);
+    }
+}
@@ -3,7 +3,8 @@ package com.trail.query;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+// com.trail.common holds the event log pipeline and monitoring shared with the other service
+@SpringBootApplication(scanBasePackages = {"com.trail.query", "com.trail.common"})
 public class RaceApplicationQueryServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(RaceApplicationQueryServiceApplication.class, args);
@@ -0,0 +1,78 @@
+package com.trail.query.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trail.query.datasource.DataSourceRouting;
+import com.trail.query.dto.ApplicationSummary;
+import com.trail.query.repository.ApplicationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of single-application lookups, invalidated by the event
+ * listener right after it changes the projection. The TTL only bounds memory
+ * held by cold entries; freshness comes from the invalidation.
+ *
+ * <p>Missing applications are not cached, so a lookup right after an
+ * {@code application.created} event still reaches the database.
+ */
+@Component
+public class ApplicationCache implements MeterBinder {
+
+    private final ApplicationRepository applicationRepository;
+    private final Cache<UUID, ApplicationSummary> cache;
+
+    // Bumped on every race-wide invalidation, see findById
+    private final AtomicLong raceChanges = new AtomicLong();
+
+    public ApplicationCache(ApplicationRepository applicationRepository,
+                            @Value("${query-cache.applications.max-size:10000}") long maxSize,
+                            @Value("${query-cache.applications.ttl-seconds:600}") long ttlSeconds) {
+        this.applicationRepository = applicationRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<ApplicationSummary> findById(UUID id) {
+        long seen = raceChanges.get();
+        // invalidate(id) waits for a load of the same key, so a per-key change can't be missed.
+        // Loads read the primary: a lagging replica would cache the state before the change.
+        ApplicationSummary application = cache.get(id, key ->
+                DataSourceRouting.onPrimary(() -> applicationRepository.findSummaryById(key)).orElse(null));
+        if (application != null && raceChanges.get() != seen) {
+            // A race was deleted while loading; the row may predate the deletion and
+            // invalidateRace could not see the entry yet, so don't keep it
+            cache.asMap().remove(id, application);
+        }
+        return Optional.ofNullable(application);
+    }
+
+    public void invalidate(UUID id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Drops every cached application of a deleted race. Race updates need no
+     * invalidation: cached applications refer to their race by id only.
+     */
+    public void invalidateRace(UUID raceId) {
+        raceChanges.incrementAndGet();
+        cache.asMap().values().removeIf(application -> raceId.equals(application.raceId()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "applications");
+    }
+}
@@ -0,0 +1,168 @@
+package com.trail.query.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded response bodies of hot list endpoints, so identical lists are
+ * serialized (and gzipped) once per change rather than once per request.
+ *
+ * <p>Each body is stored with the ETag it was built for. A body is served
+ * only while that tag is still current, so a change is never hidden by a
+ * body built from older data, even one that finished building after the
+ * change. {@code ViewUpdateListener} also drops the bodies a change makes
+ * stale, which frees their memory right away.
+ *
+ * <p>Gzipped bodies get their own ETag, since a strong validator must differ
+ * between content codings.
+ */
+@Component
+public class ResponseBodyCache {
+
+    public static final String RACES = "races";
+
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final boolean gzipEnabled;
+    private final Cache<String, Body> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${response-cache.max-size-mb:64}") long maxSizeMb,
+                             @Value("${response-cache.gzip:true}") boolean gzipEnabled) {
+        this.objectMapper = objectMapper;
+        this.gzipEnabled = gzipEnabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((String key, Body body) -> body.size())
+                .build();
+        this.hits = Counter.builder("response.cache.requests").tag("result", "hit")
+                .description("Responses served from an encoded body")
+                .register(meterRegistry);
+        this.misses = Counter.builder("response.cache.requests").tag("result", "miss")
+                .description("Responses whose body had to be encoded")
+                .register(meterRegistry);
+        Gauge.builder("response.cache.size", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .baseUnit("bytes")
+                .description("Bytes held by cached response bodies")
+                .register(meterRegistry);
+    }
+
+    public static String raceApplications(UUID raceId) {
+        return "applications:" + raceId;
+    }
+
+    /**
+     * The body of {@code key} for the given ETag, encoding the list from
+     * {@code loader} if no body of that tag is cached.
+     */
+    public Body get(String key, String eTag, Supplier<? extends Collection<?>> loader) {
+        Body body = cache.getIfPresent(key);
+        if (body != null && body.eTag().equals(eTag)) {
+            hits.increment();
+            return body;
+        }
+        misses.increment();
+        body = encode(eTag, loader.get());
+        cache.put(key, body);
+        return body;
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Whether the response to this request will be gzipped.
+     */
+    public boolean gzip(WebRequest request) {
+        if (!gzipEnabled) {
+            return false;
+        }
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP) || parts[0].trim().equals("*")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The ETag of the body in the chosen coding.
+     */
+    public static String eTag(String eTag, boolean gzip) {
+        return gzip ? eTag.substring(0, eTag.length() - 1) + "-" + GZIP + "\"" : eTag;
+    }
+
+    Body encode(String eTag, Collection<?> items) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(items);
+            return new Body(eTag, json, gzipEnabled ? gzip(json) : null, items.size());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode response body", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * An encoded list; {@code gzip} is null when compression is off.
+     */
+    public record Body(String eTag, byte[] json, byte[] gzip, int count) {
+
+        int size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+
+        /**
+         * A 200 response whose bytes are copied to the servlet output stream as they are.
+         */
+        public ResponseEntity<byte[]> toResponse(boolean gzipped, CacheControl cacheControl) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(ResponseBodyCache.eTag(eTag, gzipped))
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzipped) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(gzip);
+            }
+            return response.body(json);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.trail.query.catalog;
+
+import com.trail.query.datasource.DataSourceRouting;
+import com.trail.query.entity.Race;
+import com.trail.query.repository.RaceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Immutable in-memory copy of all races. Readers take the current
+ * {@link Snapshot} with a single volatile read; writers build a new snapshot
+ * and swap it in with a CAS, so reads never block or see a half-applied
+ * change.
+ *
+ * <p>The snapshot is loaded once the application is ready and kept current
+ * by {@code ViewUpdateListener}. Until then reads go to the database. The
+ * returned races are shared between requests and must not be modified.
+ */
+@Component
+@Slf4j
+public class RaceCatalog implements MeterBinder {
+
+    // Matches Postgres' unsigned byte order for uuid, so list order equals keyset order
+    static final Comparator<Race> BY_ID = Comparator.comparing(Race::getId, RaceCatalog::compareUnsigned);
+
+    private final RaceRepository raceRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong changes = new AtomicLong();
+
+    public RaceCatalog(RaceRepository raceRepository) {
+        this.raceRepository = raceRepository;
+    }
+
+    public List<Race> findAll() {
+        Snapshot current = snapshot.get();
+        return current != null ? current.races() : raceRepository.findAll();
+    }
+
+    public Optional<Race> findById(UUID id) {
+        Snapshot current = snapshot.get();
+        return current != null ? Optional.ofNullable(current.byId().get(id)) : raceRepository.findById(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // A change committed while the query runs may be missing from its result,
+        // so read again until a load completes without any change in between
+        long seen;
+        int races;
+        do {
+            seen = changes.get();
+            // From the primary: the change counter can't account for replication lag
+            Snapshot loaded = Snapshot.of(DataSourceRouting.onPrimary(raceRepository::findAll).stream()
+                    .map(RaceCatalog::copy)
+                    .toList());
+            snapshot.set(loaded);
+            races = loaded.races().size();
+        } while (changes.get() != seen);
+        log.info("Race catalog loaded with {} races", races);
+    }
+
+    /**
+     * Adds or replaces a race. Call after the change is committed.
+     */
+    public void put(Race race) {
+        Race copy = copy(race);
+        update(races -> races.put(copy.getId(), copy));
+    }
+
+    /**
+     * Removes a race. Call after the change is committed.
+     */
+    public void remove(UUID id) {
+        update(races -> races.remove(id));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("race.catalog.size", snapshot, ref -> ref.get() != null ? ref.get().races().size() : 0)
+                .description("Races held in the in-memory catalog")
+                .register(registry);
+    }
+
+    private void update(Consumer<Map<UUID, Race>> change) {
+        changes.incrementAndGet();
+        snapshot.updateAndGet(current -> {
+            if (current == null) {
+                // Not loaded yet; load() sees the bumped counter and reads again
+                return null;
+            }
+            Map<UUID, Race> races = new HashMap<>(current.byId());
+            change.accept(races);
+            return Snapshot.of(races.values());
+        });
+    }
+
+    private static Race copy(Race race) {
+        return new Race(race.getId(), race.getName(), race.getDistance(), race.getCapacity());
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    record Snapshot(Map<UUID, Race> byId, List<Race> races) {
+
+        static Snapshot of(Collection<Race> races) {
+            List<Race> sorted = new ArrayList<>(races);
+            sorted.sort(BY_ID);
+            Map<UUID, Race> byId = new HashMap<>();
+            for (Race race : sorted) {
+                byId.put(race.getId(), race);
+            }
+            return new Snapshot(Map.copyOf(byId), List.copyOf(sorted));
+        }
+    }
+}
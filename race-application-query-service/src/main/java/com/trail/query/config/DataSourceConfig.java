@@ -0,0 +1,90 @@
+package com.trail.query.config;
+
+import com.trail.query.datasource.ReplicaPool;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to the replicas and everything else to the
+ * primary. The routing happens in {@link LazyConnectionDataSourceProxy},
+ * which takes the physical connection on the first statement, once the
+ * transaction has marked it read-only; repository finders outside of a
+ * transaction run read-only, while the event listener's projection writes
+ * always run in read-write transactions.
+ *
+ * <p>With no {@code datasource.replicas.urls} configured every read goes to
+ * the primary as before.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    public static final String PRIMARY = "primaryDataSource";
+
+    @Bean(PRIMARY)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(@Qualifier(PRIMARY) DataSource primary,
+                                   DataSourceProperties properties,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${datasource.replicas.urls:}") List<String> urls,
+                                   @Value("${datasource.replicas.username:}") String username,
+                                   @Value("${datasource.replicas.password:}") String password,
+                                   @Value("${datasource.replicas.pool-size:10}") int poolSize,
+                                   @Value("${datasource.replicas.connection-timeout-ms:1000}") long connectionTimeoutMs,
+                                   @Value("${datasource.replicas.max-lag-ms:1000}") long maxLagMs,
+                                   @Value("${datasource.replicas.health-check-timeout-seconds:2}") int checkTimeoutSeconds) {
+        String user = username.isEmpty() ? properties.determineUsername() : username;
+        String pass = password.isEmpty() ? properties.determinePassword() : password;
+        List<ReplicaPool.Replica> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + replicas.size();
+            replicas.add(new ReplicaPool.Replica(name,
+                    replicaDataSource(name, url.trim(), user, pass, poolSize, connectionTimeoutMs),
+                    replicaDataSource(name + "-check", url.trim(), user, pass, 1, connectionTimeoutMs)));
+        }
+        return new ReplicaPool(primary, replicas, maxLagMs, checkTimeoutSeconds, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier(PRIMARY) DataSource primary, ReplicaPool replicaPool) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaPool);
+        return dataSource;
+    }
+
+    private static HikariDataSource replicaDataSource(String name, String url, String username, String password,
+                                                      int poolSize, long connectionTimeoutMs) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setReadOnly(true);
+        dataSource.setMaximumPoolSize(poolSize);
+        // Fail over quickly instead of queueing behind a dead replica
+        dataSource.setConnectionTimeout(connectionTimeoutMs);
+        // Start even when a replica is down; its health check keeps it ejected
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+}
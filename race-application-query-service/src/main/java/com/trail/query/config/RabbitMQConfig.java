@@ -1,46 +1,79 @@
 package com.trail.query.config;
 
+import com.trail.query.listener.FailedEventRouter;
+import com.trail.query.listener.RaceEventListener;
+import com.trail.query.listener.ViewUpdateListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.messaging.converter.MappingJackson2MessageConverter;
-import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
-import org.springframework.messaging.handler.annotation.support.MessageHandlerMethodFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Declares one queue per partition, {@code race.partition.<n>}, bound to the
+ * routing keys {@code p<n>.#} the command service publishes under. Each
+ * partition is consumed by exactly one consumer: concurrency is fixed at one
+ * per container, and the queues are single-active-consumer so that further
+ * instances of this service only stand by. Events of a race are therefore
+ * applied in the order they were published.
+ *
+ * <p>Applied events are passed on to the {@code race.views} fanout exchange.
+ * Every instance binds its own auto-deleted queue, {@code race.views.<id>},
+ * to it, so the in-memory views of standby instances stay current too.
+ */
 @Configuration
+@RequiredArgsConstructor
 public class RabbitMQConfig implements RabbitListenerConfigurer {
 
-    @Value("${rabbitmq.exchange}")
-    private String exchange;
+    public static final String BATCH_LISTENER_FACTORY = "batchListenerContainerFactory";
+
+    public static final String PARTITION_QUEUE_PREFIX = "race.partition.";
+
+    public static final String RETRY_EXCHANGE = "race.retry";
 
-    @Value("${rabbitmq.queue-created}")
-    private String queueCreated;
+    public static final String RETRY_QUEUE_PREFIX = "race.retry.";
 
-    @Value("${rabbitmq.queue-updated}")
-    private String queueUpdated;
+    public static final String DEAD_LETTER_EXCHANGE = "race.dead-letter";
 
-    @Value("${rabbitmq.queue-deleted}")
-    private String queueDeleted;
+    public static final String PARKING_LOT_QUEUE = "race.parking-lot";
 
-    @Value("${rabbitmq.queue-application-deleted}")
-    private String queueApplicationDeleted;
+    public static final String VIEW_EXCHANGE = "race.views";
 
-    @Value("${rabbitmq.routing-key-created}")
-    private String routingKeyCreated;
+    private final RaceEventListener raceEventListener;
+    private final ViewUpdateListener viewUpdateListener;
+    private final FailedEventRouter failedEventRouter;
+
+    @Value("${rabbitmq.exchange}")
+    private String exchange;
 
-    @Value("${rabbitmq.routing-key-updated}")
-    private String routingKeyUpdated;
+    @Value("${rabbitmq.partitions:4}")
+    private int partitions;
 
-    @Value("${rabbitmq.routing-key-deleted}")
-    private String routingKeyDeleted;
+    @Value("${rabbitmq.batch.size:250}")
+    private int batchSize;
 
-    @Value("${rabbitmq.routing-key-application-deleted}")
-    private String routingKeyApplicationDeleted;
+    @Value("${rabbitmq.batch.receive-timeout-ms:100}")
+    private long batchReceiveTimeoutMs;
+
+    @Value("${rabbitmq.listener-retry.max-attempts:10}")
+    private int listenerRetryAttempts;
+
+    @Value("${rabbitmq.listener-retry.max-interval-ms:30000}")
+    private long listenerRetryMaxIntervalMs;
 
     // JSON Message Converter
     @Bean
@@ -48,17 +81,60 @@ public class RabbitMQConfig implements RabbitListenerConfigurer {
         return new Jackson2JsonMessageConverter();
     }
 
-    // Message Handler Factory za RabbitListener
-    @Bean
-    public MessageHandlerMethodFactory messageHandlerMethodFactory() {
-        DefaultMessageHandlerMethodFactory factory = new DefaultMessageHandlerMethodFactory();
-        factory.setMessageConverter(new MappingJackson2MessageConverter());
-        return factory;
-    }
-
     @Override
     public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
-        registrar.setMessageHandlerMethodFactory(messageHandlerMethodFactory());
+        registrar.setContainerFactoryBeanName(BATCH_LISTENER_FACTORY);
+        for (int partition = 0; partition < partitions; partition++) {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("race-partition-" + partition);
+            endpoint.setQueueNames(PARTITION_QUEUE_PREFIX + partition);
+            endpoint.setBatchListener(true);
+            endpoint.setMessageListener(raceEventListener);
+            registrar.registerEndpoint(endpoint);
+        }
+        SimpleRabbitListenerEndpoint views = new SimpleRabbitListenerEndpoint();
+        views.setId("race-views");
+        views.setQueues(viewQueue());
+        views.setBatchListener(true);
+        views.setMessageListener(viewUpdateListener);
+        registrar.registerEndpoint(views);
+    }
+
+    /**
+     * Delivers up to {@code rabbitmq.batch.size} messages per listener call,
+     * or fewer once no message arrived for the receive timeout. The batch is
+     * acknowledged after the listener returns.
+     *
+     * <p>Events that fail on their own are rerouted by the listener, so an
+     * exception reaching the container means the database or broker is
+     * unavailable. The batch is then retried in place with exponential
+     * backoff, keeping the partition's order, and requeued once the attempts
+     * are used up rather than spinning on an immediate redelivery.
+     */
+    @Bean(BATCH_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeoutMs);
+        // The broker must be allowed to send a whole batch before the first ack
+        factory.setPrefetchCount(batchSize * 2);
+        // A second consumer on a partition would break the per-race ordering
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(false);
+        MessageBatchRecoverer requeue = (messages, cause) -> {
+            throw new ImmediateRequeueAmqpException("Requeueing batch after repeated failures", cause);
+        };
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(listenerRetryAttempts)
+                .backOffOptions(1000, 2.0, listenerRetryMaxIntervalMs)
+                .recoverer(requeue)
+                .build());
+        return factory;
     }
 
     // Exchange
@@ -67,45 +143,67 @@ public class RabbitMQConfig implements RabbitListenerConfigurer {
         return new TopicExchange(exchange);
     }
 
-    // Queues - Spring će automatski kreirati
-    @Bean
-    public Queue queueCreated() {
-        return QueueBuilder.durable(queueCreated).build();
-    }
-
-    @Bean
-    public Queue queueUpdated() {
-        return QueueBuilder.durable(queueUpdated).build();
-    }
-
-    @Bean
-    public Queue queueDeleted() {
-        return QueueBuilder.durable(queueDeleted).build();
-    }
-
+    // Partition queues and their bindings - Spring će automatski kreirati
     @Bean
-    public Queue queueApplicationDeleted() {
-        return QueueBuilder.durable(queueApplicationDeleted).build();
+    public Declarables partitionQueues() {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            Queue queue = QueueBuilder.durable(PARTITION_QUEUE_PREFIX + partition)
+                    .singleActiveConsumer()
+                    .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange()).with("p" + partition + ".#"));
+        }
+        return new Declarables(declarables);
     }
 
-    // Bindings - Spring će automatski kreirati
+    /**
+     * This instance's queue of applied events. It is exclusive and deleted
+     * when the instance disconnects; a restarted instance loads its views
+     * from the database instead of replaying what it missed.
+     */
     @Bean
-    public Binding bindingCreated() {
-        return BindingBuilder.bind(queueCreated()).to(exchange()).with(routingKeyCreated);
+    public AnonymousQueue viewQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(VIEW_EXCHANGE + "."));
     }
 
     @Bean
-    public Binding bindingUpdated() {
-        return BindingBuilder.bind(queueUpdated()).to(exchange()).with(routingKeyUpdated);
+    public Declarables viewExchange() {
+        FanoutExchange viewExchange = new FanoutExchange(VIEW_EXCHANGE);
+        return new Declarables(viewExchange, BindingBuilder.bind(viewQueue()).to(viewExchange));
     }
 
+    /**
+     * One delay queue per retry attempt, bound to the retry exchange by the
+     * attempt header. Expired events are dead-lettered to the main exchange
+     * under their original routing key.
+     */
     @Bean
-    public Binding bindingDeleted() {
-        return BindingBuilder.bind(queueDeleted()).to(exchange()).with(routingKeyDeleted);
+    public Declarables retryQueues() {
+        HeadersExchange retryExchange = new HeadersExchange(RETRY_EXCHANGE);
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(retryExchange);
+        for (int attempt = 1; attempt <= failedEventRouter.maxAttempts(); attempt++) {
+            Queue queue = QueueBuilder.durable(RETRY_QUEUE_PREFIX + attempt)
+                    .ttl((int) failedEventRouter.delayMs(attempt))
+                    .deadLetterExchange(exchange)
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(retryExchange)
+                    .where(FailedEventRouter.RETRY_LEVEL_HEADER).matches(String.valueOf(attempt)));
+        }
+        return new Declarables(declarables);
     }
 
+    /**
+     * Events that used up their retries, and anything rejected by a partition
+     * queue's consumer, end up here until they are replayed.
+     */
     @Bean
-    public Binding bindingApplicationDeleted() {
-        return BindingBuilder.bind(queueApplicationDeleted()).to(exchange()).with(routingKeyApplicationDeleted);
+    public Declarables parkingLot() {
+        FanoutExchange deadLetterExchange = new FanoutExchange(DEAD_LETTER_EXCHANGE);
+        Queue queue = QueueBuilder.durable(PARKING_LOT_QUEUE).build();
+        return new Declarables(deadLetterExchange, queue, BindingBuilder.bind(queue).to(deadLetterExchange));
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,11 @@
 package com.trail.query.controller;
 
-import com.trail.query.entity.Application;
+import com.trail.query.cache.ResponseBodyCache;
+import com.trail.query.dto.ApplicationSummary;
+import com.trail.query.pagination.CursorPage;
+import com.trail.query.projection.ProjectionVersions;
+import com.trail.query.search.Applicant;
+import com.trail.query.service.ApplicationExportService;
 import com.trail.query.service.ApplicationQueryService;
 import com.trail.query.service.LoggingService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,10 +18,17 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -29,8 +41,14 @@ import java.util.UUID;
 @SecurityRequirement(name = "Bearer Authentication")
 public class ApplicationQueryController {
 
+    // Lets browsers keep the body and revalidate it with If-None-Match on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final ApplicationQueryService applicationService;
+    private final ApplicationExportService exportService;
     private final LoggingService loggingService;
+    private final ProjectionVersions projectionVersions;
+    private final ResponseBodyCache responseBodyCache;
 
     @Operation(
             summary = "Get all applications",
@@ -38,25 +56,21 @@ public class ApplicationQueryController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Applications retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Application.class))),
+                    content = @Content(schema = @Schema(implementation = ApplicationSummary.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
             @ApiResponse(responseCode = "403", description = "Access denied")
     })
     @GetMapping
     @PreAuthorize("hasAnyRole('APPLICANT', 'ADMINISTRATOR')")
-    public ResponseEntity<List<Application>> getAll(Authentication authentication) {
-        long startTime = System.currentTimeMillis();
-
+    public ResponseEntity<List<ApplicationSummary>> getAll(Authentication authentication) {
         try {
             log.info("Fetching all applications");
 
-            List<Application> applications = applicationService.findAll();
+            List<ApplicationSummary> applications = applicationService.findAll();
 
             // Structured logging
             String userRole = getUserRole(authentication);
             loggingService.logApplicationsQueried(applications.size(), userRole);
-            loggingService.logApiCall("GET", "/api/applications", userRole,
-                    System.currentTimeMillis() - startTime);
 
             log.info("Successfully retrieved {} applications", applications.size());
 
@@ -75,35 +89,31 @@ public class ApplicationQueryController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Application retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Application.class))),
+                    content = @Content(schema = @Schema(implementation = ApplicationSummary.class))),
             @ApiResponse(responseCode = "404", description = "Application not found"),
             @ApiResponse(responseCode = "403", description = "Access denied - Cannot view other user's application"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required")
     })
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('APPLICANT', 'ADMINISTRATOR')")
-    public ResponseEntity<Application> getOne(
+    public ResponseEntity<ApplicationSummary> getOne(
             @Parameter(description = "Application ID", required = true)
             @PathVariable UUID id,
             Authentication authentication) {
 
-        long startTime = System.currentTimeMillis();
-
         try {
             log.info("Fetching application with ID: {}", id);
 
-            Application application = applicationService.findOne(id);
+            ApplicationSummary application = applicationService.findOne(id);
 
             // Structured logging
             String userRole = getUserRole(authentication);
-            loggingService.logApplicationQueried(application.getId(),
-                    application.getFirstName() + " " + application.getLastName(),
+            loggingService.logApplicationQueried(application.id(),
+                    application.firstName() + " " + application.lastName(),
                     userRole);
-            loggingService.logApiCall("GET", "/api/applications/" + id, userRole,
-                    System.currentTimeMillis() - startTime);
 
             log.info("Successfully retrieved application for: {} {}",
-                    application.getFirstName(), application.getLastName());
+                    application.firstName(), application.lastName());
 
             return ResponseEntity.ok(application);
 
@@ -114,39 +124,83 @@ public class ApplicationQueryController {
         }
     }
 
+    @Operation(
+            summary = "Search applicants by name or club",
+            description = "Finds applicants whose first name, last name or club has a word starting with each word " +
+                    "of the query. Matching ignores case and diacritics, so `markovic` finds Marković. " +
+                    "Whole-word and last-name matches rank first."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matching applicants, best match first",
+                    content = @Content(schema = @Schema(implementation = Applicant.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "503", description = "Search index is still loading")
+    })
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('APPLICANT', 'ADMINISTRATOR')")
+    public ResponseEntity<List<Applicant>> search(
+            @Parameter(description = "Words or word prefixes to look for", required = true)
+            @RequestParam String q,
+            @Parameter(description = "Maximum number of results, at most search.max-results")
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+
+        try {
+            List<Applicant> applicants = applicationService.search(q, limit);
+
+            // Structured logging; the query itself is a personal name and stays out of the logs
+            loggingService.logApplicantsSearched(q.length(), applicants.size(), getUserRole(authentication));
+
+            return ResponseEntity.ok(applicants);
+
+        } catch (Exception e) {
+            log.error("Error searching applicants", e);
+            loggingService.logError("SEARCH_APPLICANTS", e, null);
+            throw e;
+        }
+    }
+
     @Operation(
             summary = "Get applications by race ID",
             description = "Retrieves all applications for a specific race. Administrators can view all race applications, applicants can view applications for races they applied to."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Applications retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Application.class))),
+                    content = @Content(schema = @Schema(implementation = ApplicationSummary.class))),
+            @ApiResponse(responseCode = "304", description = "Applications unchanged since the ETag sent in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Race not found"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required")
     })
     @GetMapping("/race/{raceId}")
     @PreAuthorize("hasAnyRole('APPLICANT', 'ADMINISTRATOR')")
-    public ResponseEntity<List<Application>> getByRace(
+    public ResponseEntity<byte[]> getByRace(
             @Parameter(description = "Race ID", required = true)
             @PathVariable UUID raceId,
-            Authentication authentication) {
-
-        long startTime = System.currentTimeMillis();
+            Authentication authentication,
+            WebRequest webRequest) {
 
         try {
+            // Read before the data so the tag is never newer than the body
+            String eTag = projectionVersions.raceApplicationsETag(raceId);
+            boolean gzip = responseBodyCache.gzip(webRequest);
+            if (webRequest.checkNotModified(ResponseBodyCache.eTag(eTag, gzip))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ResponseBodyCache.eTag(eTag, gzip))
+                        .cacheControl(REVALIDATE).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+
             log.info("Fetching applications for race ID: {}", raceId);
 
-            List<Application> applications = applicationService.findByRaceId(raceId);
+            ResponseBodyCache.Body applications = responseBodyCache.get(ResponseBodyCache.raceApplications(raceId),
+                    eTag, () -> applicationService.findByRaceId(raceId));
 
             // Structured logging
             String userRole = getUserRole(authentication);
-            loggingService.logApplicationsByRaceQueried(raceId, applications.size(), userRole);
-            loggingService.logApiCall("GET", "/api/applications/race/" + raceId, userRole,
-                    System.currentTimeMillis() - startTime);
+            loggingService.logApplicationsByRaceQueried(raceId, applications.count(), userRole);
 
-            log.info("Found {} applications for race ID: {}", applications.size(), raceId);
+            log.info("Found {} applications for race ID: {}", applications.count(), raceId);
 
-            return ResponseEntity.ok(applications);
+            return applications.toResponse(gzip, REVALIDATE);
 
         } catch (Exception e) {
             log.error("Error fetching applications for race ID: {}", raceId, e);
@@ -155,6 +209,149 @@ public class ApplicationQueryController {
         }
     }
 
+    @Operation(
+            summary = "Get a page of applications",
+            description = "Keyset-paginated variant of the application list, selected by the `limit` parameter. " +
+                    "Applications are ordered by ID; pass the returned `nextCursor` as `cursor` to get the next page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or cursor"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied")
+    })
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasAnyRole('APPLICANT', 'ADMINISTRATOR')")
+    public ResponseEntity<CursorPage<ApplicationSummary>> getPage(
+            @Parameter(description = "Page size, at most pagination.max-limit", required = true)
+            @RequestParam int limit,
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String cursor,
+            Authentication authentication) {
+
+        try {
+            log.info("Fetching page of {} applications", limit);
+
+            CursorPage<ApplicationSummary> page = applicationService.findPage(cursor, limit);
+
+            // Structured logging
+            String userRole = getUserRole(authentication);
+            loggingService.logApplicationsQueried(page.items().size(), userRole);
+
+            return ResponseEntity.ok(page);
+
+        } catch (Exception e) {
+            log.error("Error fetching page of applications", e);
+            loggingService.logError("GET_APPLICATIONS_PAGE", e, null);
+            throw e;
+        }
+    }
+
+    @Operation(
+            summary = "Get a page of applications by race ID",
+            description = "Keyset-paginated variant of the applications of one race, selected by the `limit` parameter."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or cursor"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required")
+    })
+    @GetMapping(value = "/race/{raceId}", params = "limit")
+    @PreAuthorize("hasAnyRole('APPLICANT', 'ADMINISTRATOR')")
+    public ResponseEntity<CursorPage<ApplicationSummary>> getPageByRace(
+            @Parameter(description = "Race ID", required = true)
+            @PathVariable UUID raceId,
+            @Parameter(description = "Page size, at most pagination.max-limit", required = true)
+            @RequestParam int limit,
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String cursor,
+            Authentication authentication) {
+
+        try {
+            log.info("Fetching page of {} applications for race ID: {}", limit, raceId);
+
+            CursorPage<ApplicationSummary> page = applicationService.findPageByRaceId(raceId, cursor, limit);
+
+            // Structured logging
+            String userRole = getUserRole(authentication);
+            loggingService.logApplicationsByRaceQueried(raceId, page.items().size(), userRole);
+
+            return ResponseEntity.ok(page);
+
+        } catch (Exception e) {
+            log.error("Error fetching page of applications for race ID: {}", raceId, e);
+            loggingService.logError("GET_APPLICATIONS_BY_RACE_PAGE", e, raceId);
+            throw e;
+        }
+    }
+
+    @Operation(
+            summary = "Export all applications",
+            description = "Streams every application as NDJSON (one JSON object per line) or CSV, ordered by ID. " +
+                    "Rows are written as they are read from the database, so large exports start immediately."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export streamed successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<StreamingResponseBody> exportAll(
+            @Parameter(description = "Output format")
+            @RequestParam(defaultValue = "NDJSON") ApplicationExportService.Format format,
+            Authentication authentication) {
+
+        log.info("Exporting all applications as {}", format);
+        return export(null, format, "applications", authentication);
+    }
+
+    @Operation(
+            summary = "Export the start list of a race",
+            description = "Streams the applications of one race as NDJSON or CSV, ordered by ID."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export streamed successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @GetMapping(value = "/race/{raceId}/export", produces = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<StreamingResponseBody> exportByRace(
+            @Parameter(description = "Race ID", required = true)
+            @PathVariable UUID raceId,
+            @Parameter(description = "Output format")
+            @RequestParam(defaultValue = "NDJSON") ApplicationExportService.Format format,
+            Authentication authentication) {
+
+        log.info("Exporting applications for race ID: {} as {}", raceId, format);
+        return export(raceId, format, "applications-" + raceId, authentication);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(UUID raceId, ApplicationExportService.Format format,
+                                                         String fileName, Authentication authentication) {
+        String userRole = getUserRole(authentication);
+        StreamingResponseBody body = out -> {
+            try {
+                long count = exportService.export(raceId, format, out);
+                loggingService.logApplicationsExported(raceId, count, format.name(), userRole);
+            } catch (Exception e) {
+                log.error("Error exporting applications for race ID: {}", raceId, e);
+                loggingService.logError("EXPORT_APPLICATIONS", e, raceId);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName + "." + format.extension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     private String getUserRole(Authentication authentication) {
         return authentication != null && authentication.getAuthorities() != null ?
                 authentication.getAuthorities().toString() : "UNKNOWN";
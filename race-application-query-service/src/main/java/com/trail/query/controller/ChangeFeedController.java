@@ -0,0 +1,57 @@
+package com.trail.query.controller;
+
+import com.trail.query.dto.ChangeNotification;
+import com.trail.query.feed.ChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Change Feed", description = "Server-sent events announcing changes to races and applications - Query Service")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ChangeFeedController {
+
+    private final ChangeFeed changeFeed;
+
+    @Operation(
+            summary = "Subscribe to changes",
+            description = "Streams server-sent events named `race.created`, `race.updated`, `race.deleted` and " +
+                    "`applications.changed`, each with the id of the race, instead of polling the lists. " +
+                    "The stream opens with a `subscribed` event. On reconnect, send the id of the last event " +
+                    "received as `Last-Event-ID` (or `lastEventId`) to get the changes missed meanwhile; a " +
+                    "`reset` event means they are no longer available and the lists must be fetched again. " +
+                    "Needs the bearer token, so browsers must use a fetch-based event stream reader."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream opened",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = ChangeNotification.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "503", description = "Too many subscribers on this instance")
+    })
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('APPLICANT', 'ADMINISTRATOR')")
+    public SseEmitter subscribe(
+            @Parameter(description = "Id of the last event received, sent by EventSource on reconnect")
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @Parameter(description = "Id of the last event received, for clients that cannot set headers")
+            @RequestParam(name = "lastEventId", required = false) String lastEventId) {
+
+        log.debug("Change feed subscription resuming from {}", lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+        return changeFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+}
@@ -0,0 +1,90 @@
+package com.trail.query.controller;
+
+import com.trail.query.dto.ParkedEvent;
+import com.trail.query.dto.ParkingLotReplay;
+import com.trail.query.service.LoggingService;
+import com.trail.query.service.ParkingLotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/parking-lot")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Parking Lot", description = "API for events the read model could not apply - Query Service")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ParkingLotController {
+
+    private final ParkingLotService parkingLotService;
+    private final LoggingService loggingService;
+
+    @Operation(
+            summary = "Inspect parked events",
+            description = "Events that failed all their retries, oldest first, with the error of the last attempt. " +
+                    "The events stay in the parking lot."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Parked events retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = ParkedEvent.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @GetMapping
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<List<ParkedEvent>> getParkedEvents(
+            @Parameter(description = "Maximum number of events, at most rabbitmq.parking-lot.max-batch")
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(parkingLotService.peek(limit));
+    }
+
+    @Operation(
+            summary = "Replay parked events",
+            description = "Sends the oldest parked events back to their partitions with a fresh retry budget, " +
+                    "e.g. after the cause of the failure was fixed."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Events replayed",
+                    content = @Content(schema = @Schema(implementation = ParkingLotReplay.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @PostMapping("/replay")
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<ParkingLotReplay> replay(
+            @Parameter(description = "Maximum number of events to replay, at most rabbitmq.parking-lot.max-batch")
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+        try {
+            ParkingLotReplay result = parkingLotService.replay(limit);
+            loggingService.logParkedEventsReplayed(result.replayed(), getUserRole(authentication));
+            return ResponseEntity.ok(result);
+
+        } catch (Exception e) {
+            log.error("Error replaying parked events", e);
+            loggingService.logError("REPLAY_PARKED_EVENTS", e, null);
+            throw e;
+        }
+    }
+
+    private String getUserRole(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities() != null ?
+                authentication.getAuthorities().toString() : "UNKNOWN";
+    }
+}
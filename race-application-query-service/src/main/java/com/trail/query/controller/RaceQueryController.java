@@ -1,6 +1,9 @@
 package com.trail.query.controller;
 
+import com.trail.query.cache.ResponseBodyCache;
 import com.trail.query.entity.Race;
+import com.trail.query.pagination.CursorPage;
+import com.trail.query.projection.ProjectionVersions;
 import com.trail.query.service.RaceQueryService;
 import com.trail.query.service.LoggingService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,12 +16,15 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -29,8 +35,13 @@ import java.util.UUID;
 @SecurityRequirement(name = "Bearer Authentication")
 public class RaceQueryController {
 
+    // Lets browsers keep the body and revalidate it with If-None-Match on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final RaceQueryService raceQueryService;
     private final LoggingService loggingService;
+    private final ProjectionVersions projectionVersions;
+    private final ResponseBodyCache responseBodyCache;
 
     @Operation(
             summary = "Get all races",
@@ -39,28 +50,33 @@ public class RaceQueryController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Races retrieved successfully",
                     content = @Content(schema = @Schema(implementation = Race.class))),
+            @ApiResponse(responseCode = "304", description = "Races unchanged since the ETag sent in If-None-Match"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
             @ApiResponse(responseCode = "403", description = "Access denied")
     })
     @GetMapping
     @PreAuthorize("hasRole( 'ADMINISTRATOR')")
-    public ResponseEntity<List<Race>> getAllRaces(Authentication authentication) {
-        long startTime = System.currentTimeMillis();
-
+    public ResponseEntity<byte[]> getAllRaces(Authentication authentication, WebRequest webRequest) {
         try {
+            // Read before the data so the tag is never newer than the body
+            String eTag = projectionVersions.racesETag();
+            boolean gzip = responseBodyCache.gzip(webRequest);
+            if (webRequest.checkNotModified(ResponseBodyCache.eTag(eTag, gzip))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ResponseBodyCache.eTag(eTag, gzip))
+                        .cacheControl(REVALIDATE).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+
             log.info("Fetching all races");
 
-            List<Race> races = raceQueryService.findAll();
+            ResponseBodyCache.Body races = responseBodyCache.get(ResponseBodyCache.RACES, eTag, raceQueryService::findAll);
 
             // Structured logging
             String userRole = getUserRole(authentication);
-            loggingService.logRacesQueried(races.size(), userRole);
-            loggingService.logApiCall("GET", "/api/races", userRole,
-                    System.currentTimeMillis() - startTime);
+            loggingService.logRacesQueried(races.count(), userRole);
 
-            log.info("Successfully retrieved {} races", races.size());
+            log.info("Successfully retrieved {} races", races.count());
 
-            return ResponseEntity.ok(races);
+            return races.toResponse(gzip, REVALIDATE);
 
         } catch (Exception e) {
             log.error("Error fetching all races", e);
@@ -76,6 +92,7 @@ public class RaceQueryController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Race retrieved successfully",
                     content = @Content(schema = @Schema(implementation = Race.class))),
+            @ApiResponse(responseCode = "304", description = "Race unchanged since the ETag sent in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Race not found"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
             @ApiResponse(responseCode = "403", description = "Access denied")
@@ -85,11 +102,15 @@ public class RaceQueryController {
     public ResponseEntity<Race> getRaceById(
             @Parameter(description = "Race ID", required = true)
             @PathVariable UUID id,
-            Authentication authentication) {
-
-        long startTime = System.currentTimeMillis();
+            Authentication authentication,
+            WebRequest webRequest) {
 
         try {
+            String eTag = projectionVersions.raceETag(id);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+            }
+
             log.info("Fetching race with ID: {}", id);
 
             Race race = raceQueryService.findOne(id);
@@ -97,12 +118,10 @@ public class RaceQueryController {
             // Structured logging
             String userRole = getUserRole(authentication);
             loggingService.logRaceQueried(race.getId(), race.getName(), userRole);
-            loggingService.logApiCall("GET", "/api/races/" + id, userRole,
-                    System.currentTimeMillis() - startTime);
 
             log.info("Successfully retrieved race: {}", race.getName());
 
-            return ResponseEntity.ok(race);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(race);
 
         } catch (Exception e) {
             log.error("Error fetching race with ID: {}", id, e);
@@ -111,6 +130,45 @@ public class RaceQueryController {
         }
     }
 
+    @Operation(
+            summary = "Get a page of races",
+            description = "Keyset-paginated variant of the race list, selected by the `limit` parameter. " +
+                    "Races are ordered by ID; pass the returned `nextCursor` as `cursor` to get the next page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or cursor"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied")
+    })
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasRole( 'ADMINISTRATOR')")
+    public ResponseEntity<CursorPage<Race>> getRacesPage(
+            @Parameter(description = "Page size, at most pagination.max-limit", required = true)
+            @RequestParam int limit,
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String cursor,
+            Authentication authentication) {
+
+        try {
+            log.info("Fetching page of {} races", limit);
+
+            CursorPage<Race> page = raceQueryService.findPage(cursor, limit);
+
+            // Structured logging
+            String userRole = getUserRole(authentication);
+            loggingService.logRacesQueried(page.items().size(), userRole);
+
+            return ResponseEntity.ok(page);
+
+        } catch (Exception e) {
+            log.error("Error fetching page of races", e);
+            loggingService.logError("GET_RACES_PAGE", e, null);
+            throw e;
+        }
+    }
+
     private String getUserRole(Authentication authentication) {
         return authentication != null && authentication.getAuthorities() != null ?
                 authentication.getAuthorities().toString() : "UNKNOWN";
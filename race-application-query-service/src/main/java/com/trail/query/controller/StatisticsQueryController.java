@@ -0,0 +1,136 @@
+package com.trail.query.controller;
+
+import com.trail.query.dto.RaceStatistics;
+import com.trail.query.dto.RebuildStatus;
+import com.trail.query.dto.StatisticsOverview;
+import com.trail.query.projection.StatisticsRebuilder;
+import com.trail.query.service.LoggingService;
+import com.trail.query.service.StatisticsQueryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/statistics")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Statistics Query", description = "API for applicant statistics - Query Service")
+@SecurityRequirement(name = "Bearer Authentication")
+public class StatisticsQueryController {
+
+    private final StatisticsQueryService statisticsService;
+    private final StatisticsRebuilder statisticsRebuilder;
+    private final LoggingService loggingService;
+
+    @Operation(
+            summary = "Get applicant statistics",
+            description = "Applicant counts per race and per distance. The counts are kept up to date as applications " +
+                    "arrive, so no applications are counted on request."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = StatisticsOverview.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @GetMapping
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<StatisticsOverview> getOverview(Authentication authentication) {
+        try {
+            StatisticsOverview overview = statisticsService.overview();
+            loggingService.logStatisticsQueried(null, getUserRole(authentication));
+            return ResponseEntity.ok(overview);
+
+        } catch (Exception e) {
+            log.error("Error fetching statistics", e);
+            loggingService.logError("GET_STATISTICS", e, null);
+            throw e;
+        }
+    }
+
+    @Operation(
+            summary = "Get applicant statistics of a race",
+            description = "Applicant count of one race and its breakdown by club, largest club first."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = RaceStatistics.class))),
+            @ApiResponse(responseCode = "404", description = "Race not found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @GetMapping("/races/{raceId}")
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<RaceStatistics> getRaceStatistics(
+            @Parameter(description = "Race ID", required = true)
+            @PathVariable UUID raceId,
+            Authentication authentication) {
+
+        try {
+            RaceStatistics statistics = statisticsService.forRace(raceId);
+            loggingService.logStatisticsQueried(raceId, getUserRole(authentication));
+            return ResponseEntity.ok(statistics);
+
+        } catch (Exception e) {
+            log.error("Error fetching statistics for race ID: {}", raceId, e);
+            loggingService.logError("GET_RACE_STATISTICS", e, raceId);
+            throw e;
+        }
+    }
+
+    @Operation(
+            summary = "Rebuild applicant statistics",
+            description = "Recomputes the statistics from the application table in parallel chunks and swaps them in " +
+                    "atomically. Runs in the background; the current statistics are served until it completes. " +
+                    "Events are applied once the rebuild has finished."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Rebuild started",
+                    content = @Content(schema = @Schema(implementation = RebuildStatus.class))),
+            @ApiResponse(responseCode = "409", description = "A rebuild is already running"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<RebuildStatus> rebuild(Authentication authentication) {
+        RebuildStatus status = statisticsRebuilder.start();
+        loggingService.logStatisticsRebuildStarted(getUserRole(authentication));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    @Operation(
+            summary = "Get statistics rebuild progress",
+            description = "State, chunks counted and throughput of the current or last rebuild on this instance."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Progress retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = RebuildStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Valid JWT token required"),
+            @ApiResponse(responseCode = "403", description = "Access denied - Administrator role required")
+    })
+    @GetMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMINISTRATOR')")
+    public ResponseEntity<RebuildStatus> getRebuildStatus() {
+        return ResponseEntity.ok(statisticsRebuilder.status());
+    }
+
+    private String getUserRole(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities() != null ?
+                authentication.getAuthorities().toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,34 @@
+package com.trail.query.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins reads to the primary for code that must not see replication lag,
+ * such as loads that feed an in-memory view kept current by events. Only
+ * connections taken inside the block are affected.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+
+    static boolean primaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
@@ -0,0 +1,179 @@
+package com.trail.query.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read-only side of the query service's DataSource: hands out
+ * connections to the replicas round-robin and falls back to the primary.
+ *
+ * <p>A replica takes reads only while its last health check succeeded and
+ * its replay lag was at most {@code max-lag-ms}. Checks run every
+ * {@code health-check-interval-ms} on a separate one-connection pool, so a
+ * busy replica is not mistaken for a dead one. A replica whose connection
+ * attempt fails is ejected at once and readmitted by the next passing check.
+ * When no replica qualifies, or the caller asked for the primary through
+ * {@link DataSourceRouting#onPrimary}, the connection comes from the primary.
+ */
+@Slf4j
+public class ReplicaPool extends AbstractDataSource implements Closeable {
+
+    // Zero when the replica has replayed everything it received; an idle primary
+    // would otherwise look like a growing lag
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final int checkTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+
+    public ReplicaPool(DataSource primary, List<Replica> replicas, long maxLagMs, int checkTimeoutSeconds,
+                       MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMs = maxLagMs;
+        this.checkTimeoutSeconds = checkTimeoutSeconds;
+        this.fallbacks = Counter.builder("datasource.replica.fallbacks")
+                .description("Read-only connections served by the primary because no replica qualified")
+                .register(meterRegistry);
+        for (Replica replica : this.replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMs)
+                    .tag("replica", replica.name)
+                    .baseUnit("milliseconds")
+                    .description("Replay lag measured by the last health check")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .description("Whether the replica passed its last health check")
+                    .register(meterRegistry);
+            replica.reads = Counter.builder("datasource.replica.reads")
+                    .tag("replica", replica.name)
+                    .description("Read-only connections handed out by the replica")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!DataSourceRouting.primaryRequired()) {
+            int size = replicas.size();
+            int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!replica.healthy || replica.lagMs > maxLagMs) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLTransientConnectionException e) {
+                    // Pool exhausted: the replica is busy, not broken
+                    log.debug("Replica {} has no free connection", replica.name);
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    log.warn("Ejecting replica {} after a failed connection attempt", replica.name, e);
+                }
+            }
+            fallbacks.increment();
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Replica connections use the configured credentials");
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.health-check-interval-ms:1000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.checkDataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(checkTimeoutSeconds);
+                try (ResultSet rows = statement.executeQuery(LAG_QUERY)) {
+                    rows.next();
+                    replica.lagMs = rows.getDouble(1);
+                }
+                replica.healthy = true;
+                if (!wasHealthy) {
+                    log.info("Replica {} admitted, lag {} ms", replica.name, (long) replica.lagMs);
+                }
+            } catch (SQLException e) {
+                replica.healthy = false;
+                replica.lagMs = Double.NaN;
+                if (wasHealthy) {
+                    log.warn("Ejecting replica {} after a failed health check", replica.name, e);
+                }
+            }
+        }
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() {
+        List<Exception> failures = new ArrayList<>();
+        for (Replica replica : replicas) {
+            for (DataSource dataSource : List.of(replica.dataSource, replica.checkDataSource)) {
+                if (dataSource instanceof Closeable closeable) {
+                    try {
+                        closeable.close();
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                }
+            }
+        }
+        failures.forEach(e -> log.warn("Could not close a replica pool", e));
+    }
+
+    /**
+     * One replica: the pool serving reads and a one-connection pool for checks.
+     * Starts out ejected until its first check passes.
+     */
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final DataSource checkDataSource;
+        private volatile boolean healthy;
+        private volatile double lagMs = Double.NaN;
+        private Counter reads;
+
+        public Replica(String name, DataSource dataSource, DataSource checkDataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.checkDataSource = checkDataSource;
+        }
+
+        boolean healthy() {
+            return healthy;
+        }
+
+        double lagMs() {
+            return lagMs;
+        }
+    }
+}
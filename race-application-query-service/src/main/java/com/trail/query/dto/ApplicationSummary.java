@@ -0,0 +1,11 @@
+package com.trail.query.dto;
+
+import java.util.UUID;
+
+/**
+ * An application as returned by the list and lookup endpoints. Selected
+ * directly by the repository queries; the race is referenced by id only,
+ * which is read from the application row without joining the race.
+ */
+public record ApplicationSummary(UUID id, String firstName, String lastName, String club, UUID raceId) {
+}
@@ -0,0 +1,30 @@
+package com.trail.query.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.UUID;
+
+/**
+ * A change pushed by the change feed. It only names what changed; clients
+ * fetch the new state, which is cheap with the ETags of the list endpoints.
+ */
+public record ChangeNotification(Type type, UUID raceId) {
+
+    public enum Type {
+        RACE_CREATED("race.created"),
+        RACE_UPDATED("race.updated"),
+        RACE_DELETED("race.deleted"),
+        APPLICATIONS_CHANGED("applications.changed");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        @JsonValue
+        public String eventName() {
+            return eventName;
+        }
+    }
+}
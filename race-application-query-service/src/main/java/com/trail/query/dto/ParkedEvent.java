@@ -0,0 +1,8 @@
+package com.trail.query.dto;
+
+/**
+ * An event waiting in the parking lot, with the error of its last attempt.
+ */
+public record ParkedEvent(String routingKey, int attempts, String exceptionType, String exceptionMessage,
+                          String parkedAt, String payload) {
+}
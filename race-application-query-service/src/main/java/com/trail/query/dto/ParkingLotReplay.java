@@ -0,0 +1,7 @@
+package com.trail.query.dto;
+
+/**
+ * Result of replaying parked events to their partitions.
+ */
+public record ParkingLotReplay(int replayed, long remaining) {
+}
@@ -0,0 +1,17 @@
+package com.trail.query.dto;
+
+import com.trail.query.entity.Race;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Applicant counts of one race, broken down by club. Applicants without a
+ * club are reported with a {@code null} club.
+ */
+public record RaceStatistics(UUID raceId, String name, Race.Distance distance, long applicants,
+                             List<ClubCount> clubs) {
+
+    public record ClubCount(String club, long applicants) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.trail.query.dto;
+
+import java.time.Instant;
+
+/**
+ * Progress of the current or last statistics rebuild. {@code chunksTotal}
+ * grows while the application table is still being split into chunks.
+ */
+public record RebuildStatus(State state, Instant startedAt, Instant finishedAt,
+                            int chunksCompleted, int chunksTotal,
+                            long applicationsScanned, long applicationsPerSecond, String error) {
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, FAILED
+    }
+}
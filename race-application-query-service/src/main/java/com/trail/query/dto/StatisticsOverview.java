@@ -0,0 +1,16 @@
+package com.trail.query.dto;
+
+import com.trail.query.entity.Race;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applicant counts across all races, per race and per distance.
+ */
+public record StatisticsOverview(long applicants, Map<Race.Distance, Long> byDistance, List<RaceCount> races) {
+
+    public record RaceCount(UUID raceId, String name, Race.Distance distance, long applicants) {
+    }
+}
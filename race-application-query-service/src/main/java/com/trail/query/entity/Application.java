@@ -2,18 +2,32 @@ package com.trail.query.entity;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.UUID;
 
+/**
+ * Read-model row of an application. Lists are served as
+ * {@link com.trail.query.dto.ApplicationSummary} projections; the entity is
+ * only loaded whole by the projection and the export. The race is lazy, and
+ * equality goes by id, so neither {@code hashCode} nor {@code toString}
+ * touches it.
+ */
 @Entity
-@Data
-@Table(name = "application")
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Table(name = "application", indexes = @Index(name = "idx_application_race_id_id", columnList = "race_id, id"))
 @NoArgsConstructor
 @AllArgsConstructor
 public class Application {
     @Id
+    @EqualsAndHashCode.Include
     private UUID id;
 
     @Column(nullable = false, length = 255)
@@ -25,7 +39,8 @@ public class Application {
     @Column(length = 255)
     private String club;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "race_id", nullable = false)
     private Race race;
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.trail.query.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An application as counted by the statistics. Unlike the application
+ * table, which the command service writes long before the event arrives,
+ * only the projection writes this one, so the statistics always equal its
+ * live rows and a rebuild recounts exactly what the events have applied.
+ *
+ * <p>A deletion leaves a tombstone, so a creation that arrives after its
+ * deletion, e.g. back from a delay queue, is not counted.
+ */
+@Entity
+@Data
+@Table(name = "counted_application", indexes = @Index(name = "idx_counted_application_applied_at", columnList = "applied_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountedApplication {
+    @Id
+    private UUID id;
+
+    // Unknown for tombstones of deletions published before events carried the race
+    @Column(name = "race_id")
+    private UUID raceId;
+
+    private String club;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Column(name = "applied_at", nullable = false)
+    private Instant appliedAt;
+}
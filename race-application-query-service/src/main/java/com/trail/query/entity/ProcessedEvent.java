@@ -0,0 +1,32 @@
+package com.trail.query.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Message id of an application event already applied to the statistics.
+ * Inserted in the same transaction as the event's writes, so a redelivered
+ * event is recognised even though the command service writes the same
+ * application table.
+ */
+@Entity
+@Data
+@Table(name = "processed_event", indexes = @Index(name = "idx_processed_event_processed_at", columnList = "processed_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedEvent {
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+}
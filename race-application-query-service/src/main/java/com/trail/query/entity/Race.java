@@ -1,18 +1,25 @@
 package com.trail.query.entity;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import jakarta.persistence.*;
 import java.util.UUID;
 
 @Entity
-@Data
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Race {
     @Id
+    @EqualsAndHashCode.Include
     private UUID id;
 
     @Column(nullable = false, length = 255)
@@ -22,6 +29,9 @@ public class Race {
     @Column(nullable = false)
     private Distance distance;
 
+    // Maximum number of applications; null means the race is not capped
+    private Integer capacity;
+
     public enum Distance {
         FiveK, TenK, HalfMarathon, Marathon
     }
@@ -0,0 +1,46 @@
+package com.trail.query.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Applicant count of one club in one race, maintained by the event listener.
+ * Applicants without a club are counted under an empty club name, since a
+ * key column can't be null.
+ */
+@Entity
+@Data
+@Table(name = "race_club_stats")
+@NoArgsConstructor
+@AllArgsConstructor
+public class RaceClubStats {
+
+    public static final String NO_CLUB = "";
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(nullable = false)
+    private long applicants;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "race_id")
+        private UUID raceId;
+
+        @Column(length = 255)
+        private String club;
+    }
+}
@@ -0,0 +1,28 @@
+package com.trail.query.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Applicant count of one race, maintained by the event listener.
+ */
+@Entity
+@Data
+@Table(name = "race_stats")
+@NoArgsConstructor
+@AllArgsConstructor
+public class RaceStats {
+    @Id
+    @Column(name = "race_id")
+    private UUID raceId;
+
+    @Column(nullable = false)
+    private long applicants;
+}
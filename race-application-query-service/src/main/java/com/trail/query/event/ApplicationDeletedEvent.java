@@ -11,4 +11,6 @@ import java.util.UUID;
 @AllArgsConstructor
 public class ApplicationDeletedEvent {
     private UUID id;
+    private UUID raceId;
+    private String club;
 }
\ No newline at end of file
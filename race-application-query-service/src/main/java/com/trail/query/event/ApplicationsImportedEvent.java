@@ -0,0 +1,14 @@
+package com.trail.query.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplicationsImportedEvent {
+    private List<ApplicationCreatedEvent> applications;
+}
@@ -13,5 +13,6 @@ public class RaceCreatedEvent {
     private UUID id;
     private String name;
     private String distance;
+    private Integer capacity;
 }
 
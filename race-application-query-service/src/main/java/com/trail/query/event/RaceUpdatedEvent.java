@@ -13,4 +13,5 @@ public class RaceUpdatedEvent {
     private UUID id;
     private String name;
     private String distance;
+    private Integer capacity;
 }
\ No newline at end of file
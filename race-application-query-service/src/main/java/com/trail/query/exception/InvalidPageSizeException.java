@@ -0,0 +1,12 @@
+package com.trail.query.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageSizeException extends RuntimeException {
+
+    public InvalidPageSizeException(int limit, int maxLimit) {
+        super("limit must be between 1 and " + maxLimit + ", was " + limit);
+    }
+}
@@ -0,0 +1,12 @@
+package com.trail.query.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class RebuildInProgressException extends RuntimeException {
+
+    public RebuildInProgressException() {
+        super("A statistics rebuild is already running");
+    }
+}
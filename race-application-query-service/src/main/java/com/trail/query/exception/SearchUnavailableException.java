@@ -0,0 +1,12 @@
+package com.trail.query.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchUnavailableException extends RuntimeException {
+
+    public SearchUnavailableException() {
+        super("Applicant search is still being indexed, try again shortly");
+    }
+}
@@ -0,0 +1,450 @@
+package com.trail.query.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.query.dto.ChangeNotification;
+import com.trail.query.exception.ChangeFeedFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes {@link ChangeNotification}s from {@code ViewUpdateListener} to
+ * clients subscribed through server-sent events.
+ *
+ * <p>Subscribers are async requests, so an idle connection holds no thread.
+ * A change is encoded once and the same frame is queued for every
+ * subscriber. Each subscriber has its own queue of at most
+ * {@code feed.subscriber-buffer} frames, written by one of
+ * {@code feed.dispatch-threads} sender threads, one subscriber at a time
+ * and a few frames per turn. A client that falls behind is dropped as soon
+ * as its queue is full, and reconnects with {@code Last-Event-ID} once it
+ * reads again.
+ *
+ * <p>A write blocks while the client doesn't read, until the container's
+ * write timeout ({@code server.tomcat.connection-timeout}). A write still
+ * running after {@code feed.write-stall-ms} drops its client, and a spare
+ * sender thread, at most {@code feed.max-spare-senders} of them, stands in
+ * for the blocked one until the write returns. Clients that never read
+ * therefore don't hold up the others.
+ *
+ * <p>Every change gets an id of the form {@code <epoch>-<sequence>}. The last
+ * {@code feed.history-size} changes are kept, so a client that reconnects
+ * with {@code Last-Event-ID} first gets the changes it missed. If they are no
+ * longer kept, or the id comes from another process, it gets a {@code reset}
+ * event and should fetch the lists again. A new subscription starts with a
+ * {@code subscribed} event carrying the current id.
+ */
+@Component
+@Slf4j
+public class ChangeFeed implements DisposableBean {
+
+    static final String SUBSCRIBED = "subscribed";
+    static final String RESET = "reset";
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+
+    // Frames written per turn before a sender moves on to the next subscriber
+    private static final int FRAMES_PER_TURN = 16;
+
+    // Changes from another process never match and lead to a reset
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ObjectMapper objectMapper;
+    private final int historySize;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long writeStallNanos;
+    private final int maxSpareSenders;
+    private final ThreadPoolExecutor senders;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Subscribers with a write in progress, including dropped ones whose write still blocks
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter stalled;
+
+    // Guarded by itself. Spare threads added to senders for writes that stalled
+    private final Object spareSenders = new Object();
+    private int spareSenderCount;
+
+    // Guarded by this. Changes are appended and queued for the subscribers
+    // under the same lock as a subscription takes its replay, so the replay
+    // and the live changes after it neither overlap nor leave a gap.
+    private final ArrayDeque<Change> history = new ArrayDeque<>();
+    private long sequence;
+
+    @Autowired
+    public ChangeFeed(ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${feed.history-size:10000}") int historySize,
+                      @Value("${feed.timeout-minutes:30}") long timeoutMinutes,
+                      @Value("${feed.max-subscribers:50000}") int maxSubscribers,
+                      @Value("${feed.dispatch-threads:4}") int dispatchThreads,
+                      @Value("${feed.subscriber-buffer:256}") int bufferSize,
+                      @Value("${feed.write-stall-ms:1000}") long writeStallMs,
+                      @Value("${feed.max-spare-senders:64}") int maxSpareSenders) {
+        this(objectMapper, meterRegistry, historySize, timeoutMinutes, maxSubscribers, bufferSize,
+                writeStallMs, maxSpareSenders, senders(dispatchThreads));
+    }
+
+    ChangeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry, int historySize, long timeoutMinutes,
+               int maxSubscribers, int bufferSize, long writeStallMs, int maxSpareSenders,
+               ThreadPoolExecutor senders) {
+        this.objectMapper = objectMapper;
+        this.historySize = Math.max(1, historySize);
+        this.timeoutMs = Duration.ofMinutes(timeoutMinutes).toMillis();
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.writeStallNanos = TimeUnit.MILLISECONDS.toNanos(writeStallMs);
+        this.maxSpareSenders = Math.max(0, maxSpareSenders);
+        this.senders = senders;
+        this.published = Counter.builder("feed.changes.published")
+                .description("Changes pushed to the change feed")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("feed.subscribers.dropped")
+                .description("Subscribers dropped because they read too slowly")
+                .register(meterRegistry);
+        this.stalled = Counter.builder("feed.writes.stalled")
+                .description("Writes to subscribers that blocked longer than feed.write-stall-ms")
+                .register(meterRegistry);
+        Gauge.builder("feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Clients subscribed to the change feed")
+                .register(meterRegistry);
+    }
+
+    public void publish(ChangeNotification.Type type, UUID raceId) {
+        String data = serialize(new ChangeNotification(type, raceId));
+        synchronized (this) {
+            sequence++;
+            Set<DataWithMediaType> frame = frame(type.eventName(), data);
+            history.addLast(new Change(sequence, frame));
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            broadcast(frame);
+        }
+        published.increment();
+    }
+
+    /**
+     * Subscribes a client, replaying the changes after {@code lastEventId}
+     * when it is given and still known.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ChangeFeedFullException(maxSubscribers);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber;
+        synchronized (this) {
+            // The replay may be longer than the buffer; only live changes count against it
+            List<Set<DataWithMediaType>> replay = replay(lastEventId);
+            subscriber = new Subscriber(emitter, replay, replay.size() + bufferSize);
+            subscribers.add(subscriber);
+        }
+        // The client reconnects with its Last-Event-ID
+        emitter.onTimeout(emitter::complete);
+        // Runs after a timeout or network error as well
+        emitter.onCompletion(() -> remove(subscriber));
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Sends a comment to every subscriber, which keeps proxies from closing
+     * idle connections and finds clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        broadcast(HEARTBEAT);
+    }
+
+    /**
+     * Drops the clients whose write has blocked for too long and adds a spare
+     * sender thread for each, until the write returns.
+     */
+    @Scheduled(fixedDelayString = "${feed.write-stall-ms:1000}")
+    public void checkStalledWrites() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : writing) {
+            if (subscriber.stalled(now)) {
+                stalled.increment();
+                if (subscribers.contains(subscriber)) {
+                    log.debug("Dropping change feed subscriber whose write blocked for {} ms",
+                            TimeUnit.NANOSECONDS.toMillis(writeStallNanos));
+                    dropped.increment();
+                    subscriber.close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(Subscriber::close);
+        senders.shutdown();
+    }
+
+    private void broadcast(Set<DataWithMediaType> frame) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.offer(frame)) {
+                log.debug("Dropping change feed subscriber that fell {} frames behind", bufferSize);
+                dropped.increment();
+                subscriber.close();
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private boolean addSpareSender() {
+        synchronized (spareSenders) {
+            if (spareSenderCount >= maxSpareSenders) {
+                return false;
+            }
+            spareSenderCount++;
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + 1);
+            senders.setCorePoolSize(senders.getCorePoolSize() + 1);
+            return true;
+        }
+    }
+
+    // The surplus thread ends once it is idle
+    private void removeSpareSender() {
+        synchronized (spareSenders) {
+            spareSenderCount--;
+            senders.setCorePoolSize(senders.getCorePoolSize() - 1);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() - 1);
+        }
+    }
+
+    static ThreadPoolExecutor senders(int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-feed-");
+        threadFactory.setDaemon(true);
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    // Caller holds the lock
+    private List<Set<DataWithMediaType>> replay(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of(frame(SUBSCRIBED, "{}"));
+        }
+        long since = parseSequence(lastEventId);
+        long oldest = history.isEmpty() ? sequence + 1 : history.peekFirst().sequence();
+        if (since < oldest - 1 || since > sequence) {
+            return List.of(frame(RESET, "{}"));
+        }
+        List<Set<DataWithMediaType>> missed = new ArrayList<>();
+        for (Change change : history) {
+            if (change.sequence() > since) {
+                missed.add(change.frame());
+            }
+        }
+        return missed;
+    }
+
+    // -1, which is always out of range, for ids of another process or malformed ones
+    private long parseSequence(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Caller holds the lock
+    private Set<DataWithMediaType> frame(String name, String data) {
+        return SseEmitter.event().id(epoch + "-" + sequence).name(name).data(data).build();
+    }
+
+    private String serialize(ChangeNotification notification) {
+        try {
+            return objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change notification", e);
+        }
+    }
+
+    private record Change(long sequence, Set<DataWithMediaType> frame) {
+    }
+
+    /**
+     * A client and the frames not yet written to it. The queue is bounded;
+     * at most one sender drains it at a time, so frames go out in order.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final int limit;
+        // Guarded by this
+        private final ArrayDeque<Set<DataWithMediaType>> queue;
+        private boolean scheduled;
+        private boolean closed;
+        private boolean completed;
+        // When the write in progress started
+        private long writingSince;
+        private boolean writeStalled;
+        private boolean spareSender;
+
+        Subscriber(SseEmitter emitter, List<Set<DataWithMediaType>> replay, int limit) {
+            this.emitter = emitter;
+            this.limit = limit;
+            this.queue = new ArrayDeque<>(replay);
+        }
+
+        /**
+         * Queues a frame, or returns false if the queue is full.
+         */
+        boolean offer(Set<DataWithMediaType> frame) {
+            synchronized (this) {
+                if (closed) {
+                    return true;
+                }
+                if (queue.size() >= limit) {
+                    return false;
+                }
+                queue.addLast(frame);
+            }
+            schedule();
+            return true;
+        }
+
+        /**
+         * Stops sending and completes the stream. The emitter is completed by
+         * the sender, after any write in progress, so the caller never waits
+         * for a slow client.
+         */
+        void close() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            remove(this);
+            schedule();
+        }
+
+        void schedule() {
+            synchronized (this) {
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+
+        private void drain() {
+            for (int sent = 0; sent < FRAMES_PER_TURN; sent++) {
+                Set<DataWithMediaType> frame;
+                boolean complete;
+                synchronized (this) {
+                    complete = closed && !completed;
+                    completed |= complete;
+                    frame = closed ? null : queue.pollFirst();
+                    if (frame == null) {
+                        scheduled = false;
+                    }
+                }
+                if (complete) {
+                    emitter.complete();
+                }
+                if (frame == null) {
+                    return;
+                }
+                if (!send(frame)) {
+                    synchronized (this) {
+                        closed = true;
+                        completed = true;
+                        queue.clear();
+                        scheduled = false;
+                    }
+                    remove(this);
+                    return;
+                }
+            }
+            // Let the other subscribers have a turn
+            synchronized (this) {
+                scheduled = false;
+            }
+            schedule();
+        }
+
+        /**
+         * Whether the write in progress has blocked for too long. Reports each
+         * write once and takes a spare sender for it, if there is one left.
+         */
+        synchronized boolean stalled(long now) {
+            if (!writing.contains(this) || writeStalled || now - writingSince < writeStallNanos) {
+                return false;
+            }
+            writeStalled = true;
+            spareSender = addSpareSender();
+            return true;
+        }
+
+        // The container reports a failed write to the emitter's completion callback
+        private boolean send(Set<DataWithMediaType> frame) {
+            synchronized (this) {
+                writingSince = System.nanoTime();
+                writing.add(this);
+            }
+            try {
+                emitter.send(frame);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping change feed subscriber: {}", e.getMessage());
+                return false;
+            } finally {
+                boolean returnSpare;
+                synchronized (this) {
+                    writing.remove(this);
+                    writeStalled = false;
+                    returnSpare = spareSender;
+                    spareSender = false;
+                }
+                if (returnSpare) {
+                    removeSpareSender();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.trail.query.listener;
+
+import com.trail.query.config.RabbitMQConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Takes events the listener could not apply off their partition so they no
+ * longer block the events behind them.
+ *
+ * <p>A failed event is republished to the {@code race.retry} headers
+ * exchange with its original routing key and {@value #RETRY_LEVEL_HEADER}
+ * set to its attempt number. Each attempt has its own delay queue
+ * ({@code race.retry.<n>}) whose TTL grows exponentially; when it expires
+ * the broker dead-letters the event back to {@code race.exchange}, and so to
+ * its partition. After {@code rabbitmq.retry.max-attempts} the event is
+ * parked in {@code race.parking-lot} together with the last error, where it
+ * stays until it is replayed through the admin API.
+ *
+ * <p>Both wait for the broker to confirm the copy. If it is nacked, returned
+ * as unroutable or not confirmed within {@code rabbitmq.retry.confirm-timeout-ms},
+ * an {@link AmqpException} is thrown, so the original is not acknowledged
+ * and its batch is retried by the container instead.
+ */
+@Component
+@Slf4j
+public class FailedEventRouter {
+
+    public static final String RETRY_LEVEL_HEADER = "x-retry-level";
+    public static final String ORIGINAL_ROUTING_KEY_HEADER = "x-original-routing-key";
+    public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    public static final String PARKED_AT_HEADER = "x-parked-at";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final int maxAttempts;
+    private final long initialIntervalMs;
+    private final double multiplier;
+    private final long maxIntervalMs;
+    private final long confirmTimeoutMs;
+    private final Counter retried;
+    private final Counter parked;
+
+    public FailedEventRouter(RabbitTemplate rabbitTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${rabbitmq.retry.max-attempts:5}") int maxAttempts,
+                             @Value("${rabbitmq.retry.initial-interval-ms:1000}") long initialIntervalMs,
+                             @Value("${rabbitmq.retry.multiplier:2.0}") double multiplier,
+                             @Value("${rabbitmq.retry.max-interval-ms:60000}") long maxIntervalMs,
+                             @Value("${rabbitmq.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.maxAttempts = Math.max(0, maxAttempts);
+        this.initialIntervalMs = Math.max(1, initialIntervalMs);
+        this.multiplier = Math.max(1.0, multiplier);
+        this.maxIntervalMs = Math.max(this.initialIntervalMs, maxIntervalMs);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.retried = Counter.builder("projection.events.retried")
+                .description("Events sent to a delay queue after the listener failed to apply them")
+                .register(meterRegistry);
+        this.parked = Counter.builder("projection.events.parked")
+                .description("Events moved to the parking lot after their last retry failed")
+                .register(meterRegistry);
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Delay before the given retry attempt, starting at 1.
+     */
+    public long delayMs(int attempt) {
+        double delay = initialIntervalMs * Math.pow(multiplier, attempt - 1);
+        return (long) Math.min(delay, maxIntervalMs);
+    }
+
+    /**
+     * Schedules another attempt, or parks the event once its attempts are used up.
+     */
+    public void retry(Message message, Exception cause) {
+        int attempt = attempts(message) + 1;
+        if (attempt > maxAttempts) {
+            park(message, cause);
+            return;
+        }
+        String routingKey = message.getMessageProperties().getReceivedRoutingKey();
+        log.warn("Applying {} event failed, retrying in {} ms (attempt {} of {})",
+                routingKey, delayMs(attempt), attempt, maxAttempts, cause);
+        sendConfirmed(RabbitMQConfig.RETRY_EXCHANGE, routingKey, MessageBuilder.fromClonedMessage(message)
+                .setHeader(RETRY_LEVEL_HEADER, String.valueOf(attempt))
+                .build());
+        retried.increment();
+    }
+
+    /**
+     * Parks the event without further attempts, for events no retry can fix
+     * such as unreadable payloads.
+     */
+    public void park(Message message, Exception cause) {
+        String routingKey = message.getMessageProperties().getReceivedRoutingKey();
+        log.error("Parking {} event after {} attempts", routingKey, attempts(message), cause);
+        sendConfirmed("", RabbitMQConfig.PARKING_LOT_QUEUE, MessageBuilder.fromClonedMessage(message)
+                .setHeader(ORIGINAL_ROUTING_KEY_HEADER, routingKey)
+                .setHeader(EXCEPTION_TYPE_HEADER, cause.getClass().getName())
+                .setHeader(EXCEPTION_MESSAGE_HEADER, String.valueOf(cause.getMessage()))
+                .setHeader(PARKED_AT_HEADER, Instant.now().toString())
+                .build());
+        parked.increment();
+    }
+
+    /**
+     * Sends the message and waits for the broker to confirm it.
+     *
+     * @throws AmqpException if it is nacked, returned as unroutable or not
+     *                       confirmed in time
+     */
+    public void sendConfirmed(String exchange, String routingKey, Message message) {
+        CorrelationData correlation = new CorrelationData();
+        rabbitTemplate.send(exchange, routingKey, message, correlation);
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AmqpTimeoutException("Broker did not confirm " + routingKey + " event within "
+                    + confirmTimeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for the broker to confirm " + routingKey + " event", e);
+        } catch (ExecutionException e) {
+            throw new AmqpException("Confirming " + routingKey + " event failed", e.getCause());
+        }
+        if (!confirm.isAck()) {
+            throw new AmqpException("Broker nacked " + routingKey + " event: " + confirm.getReason());
+        }
+        if (correlation.getReturned() != null) {
+            throw new AmqpException("Broker returned " + routingKey + " event as unroutable: "
+                    + correlation.getReturned().getReplyText());
+        }
+    }
+
+    /**
+     * Retries already made for an event: the level of the delay queue it came back from.
+     */
+    public static int attempts(Message message) {
+        Object level = message.getMessageProperties().getHeaders().get(RETRY_LEVEL_HEADER);
+        return level == null ? 0 : Integer.parseInt(level.toString());
+    }
+}
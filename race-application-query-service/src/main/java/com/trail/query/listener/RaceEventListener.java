@@ -1,59 +1,179 @@
 package com.trail.query.listener;
 
-import com.trail.query.entity.Application;
-import com.trail.query.entity.Race;
-import com.trail.query.entity.Race.Distance;
-import com.trail.query.event.*;
-import com.trail.query.repository.ApplicationRepository;
-import com.trail.query.repository.RaceRepository;
+import com.trail.query.config.RabbitMQConfig;
+import com.trail.query.event.ApplicationCreatedEvent;
+import com.trail.query.event.ApplicationDeletedEvent;
+import com.trail.query.event.RaceCreatedEvent;
+import com.trail.query.event.RaceDeletedEvent;
+import com.trail.query.event.RaceUpdatedEvent;
+import com.trail.query.listener.RaceEventReader.Delivery;
+import com.trail.query.listener.RaceEventReader.Kind;
+import com.trail.query.monitoring.ProjectionLag;
+import com.trail.query.projection.ProjectionService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the events of the command service to the read model.
+ *
+ * <p>Events arrive on partition queues ({@code race.partition.<n>}), each
+ * consumed by a single consumer, and all events of a race share a partition.
+ * A batch is applied strictly in queue order; only consecutive application
+ * events of the same kind are merged into one write. An event that fails is
+ * handed to the {@link FailedEventRouter} and the rest of the batch goes on.
+ * The batch is acknowledged once every event in it has been applied or
+ * rerouted, and redelivered as a whole otherwise, which is safe because
+ * every handler is idempotent: application events are recognised by their
+ * message id.
+ *
+ * <p>Only the instance that owns a partition sees its events, so every
+ * applied event is passed on to the {@code race.views} exchange, from where
+ * the {@link ViewUpdateListener} of each instance updates its in-memory
+ * views. Passing it on after the write means no instance refreshes a view
+ * from a database that does not have the change yet.
+ */
 @Component
 @RequiredArgsConstructor
-public class RaceEventListener {
+@Slf4j
+public class RaceEventListener implements BatchMessageListener {
+
+    private final ProjectionService projectionService;
+    private final RaceEventReader reader;
+    private final FailedEventRouter failedEventRouter;
+    private final ProjectionLag projectionLag;
+    private final RabbitTemplate rabbitTemplate;
 
-    private final RaceRepository raceRepository;
-    private final ApplicationRepository applicationRepository;
+    @Override
+    public void onMessageBatch(List<Message> messages) {
+        List<Delivery> group = new ArrayList<>();
+        for (Message message : messages) {
+            projectionLag.received(message);
+            Delivery delivery = read(message);
+            if (delivery == null) {
+                continue;
+            }
+            if (!group.isEmpty() && (delivery.kind() != group.get(0).kind() || delivery.kind() == Kind.RACE)) {
+                apply(group);
+                group = new ArrayList<>();
+            }
+            group.add(delivery);
+        }
+        if (!group.isEmpty()) {
+            apply(group);
+        }
+    }
 
-    @RabbitListener(queues = "application.deleted.queue")
-    public void handleApplicationDeleted(ApplicationDeletedEvent event) {
-        applicationRepository.deleteById(event.getId());
+    /**
+     * Applies a group of events with one write. If that fails, the events are
+     * applied one by one so only the failing event goes to a delay queue.
+     * Errors that would fail every event, such as a lost database connection,
+     * are rethrown: the container retries the batch with backoff instead.
+     */
+    private void apply(List<Delivery> group) {
+        try {
+            dispatch(group);
+            for (Delivery delivery : group) {
+                projectionLag.applied(delivery.message());
+                broadcast(delivery.message());
+            }
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            if (group.size() == 1) {
+                failedEventRouter.retry(group.get(0).message(), e);
+            } else {
+                group.forEach(delivery -> apply(List.of(delivery)));
+            }
+        }
+    }
+
+    private void dispatch(List<Delivery> group) {
+        switch (group.get(0).kind()) {
+            case APPLICATIONS_CREATED -> handleApplicationsCreated(group.stream()
+                    .collect(Collectors.toMap(Delivery::eventId, Delivery::applicationsCreated,
+                            (first, redelivered) -> first, LinkedHashMap::new)));
+            case APPLICATIONS_DELETED -> handleApplicationsDeleted(group.stream()
+                    .collect(Collectors.toMap(Delivery::eventId, delivery -> (ApplicationDeletedEvent) delivery.event(),
+                            (first, redelivered) -> first, LinkedHashMap::new)));
+            case RACE -> {
+                Object event = group.get(0).event();
+                if (event instanceof RaceCreatedEvent created) {
+                    handleRaceCreated(created);
+                } else if (event instanceof RaceUpdatedEvent updated) {
+                    handleRaceUpdated(updated);
+                } else {
+                    handleRaceDeleted((RaceDeletedEvent) event);
+                }
+            }
+        }
+    }
+
+    public void handleApplicationsDeleted(Map<String, ApplicationDeletedEvent> eventsById) {
+        projectionService.applyApplicationsDeleted(eventsById);
     }
 
-    @RabbitListener(queues = "race.created.queue")
     public void handleRaceCreated(RaceCreatedEvent event) {
-        Race race = new Race();
-        race.setId(event.getId());
-        race.setName(event.getName());
-        race.setDistance(Distance.valueOf(event.getDistance()));
-        raceRepository.save(race);
+        projectionService.applyRaceCreated(event);
     }
 
-    @RabbitListener(queues = "race.deleted.queue")
     public void handleRaceDeleted(RaceDeletedEvent event) {
-        raceRepository.deleteById(event.getId());
+        projectionService.applyRaceDeleted(event.getId());
     }
 
-    @RabbitListener(queues = "race.updated.queue")
     public void handleRaceUpdated(RaceUpdatedEvent event) {
-        Race race = raceRepository.findById(event.getId()).orElse(null);
-        if (race != null) {
-            race.setName(event.getName());
-            race.setDistance(Distance.valueOf(event.getDistance()));
-            raceRepository.save(race);
+        projectionService.applyRaceUpdated(event);
+    }
+
+    public void handleApplicationsCreated(Map<String, List<ApplicationCreatedEvent>> eventsById) {
+        projectionService.applyApplicationsCreated(eventsById);
+    }
+
+    // Keeps the partition's routing key, which the view listener reads the event type from
+    private void broadcast(Message message) {
+        rabbitTemplate.send(RabbitMQConfig.VIEW_EXCHANGE, message.getMessageProperties().getReceivedRoutingKey(),
+                MessageBuilder.fromClonedMessage(message).build());
+    }
+
+    /**
+     * Reads the event of a message, or parks the message if it can't be read.
+     */
+    private Delivery read(Message message) {
+        try {
+            Delivery delivery = reader.read(message);
+            if (delivery == null) {
+                log.warn("Ignoring message with unknown routing key {}",
+                        message.getMessageProperties().getReceivedRoutingKey());
+            }
+            return delivery;
+        } catch (IOException e) {
+            failedEventRouter.park(message, e);
+            return null;
         }
     }
 
-    @RabbitListener(queues = "application.created.queue")
-    public void handleApplicationCreated(ApplicationCreatedEvent event) {
-        Application application = new Application();
-        application.setId(event.getId());
-        application.setFirstName(event.getFirstName());
-        application.setLastName(event.getLastName());
-        application.setClub(event.getClub());
-        application.setRace(event.getRace());
-        applicationRepository.save(application);
+    static boolean isTransient(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof AmqpException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.trail.query.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.query.event.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maps the routing key of an event message to its event type and reads the
+ * payload. Shared by the listener that applies events to the database and
+ * the one that applies them to this instance's in-memory views.
+ */
+@Component
+class RaceEventReader {
+
+    private final ObjectMapper objectMapper;
+    private final String routingKeyCreated;
+    private final String routingKeyUpdated;
+    private final String routingKeyDeleted;
+    private final String routingKeyApplicationCreated;
+    private final String routingKeyApplicationImported;
+    private final String routingKeyApplicationDeleted;
+
+    RaceEventReader(ObjectMapper objectMapper,
+                    @Value("${rabbitmq.routing-key-created}") String routingKeyCreated,
+                    @Value("${rabbitmq.routing-key-updated}") String routingKeyUpdated,
+                    @Value("${rabbitmq.routing-key-deleted}") String routingKeyDeleted,
+                    @Value("${rabbitmq.routing-key-application-created}") String routingKeyApplicationCreated,
+                    @Value("${rabbitmq.routing-key-application-imported}") String routingKeyApplicationImported,
+                    @Value("${rabbitmq.routing-key-application-deleted}") String routingKeyApplicationDeleted) {
+        this.objectMapper = objectMapper;
+        this.routingKeyCreated = routingKeyCreated;
+        this.routingKeyUpdated = routingKeyUpdated;
+        this.routingKeyDeleted = routingKeyDeleted;
+        this.routingKeyApplicationCreated = routingKeyApplicationCreated;
+        this.routingKeyApplicationImported = routingKeyApplicationImported;
+        this.routingKeyApplicationDeleted = routingKeyApplicationDeleted;
+    }
+
+    /**
+     * Reads the event of a message, or returns null for an unknown routing key.
+     *
+     * @throws IOException if the payload can't be read
+     */
+    Delivery read(Message message) throws IOException {
+        String key = eventKey(message);
+        Class<?> type;
+        Kind kind;
+        if (key.equals(routingKeyApplicationCreated)) {
+            type = ApplicationCreatedEvent.class;
+            kind = Kind.APPLICATIONS_CREATED;
+        } else if (key.equals(routingKeyApplicationImported)) {
+            type = ApplicationsImportedEvent.class;
+            kind = Kind.APPLICATIONS_CREATED;
+        } else if (key.equals(routingKeyApplicationDeleted)) {
+            type = ApplicationDeletedEvent.class;
+            kind = Kind.APPLICATIONS_DELETED;
+        } else if (key.equals(routingKeyCreated)) {
+            type = RaceCreatedEvent.class;
+            kind = Kind.RACE;
+        } else if (key.equals(routingKeyUpdated)) {
+            type = RaceUpdatedEvent.class;
+            kind = Kind.RACE;
+        } else if (key.equals(routingKeyDeleted)) {
+            type = RaceDeletedEvent.class;
+            kind = Kind.RACE;
+        } else {
+            return null;
+        }
+        return new Delivery(message, eventId(message), kind, objectMapper.readValue(message.getBody(), type));
+    }
+
+    // p3.race.updated -> race.updated
+    private static String eventKey(Message message) {
+        String routingKey = message.getMessageProperties().getReceivedRoutingKey();
+        return routingKey.substring(routingKey.indexOf('.') + 1);
+    }
+
+    // Messages published by hand may lack an id; they cannot be recognised when redelivered
+    private static String eventId(Message message) {
+        String messageId = message.getMessageProperties().getMessageId();
+        return messageId != null ? messageId : "anonymous-" + UUID.randomUUID();
+    }
+
+    enum Kind {
+        APPLICATIONS_CREATED, APPLICATIONS_DELETED, RACE
+    }
+
+    record Delivery(Message message, String eventId, Kind kind, Object event) {
+
+        List<ApplicationCreatedEvent> applicationsCreated() {
+            return event instanceof ApplicationsImportedEvent imported
+                    ? imported.getApplications()
+                    : List.of((ApplicationCreatedEvent) event);
+        }
+    }
+}
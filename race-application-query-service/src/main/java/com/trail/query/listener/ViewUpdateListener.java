@@ -0,0 +1,154 @@
+package com.trail.query.listener;
+
+import com.trail.query.cache.ApplicationCache;
+import com.trail.query.cache.ResponseBodyCache;
+import com.trail.query.catalog.RaceCatalog;
+import com.trail.query.dto.ChangeNotification;
+import com.trail.query.entity.Race;
+import com.trail.query.event.*;
+import com.trail.query.feed.ChangeFeed;
+import com.trail.query.listener.RaceEventReader.Delivery;
+import com.trail.query.projection.ProjectionVersions;
+import com.trail.query.search.Applicant;
+import com.trail.query.search.ApplicantSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Applies events to the in-memory views of this instance: the race catalog,
+ * the application cache, the search index, the projection versions, the
+ * cached response bodies and the change feed.
+ *
+ * <p>Events come from this instance's own queue on the {@code race.views}
+ * exchange, to which {@link RaceEventListener} passes every event once it is
+ * in the database, whichever instance owns the partition. The views are
+ * updated from the event payloads alone. A view that can't be updated is
+ * logged and skipped rather than retried: the database already has the
+ * change, and the view catches up on the next change or restart.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ViewUpdateListener implements BatchMessageListener {
+
+    private final RaceEventReader reader;
+    private final RaceCatalog raceCatalog;
+    private final ApplicationCache applicationCache;
+    private final ProjectionVersions projectionVersions;
+    private final ApplicantSearchIndex searchIndex;
+    private final ResponseBodyCache responseBodyCache;
+    private final ChangeFeed changeFeed;
+
+    @Override
+    public void onMessageBatch(List<Message> messages) {
+        // One notification per race and batch, however many applications it held
+        Set<UUID> changedRaces = new LinkedHashSet<>();
+        List<Applicant> added = new ArrayList<>();
+        for (Message message : messages) {
+            Delivery delivery = read(message);
+            if (delivery == null) {
+                continue;
+            }
+            try {
+                switch (delivery.kind()) {
+                    case APPLICATIONS_CREATED -> delivery.applicationsCreated().forEach(event -> {
+                        added.add(Applicant.of(event));
+                        changedRaces.add(event.getRace().getId());
+                    });
+                    case APPLICATIONS_DELETED -> {
+                        // A removal must not run ahead of the addition it undoes
+                        flushAdded(added);
+                        ApplicationDeletedEvent event = (ApplicationDeletedEvent) delivery.event();
+                        applicationCache.invalidate(event.getId());
+                        searchIndex.remove(event.getId());
+                        if (event.getRaceId() != null) {
+                            changedRaces.add(event.getRaceId());
+                        }
+                    }
+                    case RACE -> {
+                        flushAdded(added);
+                        flushChangedRaces(changedRaces);
+                        applyRaceEvent(delivery.event());
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Could not update views for {} event",
+                        message.getMessageProperties().getReceivedRoutingKey(), e);
+            }
+        }
+        try {
+            flushAdded(added);
+            flushChangedRaces(changedRaces);
+        } catch (RuntimeException e) {
+            log.error("Could not update views for applications of races {}", changedRaces, e);
+        }
+    }
+
+    private void applyRaceEvent(Object event) {
+        if (event instanceof RaceCreatedEvent created) {
+            raceCatalog.put(race(created.getId(), created.getName(), created.getDistance(), created.getCapacity()));
+            raceChanged(created.getId(), ChangeNotification.Type.RACE_CREATED);
+        } else if (event instanceof RaceUpdatedEvent updated) {
+            // The projection ignores updates of races it doesn't have
+            if (raceCatalog.findById(updated.getId()).isEmpty()) {
+                return;
+            }
+            raceCatalog.put(race(updated.getId(), updated.getName(), updated.getDistance(), updated.getCapacity()));
+            raceChanged(updated.getId(), ChangeNotification.Type.RACE_UPDATED);
+        } else {
+            UUID raceId = ((RaceDeletedEvent) event).getId();
+            raceCatalog.remove(raceId);
+            applicationCache.invalidateRace(raceId);
+            searchIndex.removeRace(raceId);
+            responseBodyCache.invalidate(ResponseBodyCache.raceApplications(raceId));
+            raceChanged(raceId, ChangeNotification.Type.RACE_DELETED);
+        }
+    }
+
+    private void raceChanged(UUID raceId, ChangeNotification.Type type) {
+        projectionVersions.raceChanged(raceId);
+        responseBodyCache.invalidate(ResponseBodyCache.RACES);
+        changeFeed.publish(type, raceId);
+    }
+
+    private void flushAdded(List<Applicant> added) {
+        if (!added.isEmpty()) {
+            searchIndex.addAll(List.copyOf(added));
+            added.clear();
+        }
+    }
+
+    private void flushChangedRaces(Set<UUID> changedRaces) {
+        for (UUID raceId : changedRaces) {
+            projectionVersions.raceApplicationsChanged(raceId);
+            responseBodyCache.invalidate(ResponseBodyCache.raceApplications(raceId));
+            changeFeed.publish(ChangeNotification.Type.APPLICATIONS_CHANGED, raceId);
+        }
+        changedRaces.clear();
+    }
+
+    // The owner of the partition parks what it can't read, so it is only skipped here
+    private Delivery read(Message message) {
+        try {
+            return reader.read(message);
+        } catch (IOException e) {
+            log.warn("Skipping unreadable {} event: {}",
+                    message.getMessageProperties().getReceivedRoutingKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Race race(UUID id, String name, String distance, Integer capacity) {
+        return new Race(id, name, Race.Distance.valueOf(distance), capacity);
+    }
+}
@@ -0,0 +1,191 @@
+package com.trail.query.monitoring;
+
+import com.trail.query.config.RabbitMQConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.ListenerContainerConsumerFailedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how far the read model is behind the command service.
+ *
+ * <p>The command service stamps every event with its publish time
+ * ({@value #PUBLISHED_AT_HEADER}) and sequence number
+ * ({@value #SEQUENCE_HEADER}). Each applied event records its publish to
+ * applied latency in {@code projection.event.latency}. The backlog of every
+ * partition queue is polled every {@code projection.lag.check-interval-ms}.
+ *
+ * <p>The lag of a partition is zero while its queue is empty, and otherwise
+ * the age of the newest event applied from it: the events still waiting were
+ * published after that one, so the read model is at most that far behind.
+ *
+ * <p>Partition queues have a single active consumer, so an instance only
+ * measures the partitions it owns: those it has received events from since
+ * its consumer last (re)connected. The lag of any other partition is zero,
+ * since a standby instance has no backlog of its own to catch up on.
+ */
+@Component
+@Slf4j
+public class ProjectionLag {
+
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+    public static final String SEQUENCE_HEADER = "x-sequence";
+
+    private final AmqpAdmin amqpAdmin;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Partition> partitions = new LinkedHashMap<>();
+
+    public ProjectionLag(AmqpAdmin amqpAdmin,
+                         MeterRegistry meterRegistry,
+                         @Value("${rabbitmq.partitions:4}") int partitionCount) {
+        this.amqpAdmin = amqpAdmin;
+        this.meterRegistry = meterRegistry;
+        for (int partition = 0; partition < partitionCount; partition++) {
+            String queue = RabbitMQConfig.PARTITION_QUEUE_PREFIX + partition;
+            Partition state = new Partition(queue);
+            partitions.put(queue, state);
+            Gauge.builder("projection.queue.backlog", state, p -> p.backlog)
+                    .tag("queue", queue)
+                    .description("Events waiting in the partition queue, as of the last check")
+                    .register(meterRegistry);
+            Gauge.builder("projection.lag", this, lag -> lag.lagMs(queue, System.currentTimeMillis()))
+                    .tag("queue", queue)
+                    .baseUnit("milliseconds")
+                    .description("How far the read model is behind the events of the partition")
+                    .register(meterRegistry);
+            Gauge.builder("projection.sequence", state, p -> p.sequence)
+                    .tag("queue", queue)
+                    .description("Highest sequence number applied from the partition")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Records an event delivered to this instance, which makes it the owner
+     * of the event's partition.
+     */
+    public void received(Message message) {
+        Partition partition = partitions.get(message.getMessageProperties().getConsumerQueue());
+        if (partition != null && !partition.owned) {
+            partition.takenOverAt = System.currentTimeMillis();
+            partition.appliedPublishedAt = 0;
+            partition.owned = true;
+        }
+    }
+
+    /**
+     * A consumer that failed reconnects as a standby if another instance took
+     * its partitions over in the meantime.
+     */
+    @EventListener
+    public void consumerFailed(ListenerContainerConsumerFailedEvent event) {
+        if (event.getSource() instanceof AbstractMessageListenerContainer container) {
+            for (String queue : container.getQueueNames()) {
+                Partition partition = partitions.get(queue);
+                if (partition != null) {
+                    partition.owned = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records an event that was applied to the read model.
+     */
+    public void applied(Message message) {
+        received(message);
+        Partition partition = partitions.get(message.getMessageProperties().getConsumerQueue());
+        Long publishedAt = longHeader(message, PUBLISHED_AT_HEADER);
+        if (partition == null || publishedAt == null) {
+            return;
+        }
+        // Clocks of the two services may differ slightly
+        long latencyMs = Math.max(0, System.currentTimeMillis() - publishedAt);
+        partition.latency.record(latencyMs, TimeUnit.MILLISECONDS);
+        partition.appliedPublishedAt = Math.max(partition.appliedPublishedAt, publishedAt);
+        Long sequence = longHeader(message, SEQUENCE_HEADER);
+        if (sequence != null) {
+            partition.sequence = Math.max(partition.sequence, sequence);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${projection.lag.check-interval-ms:5000}")
+    public void checkBacklog() {
+        for (Partition partition : partitions.values()) {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(partition.queue);
+                partition.backlog = info == null ? 0 : info.getMessageCount();
+            } catch (RuntimeException e) {
+                // Keep the last known backlog; the broker's own health indicator reports the outage
+                log.debug("Could not read the backlog of {}", partition.queue, e);
+            }
+        }
+    }
+
+    /**
+     * Lag in milliseconds of every partition queue this instance owns.
+     */
+    public Map<String, Long> lagByQueue() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> lag = new LinkedHashMap<>();
+        partitions.forEach((queue, partition) -> {
+            if (partition.owned) {
+                lag.put(queue, lagMs(queue, now));
+            }
+        });
+        return lag;
+    }
+
+    long lagMs(String queue, long now) {
+        Partition partition = partitions.get(queue);
+        if (!partition.owned || partition.backlog == 0) {
+            return 0;
+        }
+        // Until an event is applied, measured from when the partition was taken over
+        long since = partition.appliedPublishedAt > 0 ? partition.appliedPublishedAt : partition.takenOverAt;
+        return Math.max(0, now - since);
+    }
+
+    private static Long longHeader(Message message, String name) {
+        Object value = message.getMessageProperties().getHeaders().get(name);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return value == null ? null : Long.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private final class Partition {
+        private final String queue;
+        private final Timer latency;
+        private volatile long backlog;
+        private volatile long appliedPublishedAt;
+        private volatile long sequence;
+        private volatile boolean owned;
+        private volatile long takenOverAt;
+
+        Partition(String queue) {
+            this.queue = queue;
+            this.latency = Timer.builder("projection.event.latency")
+                    .tag("queue", queue)
+                    .description("Time from publishing an event to applying it to the read model")
+                    .register(meterRegistry);
+        }
+    }
+}
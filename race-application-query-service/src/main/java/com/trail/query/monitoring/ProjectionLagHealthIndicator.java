@@ -0,0 +1,41 @@
+package com.trail.query.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Takes the instance out of service while any partition lags more than
+ * {@code projection.lag.max-ready-ms}, so the load balancer stops sending
+ * it reads until it has caught up. Part of the readiness group only; a
+ * lagging instance is still alive. Only the partitions this instance
+ * consumes count, so a standby instance stays ready; the bean name makes
+ * the health key {@code projectionLag}.
+ */
+@Component
+public class ProjectionLagHealthIndicator implements HealthIndicator {
+
+    private final ProjectionLag projectionLag;
+    private final long maxReadyMs;
+
+    public ProjectionLagHealthIndicator(ProjectionLag projectionLag,
+                                        @Value("${projection.lag.max-ready-ms:30000}") long maxReadyMs) {
+        this.projectionLag = projectionLag;
+        this.maxReadyMs = maxReadyMs;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Long> lag = projectionLag.lagByQueue();
+        long maxLagMs = lag.values().stream().mapToLong(Long::longValue).max().orElse(0);
+        Health.Builder health = maxLagMs > maxReadyMs ? Health.outOfService() : Health.up();
+        return health
+                .withDetail("maxLagMs", maxLagMs)
+                .withDetail("thresholdMs", maxReadyMs)
+                .withDetail("lagMs", lag)
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.trail.query.pagination;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. Pass {@code nextCursor} back as the
+ * {@code cursor} parameter to fetch the following page; it is null on the
+ * last page.
+ */
+public record CursorPage<T>(
+        List<T> items,
+        @Schema(description = "Opaque cursor of the next page, absent on the last page", nullable = true)
+        String nextCursor) {
+}
@@ -0,0 +1,267 @@
+package com.trail.query.projection;
+
+import com.trail.query.entity.Race;
+import com.trail.query.entity.RaceClubStats;
+import com.trail.query.event.ApplicationCreatedEvent;
+import com.trail.query.event.ApplicationDeletedEvent;
+import com.trail.query.event.RaceCreatedEvent;
+import com.trail.query.event.RaceUpdatedEvent;
+import com.trail.query.repository.ApplicationRepository;
+import com.trail.query.repository.RaceClubStatsRepository;
+import com.trail.query.repository.RaceRepository;
+import com.trail.query.repository.RaceStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Applies events to the read model. Each method writes the projection
+ * tables and the statistics derived from them in one transaction, so the
+ * counts always match the rows. In-memory views (catalog, caches, versions)
+ * are updated by the caller once the method has returned and committed.
+ *
+ * <p>Events are delivered at least once. Application events are applied
+ * only the first time their message id is claimed in {@code processed_event},
+ * in the same transaction as their writes. The statistics count the live
+ * rows of {@code counted_application}, which only the projection writes:
+ * an application is counted when its row is inserted and uncounted when the
+ * row turns into a tombstone. Whether the application row exists says
+ * nothing, because the command service writes the same application table.
+ *
+ * <p>Methods that change the statistics first take {@link #STATISTICS_LOCK}
+ * in shared mode, so they wait while {@link StatisticsRebuilder} replaces the
+ * tables.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectionService {
+
+    /**
+     * Postgres advisory lock key guarding the statistics tables.
+     */
+    public static final long STATISTICS_LOCK = 0x7261636573746174L;
+
+    private static final String CLAIM_EVENTS_SQL =
+            "INSERT INTO processed_event (id, processed_at) SELECT id, now() FROM unnest(?) AS id "
+                    + "ON CONFLICT (id) DO NOTHING RETURNING id";
+
+    private static final String COUNT_APPLICATIONS_SQL =
+            "INSERT INTO counted_application (id, race_id, club, deleted, applied_at) "
+                    + "SELECT id, race_id, club, false, now() FROM unnest(?, ?, ?) AS t(id, race_id, club) "
+                    + "ON CONFLICT (id) DO NOTHING RETURNING race_id, club";
+
+    private static final String UNCOUNT_APPLICATIONS_SQL =
+            "UPDATE counted_application SET deleted = true, applied_at = now() "
+                    + "WHERE id = ANY(?) AND NOT deleted RETURNING race_id, club";
+
+    // Keeps a creation that arrives after its deletion from being counted
+    private static final String TOMBSTONE_SQL =
+            "INSERT INTO counted_application (id, race_id, club, deleted, applied_at) "
+                    + "SELECT id, race_id, club, true, now() FROM unnest(?, ?, ?) AS t(id, race_id, club) "
+                    + "ON CONFLICT (id) DO NOTHING";
+
+    // The row is usually there already, written by the command service
+    private static final String INSERT_APPLICATION_SQL =
+            "INSERT INTO application (id, first_name, last_name, club, race_id) VALUES (?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (id) DO NOTHING";
+
+    private static final RowMapper<Counted> COUNTED =
+            (rs, rowNum) -> new Counted(rs.getObject(1, UUID.class), rs.getString(2));
+
+    private final RaceRepository raceRepository;
+    private final ApplicationRepository applicationRepository;
+    private final RaceStatsRepository raceStatsRepository;
+    private final RaceClubStatsRepository raceClubStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${projection.processed-events.retention-hours:168}")
+    private long processedEventRetentionHours;
+
+    @Transactional
+    public Race applyRaceCreated(RaceCreatedEvent event) {
+        Race race = new Race();
+        race.setId(event.getId());
+        race.setName(event.getName());
+        race.setDistance(Race.Distance.valueOf(event.getDistance()));
+        race.setCapacity(event.getCapacity());
+        return raceRepository.save(race);
+    }
+
+    @Transactional
+    public Optional<Race> applyRaceUpdated(RaceUpdatedEvent event) {
+        return raceRepository.findById(event.getId()).map(race -> {
+            race.setName(event.getName());
+            race.setDistance(Race.Distance.valueOf(event.getDistance()));
+            race.setCapacity(event.getCapacity());
+            return raceRepository.save(race);
+        });
+    }
+
+    @Transactional
+    public void applyRaceDeleted(UUID raceId) {
+        lockStatistics();
+        raceRepository.deleteById(raceId);
+        raceStatsRepository.deleteById(raceId);
+        raceClubStatsRepository.deleteByRaceId(raceId);
+    }
+
+    /**
+     * Applies the application events of messages not seen before, with one
+     * batched INSERT round trip per JDBC batch.
+     *
+     * @param eventsById the applications of each message, by message id
+     * @return the races whose application lists changed
+     */
+    @Transactional
+    public Set<UUID> applyApplicationsCreated(Map<String, List<ApplicationCreatedEvent>> eventsById) {
+        lockStatistics();
+        Set<String> claimed = claimEvents(eventsById.keySet());
+        List<ApplicationCreatedEvent> events = new ArrayList<>();
+        eventsById.forEach((id, applications) -> {
+            if (claimed.contains(id)) {
+                events.addAll(applications);
+            }
+        });
+        if (events.isEmpty()) {
+            return Set.of();
+        }
+        jdbcTemplate.batchUpdate(INSERT_APPLICATION_SQL, events, events.size(), (ps, event) -> {
+            ps.setObject(1, event.getId());
+            ps.setString(2, event.getFirstName());
+            ps.setString(3, event.getLastName());
+            ps.setString(4, event.getClub());
+            ps.setObject(5, event.getRace().getId());
+        });
+        List<Counted> counted = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(COUNT_APPLICATIONS_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid",
+                    events.stream().map(ApplicationCreatedEvent::getId).toArray()));
+            statement.setArray(2, connection.createArrayOf("uuid",
+                    events.stream().map(event -> event.getRace().getId()).toArray()));
+            statement.setArray(3, connection.createArrayOf("text",
+                    events.stream().map(ApplicationCreatedEvent::getClub).toArray()));
+            return statement;
+        }, COUNTED);
+        updateStatistics(counted, 1);
+        return events.stream().map(event -> event.getRace().getId()).collect(Collectors.toSet());
+    }
+
+    /**
+     * Applies the deletions of messages not seen before, deleting rows that
+     * are still present with one statement.
+     *
+     * @param eventsById the deletion of each message, by message id
+     * @return the races whose application lists changed
+     */
+    @Transactional
+    public Set<UUID> applyApplicationsDeleted(Map<String, ApplicationDeletedEvent> eventsById) {
+        lockStatistics();
+        Set<String> claimed = claimEvents(eventsById.keySet());
+        List<ApplicationDeletedEvent> events = eventsById.entrySet().stream()
+                .filter(entry -> claimed.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        if (events.isEmpty()) {
+            return Set.of();
+        }
+        List<UUID> ids = events.stream().map(ApplicationDeletedEvent::getId).toList();
+        applicationRepository.deleteAllByIdInBatch(ids);
+        List<Counted> uncounted = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UNCOUNT_APPLICATIONS_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            return statement;
+        }, COUNTED);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(TOMBSTONE_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            statement.setArray(2, connection.createArrayOf("uuid",
+                    events.stream().map(ApplicationDeletedEvent::getRaceId).toArray()));
+            statement.setArray(3, connection.createArrayOf("text",
+                    events.stream().map(ApplicationDeletedEvent::getClub).toArray()));
+            return statement;
+        });
+        updateStatistics(uncounted, -1);
+        uncounted.stream().map(Counted::raceId).distinct().forEach(raceClubStatsRepository::deleteEmpty);
+
+        Set<UUID> raceIds = new HashSet<>();
+        events.stream().map(ApplicationDeletedEvent::getRaceId).filter(Objects::nonNull).forEach(raceIds::add);
+        uncounted.forEach(row -> raceIds.add(row.raceId()));
+        return raceIds;
+    }
+
+    // One upsert per race and club rather than per application
+    private void updateStatistics(List<Counted> rows, long sign) {
+        Map<UUID, Long> perRace = new HashMap<>();
+        Map<RaceClubStats.Key, Long> perClub = new HashMap<>();
+        for (Counted row : rows) {
+            perRace.merge(row.raceId(), sign, Long::sum);
+            perClub.merge(new RaceClubStats.Key(row.raceId(), clubKey(row.club())), sign, Long::sum);
+        }
+        perRace.forEach(raceStatsRepository::add);
+        perClub.forEach((key, count) -> raceClubStatsRepository.add(key.getRaceId(), key.getClub(), count));
+    }
+
+    /**
+     * Forgets processed message ids and tombstones once redeliveries of their
+     * events are no longer expected.
+     */
+    @Scheduled(fixedDelayString = "${projection.processed-events.purge-interval-ms:3600000}")
+    public void purgeProcessedEvents() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(processedEventRetentionHours));
+        int purged = jdbcTemplate.update("DELETE FROM processed_event WHERE processed_at < ?", Timestamp.from(cutoff));
+        int tombstones = jdbcTemplate.update("DELETE FROM counted_application WHERE deleted AND applied_at < ?",
+                Timestamp.from(cutoff));
+        if (purged > 0 || tombstones > 0) {
+            log.debug("Purged {} processed event ids and {} tombstones", purged, tombstones);
+        }
+    }
+
+    /**
+     * Records the message ids and returns those that were not recorded yet.
+     */
+    private Set<String> claimEvents(Collection<String> eventIds) {
+        List<String> claimed = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CLAIM_EVENTS_SQL);
+            statement.setArray(1, connection.createArrayOf("text", eventIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(claimed);
+    }
+
+    // Released on commit; waits while a rebuild holds the lock exclusively
+    private void lockStatistics() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock_shared(" + STATISTICS_LOCK + ")");
+    }
+
+    /**
+     * Race and club of an application whose count changed.
+     */
+    record Counted(UUID raceId, String club) {
+    }
+
+    static String clubKey(String club) {
+        return club == null ? RaceClubStats.NO_CLUB : club;
+    }
+}
@@ -0,0 +1,68 @@
+package com.trail.query.projection;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters of the read projection, used as ETags by the list and
+ * detail endpoints. {@code ViewUpdateListener} bumps them after each write,
+ * and controllers read them before querying, so a tag never claims a newer
+ * state than the body it is sent with.
+ *
+ * <p>Counters live in memory and restart at zero, so every tag carries the
+ * epoch of this process. A tag from before a restart or from another
+ * instance simply doesn't match and the client gets a full response.
+ */
+@Component
+public class ProjectionVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong races = new AtomicLong();
+    // Entries are kept after a race is deleted: dropping one would reset its
+    // version to zero and make an old tag match again
+    private final ConcurrentHashMap<UUID, AtomicLong> race = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, AtomicLong> raceApplications = new ConcurrentHashMap<>();
+
+    public String racesETag() {
+        return eTag("races", races.get());
+    }
+
+    public String raceETag(UUID raceId) {
+        return eTag("race", version(race, raceId));
+    }
+
+    public String raceApplicationsETag(UUID raceId) {
+        return eTag("applications", version(raceApplications, raceId));
+    }
+
+    /**
+     * A race was created, updated or deleted. Its application list is bumped
+     * too, as deleting the race deletes its applications.
+     */
+    public void raceChanged(UUID raceId) {
+        races.incrementAndGet();
+        bump(race, raceId);
+        bump(raceApplications, raceId);
+    }
+
+    public void raceApplicationsChanged(UUID raceId) {
+        bump(raceApplications, raceId);
+    }
+
+    private String eTag(String resource, long version) {
+        return "\"" + resource + "-" + epoch + "-" + version + "\"";
+    }
+
+    private static long version(ConcurrentHashMap<UUID, AtomicLong> versions, UUID id) {
+        AtomicLong version = versions.get(id);
+        return version == null ? 0 : version.get();
+    }
+
+    private static void bump(ConcurrentHashMap<UUID, AtomicLong> versions, UUID id) {
+        versions.computeIfAbsent(id, key -> new AtomicLong()).incrementAndGet();
+    }
+}
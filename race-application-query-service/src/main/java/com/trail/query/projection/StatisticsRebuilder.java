@@ -0,0 +1,393 @@
+package com.trail.query.projection;
+
+import com.trail.query.config.DataSourceConfig;
+import com.trail.query.dto.RebuildStatus;
+import com.trail.query.entity.RaceClubStats;
+import com.trail.query.exception.RebuildInProgressException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes the applicant statistics from {@code counted_application}
+ * without blocking readers or the command service.
+ *
+ * <p>The statistics are recounted from the applications the projection has
+ * counted, not from the application table: the command service writes that
+ * table before the events are applied, so it also holds applications whose
+ * creation is still queued and lacks those whose deletion is. Counting it
+ * would count those events twice once they arrive. Applications missing
+ * from {@code counted_application}, e.g. from before it was introduced, are
+ * first added to it. That is safe because counting is idempotent per
+ * application: the queued creation of an added application finds it counted
+ * already, and a queued deletion still uncounts it.
+ *
+ * <p>The table is split into primary-key ranges of {@code chunk-size} rows
+ * that are counted in parallel, each worker on its own connection. All
+ * workers import one exported snapshot, so the chunks add up to a single
+ * consistent state of the table however long the scan takes. The counts are
+ * written with batched inserts into unlogged shadow tables, which then
+ * replace {@code race_stats} and {@code race_club_stats} in one DDL
+ * transaction. Readers see either the old or the new statistics, never a
+ * mix.
+ *
+ * <p>A session advisory lock held from the snapshot to the swap makes the
+ * event listeners of every instance wait (see {@link ProjectionService}), so
+ * no event is applied to the old tables after the snapshot and lost in the
+ * swap. Events queue up in RabbitMQ meanwhile and are applied to the new
+ * tables afterwards. Everything runs on the primary: a replica can neither
+ * import the snapshot nor take the lock.
+ */
+@Component
+@Slf4j
+public class StatisticsRebuilder implements MeterBinder {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final int parallelism;
+    private final int chunkSize;
+    private final boolean onStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger chunksCompleted = new AtomicInteger();
+    private final AtomicInteger chunksTotal = new AtomicInteger();
+    private final AtomicLong applicationsScanned = new AtomicLong();
+    private final AtomicLong applicationsScannedTotal = new AtomicLong();
+    private volatile RebuildStatus.State state = RebuildStatus.State.IDLE;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public StatisticsRebuilder(@Qualifier(DataSourceConfig.PRIMARY) DataSource dataSource,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${projection.rebuild.parallelism:3}") int parallelism,
+                               @Value("${projection.rebuild.chunk-size:50000}") int chunkSize,
+                               @Value("${projection.rebuild.on-startup:false}") boolean onStartup) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.onStartup = onStartup;
+    }
+
+    /**
+     * Rebuilds on startup when configured to, and on the first start after the
+     * statistics or their ledger were introduced, when applications exist but
+     * no counts yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        Boolean missing = jdbcTemplate.queryForObject(
+                "SELECT (NOT EXISTS (SELECT 1 FROM race_stats) OR NOT EXISTS (SELECT 1 FROM counted_application)) "
+                        + "AND EXISTS (SELECT 1 FROM application)",
+                Boolean.class);
+        if (onStartup || Boolean.TRUE.equals(missing)) {
+            start();
+        }
+    }
+
+    /**
+     * Starts a rebuild on a background thread.
+     *
+     * @throws RebuildInProgressException if this instance is already rebuilding
+     */
+    public RebuildStatus start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RebuildInProgressException();
+        }
+        chunksCompleted.set(0);
+        chunksTotal.set(0);
+        applicationsScanned.set(0);
+        error = null;
+        finishedAt = null;
+        startedAt = Instant.now();
+        startedNanos = System.nanoTime();
+        state = RebuildStatus.State.RUNNING;
+
+        Thread worker = new Thread(this::run, "statistics-rebuild");
+        worker.setDaemon(true);
+        worker.start();
+        return status();
+    }
+
+    public RebuildStatus status() {
+        RebuildStatus.State current = state;
+        long elapsed = (current == RebuildStatus.State.RUNNING ? System.nanoTime() : finishedNanos) - startedNanos;
+        long scanned = applicationsScanned.get();
+        long perSecond = current == RebuildStatus.State.IDLE || elapsed <= 0 ? 0 : scanned * 1_000_000_000L / elapsed;
+        return new RebuildStatus(current, startedAt, finishedAt, chunksCompleted.get(), chunksTotal.get(),
+                scanned, perSecond, error);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("projection.rebuild.running", running, flag -> flag.get() ? 1 : 0)
+                .description("Whether a statistics rebuild is running")
+                .register(registry);
+        Gauge.builder("projection.rebuild.chunks.completed", chunksCompleted, AtomicInteger::get)
+                .description("Chunks of the counted applications counted by the current or last rebuild")
+                .register(registry);
+        Gauge.builder("projection.rebuild.chunks.total", chunksTotal, AtomicInteger::get)
+                .description("Chunks of the counted applications found so far by the current or last rebuild")
+                .register(registry);
+        FunctionCounter.builder("projection.rebuild.applications", applicationsScannedTotal, AtomicLong::get)
+                .description("Applications counted by statistics rebuilds; its rate is the rebuild throughput")
+                .register(registry);
+    }
+
+    private void run() {
+        try {
+            rebuild();
+            state = RebuildStatus.State.COMPLETED;
+        } catch (Exception e) {
+            log.error("Statistics rebuild failed; the previous statistics stay in place", e);
+            error = e.getMessage();
+            state = RebuildStatus.State.FAILED;
+        } finally {
+            finishedNanos = System.nanoTime();
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    void rebuild() throws SQLException, InterruptedException, ExecutionException {
+        try (Connection coordinator = dataSource.getConnection()) {
+            execute(coordinator, "SELECT pg_advisory_lock(" + ProjectionService.STATISTICS_LOCK + ")");
+            try {
+                seedLedger();
+                createShadowTables();
+                StatisticsTally tally = scan(coordinator);
+                writeShadowTables(tally);
+                swap();
+                log.info("Rebuilt application statistics: {} applications in {} chunks, {} races, {} ms",
+                        tally.applications(), chunksTotal.get(), tally.perRace().size(),
+                        (System.nanoTime() - startedNanos) / 1_000_000);
+            } finally {
+                execute(coordinator, "SELECT pg_advisory_unlock(" + ProjectionService.STATISTICS_LOCK + ")");
+            }
+        }
+    }
+
+    /**
+     * Counts the applications not counted yet. Runs under the lock, so no
+     * event is applied meanwhile. Tombstones keep deleted applications out.
+     */
+    private void seedLedger() {
+        int seeded = jdbcTemplate.update("INSERT INTO counted_application (id, race_id, club, deleted, applied_at) "
+                + "SELECT id, race_id, club, false, now() FROM application ON CONFLICT (id) DO NOTHING");
+        if (seeded > 0) {
+            log.info("Seeded the statistics ledger with {} applications", seeded);
+        }
+    }
+
+    private void createShadowTables() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS race_stats_rebuild, race_club_stats_rebuild");
+        // Unlogged: the rows are written once and the tables are useless after a crash anyway
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE race_stats_rebuild (LIKE race_stats INCLUDING ALL)");
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE race_club_stats_rebuild (LIKE race_club_stats INCLUDING ALL)");
+    }
+
+    /**
+     * Splits the counted applications into key ranges and counts them in
+     * parallel. The coordinator finds the next boundary while the workers
+     * count the ranges found so far.
+     */
+    private StatisticsTally scan(Connection coordinator)
+            throws SQLException, InterruptedException, ExecutionException {
+        coordinator.setAutoCommit(false);
+        coordinator.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        coordinator.setReadOnly(true);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "statistics-rebuild-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Valid until the coordinator's transaction ends
+            String snapshot = queryString(coordinator, "SELECT pg_export_snapshot()");
+            CompletionService<StatisticsTally> chunks = new ExecutorCompletionService<>(workers);
+            StatisticsTally tally = new StatisticsTally();
+            int pending = 0;
+            UUID lower = null;
+            do {
+                UUID from = lower;
+                UUID to = nextBoundary(coordinator, from);
+                chunks.submit(() -> countChunk(snapshot, from, to));
+                chunksTotal.incrementAndGet();
+                pending++;
+                lower = to;
+
+                Future<StatisticsTally> done;
+                while ((done = chunks.poll()) != null) {
+                    merge(tally, done.get());
+                    pending--;
+                }
+            } while (lower != null);
+            for (; pending > 0; pending--) {
+                merge(tally, chunks.take().get());
+            }
+            coordinator.commit();
+            return tally;
+        } catch (SQLException | InterruptedException | ExecutionException | RuntimeException e) {
+            coordinator.rollback();
+            throw e;
+        } finally {
+            workers.shutdownNow();
+            coordinator.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * First id of the chunk after the one starting at {@code lower}, or null
+     * if that chunk runs to the end of the table.
+     */
+    private UUID nextBoundary(Connection connection, UUID lower) throws SQLException {
+        String sql = lower == null
+                ? "SELECT id FROM counted_application WHERE NOT deleted ORDER BY id OFFSET ? LIMIT 1"
+                : "SELECT id FROM counted_application WHERE NOT deleted AND id >= ? ORDER BY id OFFSET ? LIMIT 1";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (lower != null) {
+                statement.setObject(index++, lower);
+            }
+            statement.setInt(index, chunkSize);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? rows.getObject(1, UUID.class) : null;
+            }
+        }
+    }
+
+    private StatisticsTally countChunk(String snapshot, UUID lower, UUID upper) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT race_id, club, count(*) FROM counted_application WHERE NOT deleted");
+        if (lower != null) {
+            sql.append(" AND id >= ?");
+        }
+        if (upper != null) {
+            sql.append(" AND id < ?");
+        }
+        sql.append(" GROUP BY race_id, club");
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setReadOnly(true);
+            try {
+                // Must be the first statement of the transaction
+                execute(connection, "SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+                StatisticsTally tally = new StatisticsTally();
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    int index = 1;
+                    if (lower != null) {
+                        statement.setObject(index++, lower);
+                    }
+                    if (upper != null) {
+                        statement.setObject(index, upper);
+                    }
+                    try (ResultSet rows = statement.executeQuery()) {
+                        while (rows.next()) {
+                            tally.add(rows.getObject(1, UUID.class), rows.getString(2), rows.getLong(3));
+                        }
+                    }
+                }
+                connection.commit();
+                return tally;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void merge(StatisticsTally tally, StatisticsTally chunk) {
+        tally.addAll(chunk);
+        applicationsScanned.addAndGet(chunk.applications());
+        applicationsScannedTotal.addAndGet(chunk.applications());
+        chunksCompleted.incrementAndGet();
+    }
+
+    private void writeShadowTables(StatisticsTally tally) {
+        List<Map.Entry<UUID, Long>> races = new ArrayList<>(tally.perRace().entrySet());
+        jdbcTemplate.batchUpdate("INSERT INTO race_stats_rebuild (race_id, applicants) VALUES (?, ?)",
+                races, INSERT_BATCH_SIZE, (ps, race) -> {
+                    ps.setObject(1, race.getKey());
+                    ps.setLong(2, race.getValue());
+                });
+        List<Map.Entry<RaceClubStats.Key, Long>> clubs = new ArrayList<>(tally.perClub().entrySet());
+        jdbcTemplate.batchUpdate("INSERT INTO race_club_stats_rebuild (race_id, club, applicants) VALUES (?, ?, ?)",
+                clubs, INSERT_BATCH_SIZE, (ps, club) -> {
+                    ps.setObject(1, club.getKey().getRaceId());
+                    ps.setString(2, club.getKey().getClub());
+                    ps.setLong(3, club.getValue());
+                });
+        // Written to the WAL here, outside of the swap's exclusive lock
+        jdbcTemplate.execute("ALTER TABLE race_stats_rebuild SET LOGGED");
+        jdbcTemplate.execute("ALTER TABLE race_club_stats_rebuild SET LOGGED");
+    }
+
+    /**
+     * Replaces the live tables with the shadow tables. DDL is transactional in
+     * Postgres, so the swap commits as a whole; queries on the statistics
+     * wait for the short exclusive lock.
+     */
+    private void swap() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE race_stats, race_club_stats IN ACCESS EXCLUSIVE MODE");
+            for (String table : List.of("race_stats", "race_club_stats")) {
+                jdbcTemplate.execute("DROP TABLE " + table);
+                jdbcTemplate.execute("ALTER TABLE " + table + "_rebuild RENAME TO " + table);
+                jdbcTemplate.execute("ALTER INDEX " + table + "_rebuild_pkey RENAME TO " + table + "_pkey");
+            }
+        });
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String queryString(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getString(1);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.trail.query.projection;
+
+import com.trail.query.entity.RaceClubStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applicant counts per race and club collected by a statistics rebuild. Each
+ * chunk of the counted applications fills its own tally; the rebuild merges them
+ * as the chunks complete. Not thread-safe.
+ */
+class StatisticsTally {
+
+    private final Map<RaceClubStats.Key, Long> perClub = new HashMap<>();
+    private long applications;
+
+    void add(UUID raceId, String club, long count) {
+        perClub.merge(new RaceClubStats.Key(raceId, ProjectionService.clubKey(club)), count, Long::sum);
+        applications += count;
+    }
+
+    void addAll(StatisticsTally other) {
+        other.perClub.forEach((key, count) -> perClub.merge(key, count, Long::sum));
+        applications += other.applications;
+    }
+
+    long applications() {
+        return applications;
+    }
+
+    Map<RaceClubStats.Key, Long> perClub() {
+        return perClub;
+    }
+
+    Map<UUID, Long> perRace() {
+        Map<UUID, Long> perRace = new HashMap<>();
+        perClub.forEach((key, count) -> perRace.merge(key.getRaceId(), count, Long::sum));
+        return perRace;
+    }
+}
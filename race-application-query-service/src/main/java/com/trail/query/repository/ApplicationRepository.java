@@ -1,11 +1,57 @@
 package com.trail.query.repository;
 
+import com.trail.query.dto.ApplicationSummary;
 import com.trail.query.entity.Application;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface ApplicationRepository extends JpaRepository<Application, UUID> {
-    List<Application> findByRaceId(UUID raceId);
-}
\ No newline at end of file
+    // Summaries read race_id from the application row; a.race.id does not join the race
+    String SUMMARY = "SELECT new com.trail.query.dto.ApplicationSummary(a.id, a.firstName, a.lastName, a.club, a.race.id) "
+            + "FROM Application a ";
+
+    @Query(SUMMARY + "ORDER BY a.id")
+    List<ApplicationSummary> findAllSummaries();
+
+    @Query(SUMMARY + "WHERE a.id = :id")
+    Optional<ApplicationSummary> findSummaryById(@Param("id") UUID id);
+
+    @Query(SUMMARY + "WHERE a.race.id = :raceId ORDER BY a.id")
+    List<ApplicationSummary> findSummariesByRaceId(@Param("raceId") UUID raceId);
+
+    // Keyset pages: served by the primary key and idx_application_race_id_id
+    @Query(SUMMARY + "ORDER BY a.id")
+    List<ApplicationSummary> findSummaries(Limit limit);
+
+    @Query(SUMMARY + "WHERE a.id > :after ORDER BY a.id")
+    List<ApplicationSummary> findSummariesAfter(@Param("after") UUID after, Limit limit);
+
+    @Query(SUMMARY + "WHERE a.race.id = :raceId ORDER BY a.id")
+    List<ApplicationSummary> findSummariesByRaceId(@Param("raceId") UUID raceId, Limit limit);
+
+    @Query(SUMMARY + "WHERE a.race.id = :raceId AND a.id > :after ORDER BY a.id")
+    List<ApplicationSummary> findSummariesByRaceIdAfter(@Param("raceId") UUID raceId, @Param("after") UUID after,
+                                                        Limit limit);
+
+    // Forward-only cursors for exports. Postgres only honours the fetch size
+    // inside a transaction, so callers must hold one open while consuming.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT a FROM Application a JOIN FETCH a.race ORDER BY a.id")
+    Stream<Application> streamAll();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT a FROM Application a JOIN FETCH a.race WHERE a.race.id = :raceId ORDER BY a.id")
+    Stream<Application> streamByRaceId(@Param("raceId") UUID raceId);
+}
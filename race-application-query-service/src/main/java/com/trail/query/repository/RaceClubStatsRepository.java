@@ -0,0 +1,29 @@
+package com.trail.query.repository;
+
+import com.trail.query.entity.RaceClubStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface RaceClubStatsRepository extends JpaRepository<RaceClubStats, RaceClubStats.Key> {
+
+    List<RaceClubStats> findByKeyRaceIdOrderByApplicantsDesc(UUID raceId);
+
+    @Modifying
+    @Query(value = "INSERT INTO race_club_stats (race_id, club, applicants) VALUES (:raceId, :club, :delta) " +
+            "ON CONFLICT (race_id, club) DO UPDATE SET applicants = race_club_stats.applicants + EXCLUDED.applicants",
+            nativeQuery = true)
+    void add(@Param("raceId") UUID raceId, @Param("club") String club, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "DELETE FROM race_club_stats WHERE race_id = :raceId AND applicants <= 0", nativeQuery = true)
+    void deleteEmpty(@Param("raceId") UUID raceId);
+
+    @Modifying
+    @Query(value = "DELETE FROM race_club_stats WHERE race_id = :raceId", nativeQuery = true)
+    void deleteByRaceId(@Param("raceId") UUID raceId);
+}
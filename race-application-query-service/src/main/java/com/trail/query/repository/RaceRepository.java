@@ -1,9 +1,16 @@
 package com.trail.query.repository;
 
 import com.trail.query.entity.Race;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface RaceRepository extends JpaRepository<Race, UUID> {
+
+    // Keyset pages over the primary key
+    List<Race> findByOrderByIdAsc(Limit limit);
+
+    List<Race> findByIdGreaterThanOrderByIdAsc(UUID after, Limit limit);
 }
@@ -0,0 +1,18 @@
+package com.trail.query.repository;
+
+import com.trail.query.entity.RaceStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+public interface RaceStatsRepository extends JpaRepository<RaceStats, UUID> {
+
+    @Modifying
+    @Query(value = "INSERT INTO race_stats (race_id, applicants) VALUES (:raceId, :delta) " +
+            "ON CONFLICT (race_id) DO UPDATE SET applicants = race_stats.applicants + EXCLUDED.applicants",
+            nativeQuery = true)
+    void add(@Param("raceId") UUID raceId, @Param("delta") long delta);
+}
@@ -0,0 +1,22 @@
+package com.trail.query.search;
+
+import com.trail.query.entity.Application;
+import com.trail.query.event.ApplicationCreatedEvent;
+
+import java.util.UUID;
+
+/**
+ * An application as held by the search index and returned by a search.
+ */
+public record Applicant(UUID id, String firstName, String lastName, String club, UUID raceId) {
+
+    public static Applicant of(Application application) {
+        return new Applicant(application.getId(), application.getFirstName(), application.getLastName(),
+                application.getClub(), application.getRace().getId());
+    }
+
+    public static Applicant of(ApplicationCreatedEvent event) {
+        return new Applicant(event.getId(), event.getFirstName(), event.getLastName(),
+                event.getClub(), event.getRace().getId());
+    }
+}
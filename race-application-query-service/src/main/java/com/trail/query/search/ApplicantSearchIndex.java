@@ -0,0 +1,450 @@
+package com.trail.query.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory word-prefix index over applicant first name, last name and club.
+ *
+ * <p>Every word is folded to lower case without diacritics ("Marković" and
+ * "markovic" are the same token) and kept in a sorted dictionary that maps
+ * it to the documents containing it, per field, so a prefix is one range
+ * lookup. A query matches a document when each of its words is a prefix of
+ * some word of the document. Matches are ranked by where they match, last
+ * name before first name before club, and within a field whole words before
+ * prefixes; equal matches keep index order.
+ *
+ * <p>The postings of the most selective query word are walked best group
+ * first (whole last-name words, then last-name prefixes, and so on), and
+ * the walk stops once no later group can beat the results collected so far.
+ * A common surname therefore costs {@code limit} documents, not all of them.
+ *
+ * <p>Documents are never moved: a removal only clears the slot, and postings
+ * that point at cleared slots are skipped. Applications are immutable, so
+ * adding a document that is already present does nothing.
+ *
+ * <p>Reads share a lock; writes take it exclusively and are short. The index
+ * is filled by {@link ApplicantSearchIndexLoader} on startup and then kept
+ * current by {@code ViewUpdateListener}.
+ */
+@Component
+public class ApplicantSearchIndex implements MeterBinder {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Fields in ranking order: a match in the last name beats one in the club
+    private static final int LAST_NAME = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int CLUB = 2;
+    private static final int FIELDS = 3;
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final TreeMap<String, Term> dictionary = new TreeMap<>();
+    private final Map<UUID, Integer> documentIds = new HashMap<>();
+    private final Map<String, String> clubs = new HashMap<>();
+    private Applicant[] applicants = new Applicant[1024];
+    // Per document: term id << 2 | field, for each word of the document
+    private int[][] documentTerms = new int[1024][];
+    private int nextDocument;
+
+    // Guarded by lock; ids deleted while the initial load is still running
+    private Set<UUID> removedDuringLoad = new HashSet<>();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(Applicant applicant) {
+        addAll(List.of(applicant));
+    }
+
+    public void addAll(Collection<Applicant> applicants) {
+        lock.writeLock().lock();
+        try {
+            for (Applicant applicant : applicants) {
+                insert(applicant);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds rows read by the initial load. Rows deleted after the load's
+     * snapshot was taken are skipped.
+     */
+    void addLoaded(Collection<Applicant> applicants) {
+        lock.writeLock().lock();
+        try {
+            for (Applicant applicant : applicants) {
+                if (!removedDuringLoad.contains(applicant.id())) {
+                    insert(applicant);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markReady() {
+        lock.writeLock().lock();
+        try {
+            removedDuringLoad = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID applicationId) {
+        lock.writeLock().lock();
+        try {
+            if (removedDuringLoad != null) {
+                removedDuringLoad.add(applicationId);
+            }
+            Integer document = documentIds.remove(applicationId);
+            if (document != null) {
+                clear(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeRace(UUID raceId) {
+        lock.writeLock().lock();
+        try {
+            for (int document = 0; document < nextDocument; document++) {
+                Applicant applicant = applicants[document];
+                if (applicant != null && applicant.raceId().equals(raceId)) {
+                    documentIds.remove(applicant.id());
+                    if (removedDuringLoad != null) {
+                        removedDuringLoad.add(applicant.id());
+                    }
+                    clear(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns at most {@code limit} applicants matching every word of the
+     * query, best match first.
+     */
+    public List<Applicant> search(String query, int limit) {
+        String[] words = tokens(query);
+        if (words.length == 0 || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            QueryWord[] queryWords = new QueryWord[words.length];
+            QueryWord driver = null;
+            for (int i = 0; i < words.length; i++) {
+                queryWords[i] = resolve(words[i]);
+                if (queryWords[i].postings == 0) {
+                    return List.of();
+                }
+                if (driver == null || queryWords[i].postings < driver.postings) {
+                    driver = queryWords[i];
+                }
+            }
+
+            TopMatches top = new TopMatches(limit);
+            for (int field = 0; field < FIELDS; field++) {
+                // Whole-word group, then prefix group; score of the driver word alone
+                int wholeWord = field * 2;
+                if (driver.exact != null && !collect(driver.exact.postings[field], wholeWord, queryWords, top)) {
+                    return top.applicants(applicants);
+                }
+                for (Term term : driver.prefixed) {
+                    if (!collect(term.postings[field], wholeWord + 1, queryWords, top)) {
+                        return top.applicants(applicants);
+                    }
+                }
+            }
+            return top.applicants(applicants);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.index.documents", this, ApplicantSearchIndex::size)
+                .description("Applications held in the applicant search index")
+                .register(registry);
+    }
+
+    /**
+     * Lower case, diacritics removed. Letters that don't decompose, such as
+     * the Croatian đ, are mapped explicitly.
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String folded = DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        StringBuilder out = null;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            String replacement = switch (c) {
+                case 'đ' -> "d";
+                case 'ł' -> "l";
+                case 'ø' -> "o";
+                case 'æ' -> "ae";
+                case 'ß' -> "ss";
+                default -> null;
+            };
+            if (replacement != null && out == null) {
+                out = new StringBuilder(folded.length()).append(folded, 0, i);
+            }
+            if (out != null) {
+                out.append(replacement != null ? replacement : String.valueOf(c));
+            }
+        }
+        return out == null ? folded : out.toString();
+    }
+
+    static String[] tokens(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(WORD_SEPARATOR.split(fold(text)))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Scores the documents of one postings list whose driver-word score is
+     * {@code groupScore}.
+     *
+     * @return false once no later group can change the result
+     */
+    private boolean collect(IntList postings, int groupScore, QueryWord[] queryWords, TopMatches top) {
+        if (top.isSettled(groupScore)) {
+            return false;
+        }
+        if (postings == null) {
+            return true;
+        }
+        for (int i = 0; i < postings.size; i++) {
+            int document = postings.values[i];
+            int[] terms = documentTerms[document];
+            if (terms == null) {
+                continue;
+            }
+            int score = score(terms, queryWords);
+            if (score != NO_MATCH) {
+                top.offer(document, score);
+                if (top.isSettled(groupScore)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int score(int[] terms, QueryWord[] queryWords) {
+        int total = 0;
+        for (QueryWord word : queryWords) {
+            int best = NO_MATCH;
+            for (int entry : terms) {
+                int kind = word.kind(entry >>> 2);
+                if (kind >= 0) {
+                    best = Math.min(best, (entry & 3) * 2 + kind);
+                }
+            }
+            if (best == NO_MATCH) {
+                return NO_MATCH;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private QueryWord resolve(String word) {
+        Term exact = dictionary.get(word);
+        List<Term> prefixed = new ArrayList<>(dictionary.subMap(word, false, word + Character.MAX_VALUE, false).values());
+        int[] prefixedIds = new int[prefixed.size()];
+        long postings = exact == null ? 0 : exact.size();
+        for (int i = 0; i < prefixedIds.length; i++) {
+            prefixedIds[i] = prefixed.get(i).id;
+            postings += prefixed.get(i).size();
+        }
+        Arrays.sort(prefixedIds);
+        return new QueryWord(exact, prefixed, prefixedIds, postings);
+    }
+
+    private void insert(Applicant applicant) {
+        if (documentIds.containsKey(applicant.id())) {
+            return;
+        }
+        if (nextDocument == applicants.length) {
+            applicants = Arrays.copyOf(applicants, applicants.length * 2);
+            documentTerms = Arrays.copyOf(documentTerms, documentTerms.length * 2);
+        }
+        int document = nextDocument++;
+
+        List<Integer> entries = new ArrayList<>();
+        index(document, applicant.lastName(), LAST_NAME, entries);
+        index(document, applicant.firstName(), FIRST_NAME, entries);
+        index(document, applicant.club(), CLUB, entries);
+
+        String club = applicant.club() == null ? null : clubs.computeIfAbsent(applicant.club(), name -> name);
+        applicants[document] = new Applicant(applicant.id(), applicant.firstName(), applicant.lastName(),
+                club, applicant.raceId());
+        documentTerms[document] = entries.stream().mapToInt(Integer::intValue).toArray();
+        documentIds.put(applicant.id(), document);
+    }
+
+    private void index(int document, String text, int field, List<Integer> entries) {
+        for (String token : tokens(text)) {
+            Term term = dictionary.computeIfAbsent(token, key -> new Term(dictionary.size()));
+            term.add(field, document);
+            entries.add(term.id << 2 | field);
+        }
+    }
+
+    // Postings still point at the slot; they are skipped because its terms are gone
+    private void clear(int document) {
+        applicants[document] = null;
+        documentTerms[document] = null;
+    }
+
+    private static final class Term {
+        private final int id;
+        private final IntList[] postings = new IntList[FIELDS];
+
+        Term(int id) {
+            this.id = id;
+        }
+
+        void add(int field, int document) {
+            if (postings[field] == null) {
+                postings[field] = new IntList();
+            }
+            postings[field].add(document);
+        }
+
+        long size() {
+            long size = 0;
+            for (IntList list : postings) {
+                size += list == null ? 0 : list.size;
+            }
+            return size;
+        }
+    }
+
+    private record QueryWord(Term exact, List<Term> prefixed, int[] prefixedIds, long postings) {
+
+        /**
+         * 0 for the word itself, 1 for a longer word it is a prefix of, -1 otherwise.
+         */
+        int kind(int termId) {
+            if (exact != null && exact.id == termId) {
+                return 0;
+            }
+            return Arrays.binarySearch(prefixedIds, termId) >= 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * The best {@code limit} documents seen so far, sorted by score; a later
+     * document only displaces an earlier one with a strictly better score.
+     */
+    private static final class TopMatches {
+        private final int[] documents;
+        private final int[] scores;
+        private int size;
+
+        TopMatches(int limit) {
+            documents = new int[limit];
+            scores = new int[limit];
+        }
+
+        /**
+         * True when full and nothing scoring {@code minimum} or more can enter.
+         */
+        boolean isSettled(int minimum) {
+            return size == documents.length && scores[size - 1] <= minimum;
+        }
+
+        void offer(int document, int score) {
+            if (size == documents.length && scores[size - 1] <= score) {
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (documents[i] == document) {
+                    // Listed under several words, e.g. "ana" in first name and club
+                    return;
+                }
+            }
+            int at = size == documents.length ? size - 1 : size++;
+            while (at > 0 && scores[at - 1] > score) {
+                documents[at] = documents[at - 1];
+                scores[at] = scores[at - 1];
+                at--;
+            }
+            documents[at] = document;
+            scores[at] = score;
+        }
+
+        List<Applicant> applicants(Applicant[] applicants) {
+            List<Applicant> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(applicants[documents[i]]);
+            }
+            return result;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                // Same word twice in one field of a document
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.trail.query.search;
+
+import com.trail.query.entity.Application;
+import com.trail.query.repository.ApplicationRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fills the {@link ApplicantSearchIndex} from the application table on a
+ * background thread once the service is up. Events handled meanwhile go to
+ * the index directly; search answers 503 until the load has finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApplicantSearchIndexLoader {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ApplicantSearchIndex index;
+    private final ApplicationRepository applicationRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread loader = new Thread(this::load, "search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void load() {
+        long started = System.nanoTime();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Application> rows = applicationRepository.streamAll()) {
+                    List<Applicant> batch = new ArrayList<>(BATCH_SIZE);
+                    rows.forEach(application -> {
+                        batch.add(Applicant.of(application));
+                        entityManager.detach(application);
+                        if (batch.size() == BATCH_SIZE) {
+                            index.addLoaded(batch);
+                            batch.clear();
+                        }
+                    });
+                    index.addLoaded(batch);
+                }
+            });
+            index.markReady();
+            log.info("Applicant search index loaded with {} applications in {} ms",
+                    index.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Loading the applicant search index failed; search stays unavailable", e);
+        }
+    }
+}
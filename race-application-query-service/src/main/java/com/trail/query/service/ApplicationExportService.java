@@ -0,0 +1,136 @@
+package com.trail.query.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.trail.query.entity.Application;
+import com.trail.query.repository.ApplicationRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Writes start lists straight from a database cursor to the response. Rows
+ * are detached as soon as they are written and output is flushed every
+ * {@link #FLUSH_EVERY} rows, so memory stays flat and the client sees the
+ * first rows right away.
+ */
+@Service
+@RequiredArgsConstructor
+public class ApplicationExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private static final int FLUSH_EVERY = 500;
+    private static final byte[] CSV_HEADER =
+            "id,raceId,raceName,firstName,lastName,club\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ApplicationRepository applicationRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Streams all applications, or those of one race when {@code raceId} is
+     * set, ordered by id.
+     *
+     * @return the number of rows written
+     */
+    public long export(UUID raceId, Format format, OutputStream target) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        BufferedOutputStream out = new BufferedOutputStream(target, 64 * 1024);
+        try {
+            Long written = readOnly.execute(status -> {
+                try (Stream<Application> rows = raceId == null
+                        ? applicationRepository.streamAll()
+                        : applicationRepository.streamByRaceId(raceId)) {
+                    return write(rows, format, out);
+                }
+            });
+            out.flush();
+            return written != null ? written : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long write(Stream<Application> rows, Format format, OutputStream out) {
+        ObjectWriter json = objectMapper.writerFor(Application.class);
+        long[] count = {0};
+        try {
+            if (format == Format.CSV) {
+                out.write(CSV_HEADER);
+            }
+            rows.forEach(application -> {
+                try {
+                    if (format == Format.CSV) {
+                        out.write(csvLine(application).getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        out.write(json.writeValueAsBytes(application));
+                        out.write('\n');
+                    }
+                    entityManager.detach(application);
+                    // First flush right after the first row, then in chunks
+                    if (++count[0] % FLUSH_EVERY == 1) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count[0];
+    }
+
+    private static String csvLine(Application application) {
+        return String.join(",",
+                application.getId().toString(),
+                application.getRace().getId().toString(),
+                csvField(application.getRace().getName()),
+                csvField(application.getFirstName()),
+                csvField(application.getLastName()),
+                csvField(application.getClub())) + "\n";
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
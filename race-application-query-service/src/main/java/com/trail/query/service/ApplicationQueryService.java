@@ -1,8 +1,18 @@
 package com.trail.query.service;
 
-import com.trail.query.entity.Application;
+import com.trail.query.cache.ApplicationCache;
+import com.trail.query.datasource.DataSourceRouting;
+import com.trail.query.dto.ApplicationSummary;
+import com.trail.query.exception.InvalidPageSizeException;
+import com.trail.query.exception.SearchUnavailableException;
+import com.trail.query.pagination.CursorPage;
+import com.trail.query.pagination.KeysetCursor;
 import com.trail.query.repository.ApplicationRepository;
+import com.trail.query.search.Applicant;
+import com.trail.query.search.ApplicantSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,16 +22,64 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class ApplicationQueryService {
     private final ApplicationRepository applicationRepository;
+    private final ApplicationCache applicationCache;
+    private final ApplicantSearchIndex searchIndex;
 
-    public List<Application> findAll() {
-        return applicationRepository.findAll();
+    @Value("${pagination.max-limit:500}")
+    private int maxLimit;
+
+    @Value("${search.max-results:100}")
+    private int maxSearchResults;
+
+    public List<ApplicationSummary> findAll() {
+        return applicationRepository.findAllSummaries();
+    }
+
+    public ApplicationSummary findOne(UUID id) {
+        return applicationCache.findById(id).orElse(null);
+    }
+
+    /**
+     * Reads the primary: the response carries an ETag of the current
+     * projection version, which must not be attached to a replica's older rows.
+     */
+    public List<ApplicationSummary> findByRaceId(UUID raceId) {
+        return DataSourceRouting.onPrimary(() -> applicationRepository.findSummariesByRaceId(raceId));
+    }
+
+    public List<Applicant> search(String query, int limit) {
+        if (limit < 1 || limit > maxSearchResults) {
+            throw new InvalidPageSizeException(limit, maxSearchResults);
+        }
+        if (!searchIndex.isReady()) {
+            throw new SearchUnavailableException();
+        }
+        return searchIndex.search(query, limit);
+    }
+
+    public CursorPage<ApplicationSummary> findPage(String cursor, int limit) {
+        Limit fetch = fetchLimit(limit);
+        UUID after = KeysetCursor.decode(cursor);
+        List<ApplicationSummary> rows = after == null
+                ? applicationRepository.findSummaries(fetch)
+                : applicationRepository.findSummariesAfter(after, fetch);
+        return KeysetCursor.page(rows, limit, ApplicationSummary::id);
     }
 
-    public Application findOne(UUID id) {
-        return applicationRepository.findById(id).orElse(null);
+    public CursorPage<ApplicationSummary> findPageByRaceId(UUID raceId, String cursor, int limit) {
+        Limit fetch = fetchLimit(limit);
+        UUID after = KeysetCursor.decode(cursor);
+        List<ApplicationSummary> rows = after == null
+                ? applicationRepository.findSummariesByRaceId(raceId, fetch)
+                : applicationRepository.findSummariesByRaceIdAfter(raceId, after, fetch);
+        return KeysetCursor.page(rows, limit, ApplicationSummary::id);
     }
 
-    public List<Application> findByRaceId(UUID raceId) {
-        return applicationRepository.findByRaceId(raceId);
+    // One row more than the page to detect whether another page follows
+    private Limit fetchLimit(int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new InvalidPageSizeException(limit, maxLimit);
+        }
+        return Limit.of(limit + 1);
     }
-}
\ No newline at end of file
+}
@@ -1,122 +1,109 @@
 package com.trail.query.service;
 
-import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
+import com.trail.common.logging.EventLogPipeline;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
 
+/**
+ * Query and event-processing events. Everything goes through the
+ * asynchronous {@link EventLogPipeline}; the calling thread only allocates
+ * the event.
+ */
 @Service
-@Slf4j
+@RequiredArgsConstructor
 public class LoggingService {
 
-    public void logRacesQueried(int count, String userRole) {
-        MDC.put("event", "RACES_QUERIED");
-        MDC.put("count", String.valueOf(count));
-        MDC.put("userRole", userRole);
+    private final EventLogPipeline pipeline;
 
-        log.info("Races queried: {} races returned for user with role {}", count, userRole);
-        MDC.clear();
+    public void logRacesQueried(int count, String userRole) {
+        pipeline.info(LoggingService.class, "RACES_QUERIED",
+                "Races queried: {} races returned for user with role {}",
+                "count", count, "userRole", userRole);
     }
 
     public void logRaceQueried(UUID raceId, String raceName, String userRole) {
-        MDC.put("event", "RACE_QUERIED");
-        MDC.put("raceId", raceId.toString());
-        MDC.put("raceName", raceName);
-        MDC.put("userRole", userRole);
-
-        log.info("Race queried: {} by user with role {}", raceName, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "RACE_QUERIED",
+                "Race queried: {} {} by user with role {}",
+                "raceName", raceName, "raceId", raceId, "userRole", userRole);
     }
 
     public void logRacesSearched(String distance, int count, String userRole) {
-        MDC.put("event", "RACES_SEARCHED");
-        MDC.put("distance", distance);
-        MDC.put("count", String.valueOf(count));
-        MDC.put("userRole", userRole);
-
-        log.info("Races searched by distance {}: {} results for user with role {}",
-                distance, count, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "RACES_SEARCHED",
+                "Races searched by distance {}: {} results for user with role {}",
+                "distance", distance, "count", count, "userRole", userRole);
     }
 
     public void logApplicationsQueried(int count, String userRole) {
-        MDC.put("event", "APPLICATIONS_QUERIED");
-        MDC.put("count", String.valueOf(count));
-        MDC.put("userRole", userRole);
-
-        log.info("Applications queried: {} applications returned for user with role {}",
-                count, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "APPLICATIONS_QUERIED",
+                "Applications queried: {} applications returned for user with role {}",
+                "count", count, "userRole", userRole);
     }
 
     public void logApplicationQueried(UUID applicationId, String applicantName, String userRole) {
-        MDC.put("event", "APPLICATION_QUERIED");
-        MDC.put("applicationId", applicationId.toString());
-        MDC.put("applicantName", applicantName);
-        MDC.put("userRole", userRole);
-
-        log.info("Application queried: {} by user with role {}", applicantName, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "APPLICATION_QUERIED",
+                "Application queried: {} {} by user with role {}",
+                "applicantName", applicantName, "applicationId", applicationId, "userRole", userRole);
     }
 
     public void logApplicationsByRaceQueried(UUID raceId, int count, String userRole) {
-        MDC.put("event", "APPLICATIONS_BY_RACE_QUERIED");
-        MDC.put("raceId", raceId.toString());
-        MDC.put("count", String.valueOf(count));
-        MDC.put("userRole", userRole);
-
-        log.info("Applications for race {} queried: {} applications returned for user with role {}",
-                raceId, count, userRole);
-        MDC.clear();
+        pipeline.info(LoggingService.class, "APPLICATIONS_BY_RACE_QUERIED",
+                "Applications for race {} queried: {} applications returned for user with role {}",
+                "raceId", raceId, "count", count, "userRole", userRole);
     }
 
-    public void logApplicationStatsQueried(String userRole) {
-        MDC.put("event", "APPLICATION_STATS_QUERIED");
-        MDC.put("userRole", userRole);
+    public void logStatisticsQueried(UUID raceId, String userRole) {
+        pipeline.info(LoggingService.class, "STATISTICS_QUERIED",
+                "Statistics queried for race {} by user with role {}",
+                "raceId", raceId, "userRole", userRole);
+    }
 
-        log.info("Application statistics queried by user with role {}", userRole);
-        MDC.clear();
+    public void logStatisticsRebuildStarted(String userRole) {
+        pipeline.info(LoggingService.class, "STATISTICS_REBUILD_STARTED",
+                "Statistics rebuild started by user with role {}",
+                "userRole", userRole);
     }
 
-    public void logEventReceived(String eventType, UUID entityId) {
-        MDC.put("event", "EVENT_RECEIVED");
-        MDC.put("eventType", eventType);
-        MDC.put("entityId", entityId.toString());
+    public void logParkedEventsReplayed(int count, String userRole) {
+        pipeline.info(LoggingService.class, "PARKED_EVENTS_REPLAYED",
+                "Parked events replayed: {} events by user with role {}",
+                "count", count, "userRole", userRole);
+    }
 
-        log.info("Event received: {} for entity {}", eventType, entityId);
-        MDC.clear();
+    public void logApplicantsSearched(int queryLength, int count, String userRole) {
+        pipeline.info(LoggingService.class, "APPLICANTS_SEARCHED",
+                "Applicants searched: {} results for a {}-character query by user with role {}",
+                "count", count, "queryLength", queryLength, "userRole", userRole);
     }
 
-    public void logEventProcessed(String eventType, UUID entityId) {
-        MDC.put("event", "EVENT_PROCESSED");
-        MDC.put("eventType", eventType);
-        MDC.put("entityId", entityId.toString());
+    public void logApplicationsExported(UUID raceId, long count, String format, String userRole) {
+        pipeline.info(LoggingService.class, "APPLICATIONS_EXPORTED",
+                "Applications exported: {} rows as {} for race {} by user with role {}",
+                "count", count, "format", format, "raceId", raceId, "userRole", userRole);
+    }
 
-        log.info("Event processed successfully: {} for entity {}", eventType, entityId);
-        MDC.clear();
+    public void logApplicationStatsQueried(String userRole) {
+        pipeline.info(LoggingService.class, "APPLICATION_STATS_QUERIED",
+                "Application statistics queried by user with role {}",
+                "userRole", userRole);
     }
 
-    public void logApiCall(String method, String endpoint, String userRole, long duration) {
-        MDC.put("event", "API_CALL");
-        MDC.put("httpMethod", method);
-        MDC.put("endpoint", endpoint);
-        MDC.put("userRole", userRole);
-        MDC.put("duration", String.valueOf(duration));
+    public void logEventReceived(String eventType, UUID entityId) {
+        pipeline.info(LoggingService.class, "EVENT_RECEIVED",
+                "Event received: {} for entity {}",
+                "eventType", eventType, "entityId", entityId);
+    }
 
-        log.info("API call: {} {} executed in {}ms by user with role {}",
-                method, endpoint, duration, userRole);
-        MDC.clear();
+    public void logEventProcessed(String eventType, UUID entityId) {
+        pipeline.info(LoggingService.class, "EVENT_PROCESSED",
+                "Event processed successfully: {} for entity {}",
+                "eventType", eventType, "entityId", entityId);
     }
 
     public void logError(String operation, Exception error, UUID entityId) {
-        MDC.put("event", "ERROR");
-        MDC.put("operation", operation);
-        if (entityId != null) {
-            MDC.put("entityId", entityId.toString());
-        }
-
-        log.error("Error during {}: {}", operation, error.getMessage(), error);
-        MDC.clear();
+        pipeline.error(LoggingService.class, "ERROR",
+                "Error during {}: {}", error,
+                "operation", operation, "errorMessage", error.getMessage(), "entityId", entityId);
     }
-}
\ No newline at end of file
+}
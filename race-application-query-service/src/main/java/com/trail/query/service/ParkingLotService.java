@@ -0,0 +1,175 @@
+package com.trail.query.service;
+
+import com.rabbitmq.client.GetResponse;
+import com.trail.query.config.RabbitMQConfig;
+import com.trail.query.dto.ParkedEvent;
+import com.trail.query.dto.ParkingLotReplay;
+import com.trail.query.exception.InvalidPageSizeException;
+import com.trail.query.listener.FailedEventRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inspects and replays the events in the parking lot. Both work on the
+ * queue directly: inspecting fetches events without acknowledging them and
+ * returns them to the queue, replaying acknowledges an event only after the
+ * broker confirmed its copy.
+ */
+@Service
+public class ParkingLotService {
+
+    private static final List<String> FAILURE_HEADERS = List.of(
+            FailedEventRouter.RETRY_LEVEL_HEADER,
+            FailedEventRouter.ORIGINAL_ROUTING_KEY_HEADER,
+            FailedEventRouter.EXCEPTION_TYPE_HEADER,
+            FailedEventRouter.EXCEPTION_MESSAGE_HEADER,
+            FailedEventRouter.PARKED_AT_HEADER,
+            "x-death", "x-first-death-exchange", "x-first-death-queue", "x-first-death-reason",
+            "x-last-death-exchange", "x-last-death-queue", "x-last-death-reason");
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final FailedEventRouter failedEventRouter;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final String exchange;
+    private final int maxBatch;
+    private final Counter replayed;
+
+    public ParkingLotService(RabbitTemplate rabbitTemplate,
+                             AmqpAdmin amqpAdmin,
+                             FailedEventRouter failedEventRouter,
+                             MeterRegistry meterRegistry,
+                             @Value("${rabbitmq.exchange}") String exchange,
+                             @Value("${rabbitmq.parking-lot.max-batch:1000}") int maxBatch) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.failedEventRouter = failedEventRouter;
+        this.exchange = exchange;
+        this.maxBatch = maxBatch;
+        this.replayed = Counter.builder("projection.events.replayed")
+                .description("Parked events sent back to their partitions")
+                .register(meterRegistry);
+        Gauge.builder("projection.parking-lot.depth", this, service -> service.depth(RabbitMQConfig.PARKING_LOT_QUEUE))
+                .description("Events waiting in the parking lot")
+                .register(meterRegistry);
+        Gauge.builder("projection.retry.pending", this, service -> {
+                    long pending = 0;
+                    for (int attempt = 1; attempt <= failedEventRouter.maxAttempts(); attempt++) {
+                        pending += service.depth(RabbitMQConfig.RETRY_QUEUE_PREFIX + attempt);
+                    }
+                    return pending;
+                })
+                .description("Events waiting in a delay queue for their next attempt")
+                .register(meterRegistry);
+    }
+
+    public List<ParkedEvent> peek(int limit) {
+        checkLimit(limit);
+        return rabbitTemplate.execute(channel -> {
+            List<ParkedEvent> events = new ArrayList<>();
+            long lastTag = -1;
+            try {
+                GetResponse response;
+                while (events.size() < limit
+                        && (response = channel.basicGet(RabbitMQConfig.PARKING_LOT_QUEUE, false)) != null) {
+                    lastTag = response.getEnvelope().getDeliveryTag();
+                    events.add(toParkedEvent(response));
+                }
+            } finally {
+                if (lastTag >= 0) {
+                    channel.basicNack(lastTag, true, true);
+                }
+            }
+            return events;
+        });
+    }
+
+    /**
+     * Republishes up to {@code limit} parked events to the main exchange under
+     * their original routing key, with a fresh retry budget. An event is only
+     * taken off the parking lot once the broker confirmed its copy; if it
+     * isn't, the event goes back and the {@link AmqpException} is rethrown.
+     */
+    public ParkingLotReplay replay(int limit) {
+        checkLimit(limit);
+        int count = rabbitTemplate.execute(channel -> {
+            int sent = 0;
+            GetResponse response;
+            while (sent < limit && (response = channel.basicGet(RabbitMQConfig.PARKING_LOT_QUEUE, false)) != null) {
+                long deliveryTag = response.getEnvelope().getDeliveryTag();
+                try {
+                    failedEventRouter.sendConfirmed(exchange, routingKey(response), toReplayedMessage(response));
+                } catch (AmqpException e) {
+                    // Events replayed before this one stay replayed
+                    channel.basicNack(deliveryTag, false, true);
+                    throw e;
+                }
+                channel.basicAck(deliveryTag, false);
+                replayed.increment();
+                sent++;
+            }
+            return sent;
+        });
+        return new ParkingLotReplay(count, depth(RabbitMQConfig.PARKING_LOT_QUEUE));
+    }
+
+    private long depth(String queue) {
+        QueueInformation information = amqpAdmin.getQueueInfo(queue);
+        return information == null ? 0 : information.getMessageCount();
+    }
+
+    private void checkLimit(int limit) {
+        if (limit < 1 || limit > maxBatch) {
+            throw new InvalidPageSizeException(limit, maxBatch);
+        }
+    }
+
+    private Message toReplayedMessage(GetResponse response) {
+        MessageProperties properties = propertiesConverter.toMessageProperties(
+                response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name());
+        FAILURE_HEADERS.forEach(properties.getHeaders()::remove);
+        return new Message(response.getBody(), properties);
+    }
+
+    private static ParkedEvent toParkedEvent(GetResponse response) {
+        Map<String, Object> headers = response.getProps().getHeaders() == null
+                ? Map.of() : response.getProps().getHeaders();
+        Object attempts = headers.get(FailedEventRouter.RETRY_LEVEL_HEADER);
+        return new ParkedEvent(
+                routingKey(response),
+                attempts == null ? 0 : Integer.parseInt(attempts.toString()),
+                header(headers, FailedEventRouter.EXCEPTION_TYPE_HEADER),
+                header(headers, FailedEventRouter.EXCEPTION_MESSAGE_HEADER),
+                header(headers, FailedEventRouter.PARKED_AT_HEADER),
+                new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    // Events parked by the router carry their routing key in a header; events
+    // dead-lettered by a partition queue kept the original one
+    private static String routingKey(GetResponse response) {
+        Map<String, Object> headers = response.getProps().getHeaders();
+        Object original = headers == null ? null : headers.get(FailedEventRouter.ORIGINAL_ROUTING_KEY_HEADER);
+        return original != null ? original.toString() : response.getEnvelope().getRoutingKey();
+    }
+
+    private static String header(Map<String, Object> headers, String name) {
+        Object value = headers.get(name);
+        return value == null ? null : value.toString();
+    }
+}
@@ -1,8 +1,14 @@
 package com.trail.query.service;
 
+import com.trail.query.catalog.RaceCatalog;
 import com.trail.query.entity.Race;
+import com.trail.query.exception.InvalidPageSizeException;
+import com.trail.query.pagination.CursorPage;
+import com.trail.query.pagination.KeysetCursor;
 import com.trail.query.repository.RaceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,12 +18,29 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RaceQueryService {
     private final RaceRepository raceRepository;
+    private final RaceCatalog raceCatalog;
+
+    @Value("${pagination.max-limit:500}")
+    private int maxLimit;
 
     public List<Race> findAll() {
-        return raceRepository.findAll();
+        return raceCatalog.findAll();
     }
 
     public Race findOne(UUID id) {
-        return raceRepository.findById(id).orElse(null);
+        return raceCatalog.findById(id).orElse(null);
+    }
+
+    public CursorPage<Race> findPage(String cursor, int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new InvalidPageSizeException(limit, maxLimit);
+        }
+        // One row more than the page to detect whether another page follows
+        Limit fetch = Limit.of(limit + 1);
+        UUID after = KeysetCursor.decode(cursor);
+        List<Race> rows = after == null
+                ? raceRepository.findByOrderByIdAsc(fetch)
+                : raceRepository.findByIdGreaterThanOrderByIdAsc(after, fetch);
+        return KeysetCursor.page(rows, limit, Race::getId);
     }
 }
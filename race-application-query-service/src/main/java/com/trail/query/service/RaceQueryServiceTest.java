@@ -1,10 +1,11 @@
 package com.trail.query.service;
 
+import com.trail.query.catalog.RaceCatalog;
 import com.trail.query.entity.Race;
 import com.trail.query.repository.RaceRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,9 +23,14 @@ class RaceQueryServiceTest {
     @Mock
     private RaceRepository raceRepository;
 
-    @InjectMocks
     private RaceQueryService raceQueryService;
 
+    @BeforeEach
+    void setUp() {
+        // The catalog is not loaded, so reads fall through to the repository
+        raceQueryService = new RaceQueryService(raceRepository, new RaceCatalog(raceRepository));
+    }
+
     @Test
     void shouldReturnAllRaces() {
         // Given
@@ -0,0 +1,66 @@
+package com.trail.query.service;
+
+import com.trail.query.catalog.RaceCatalog;
+import com.trail.query.dto.RaceStatistics;
+import com.trail.query.dto.StatisticsOverview;
+import com.trail.query.entity.Race;
+import com.trail.query.entity.RaceClubStats;
+import com.trail.query.entity.RaceStats;
+import com.trail.query.exception.RaceNotFoundException;
+import com.trail.query.repository.RaceClubStatsRepository;
+import com.trail.query.repository.RaceStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads the statistics maintained by {@code ProjectionService}. Nothing here
+ * counts applications: a race costs one primary-key lookup plus its club rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatisticsQueryService {
+
+    private final RaceCatalog raceCatalog;
+    private final RaceStatsRepository raceStatsRepository;
+    private final RaceClubStatsRepository raceClubStatsRepository;
+
+    public RaceStatistics forRace(UUID raceId) {
+        Race race = raceCatalog.findById(raceId).orElseThrow(() -> new RaceNotFoundException(raceId));
+        long applicants = raceStatsRepository.findById(raceId).map(RaceStats::getApplicants).orElse(0L);
+        List<RaceStatistics.ClubCount> clubs = raceClubStatsRepository.findByKeyRaceIdOrderByApplicantsDesc(raceId)
+                .stream()
+                .map(stats -> new RaceStatistics.ClubCount(clubName(stats), stats.getApplicants()))
+                .toList();
+        return new RaceStatistics(raceId, race.getName(), race.getDistance(), applicants, clubs);
+    }
+
+    public StatisticsOverview overview() {
+        Map<UUID, Long> applicantsByRace = new HashMap<>();
+        for (RaceStats stats : raceStatsRepository.findAll()) {
+            applicantsByRace.put(stats.getRaceId(), stats.getApplicants());
+        }
+
+        long total = 0;
+        Map<Race.Distance, Long> byDistance = new EnumMap<>(Race.Distance.class);
+        List<StatisticsOverview.RaceCount> races = new ArrayList<>();
+        for (Race race : raceCatalog.findAll()) {
+            long applicants = applicantsByRace.getOrDefault(race.getId(), 0L);
+            total += applicants;
+            byDistance.merge(race.getDistance(), applicants, Long::sum);
+            races.add(new StatisticsOverview.RaceCount(race.getId(), race.getName(), race.getDistance(), applicants));
+        }
+        return new StatisticsOverview(total, byDistance, races);
+    }
+
+    private static String clubName(RaceClubStats stats) {
+        String club = stats.getKey().getClub();
+        return RaceClubStats.NO_CLUB.equals(club) ? null : club;
+    }
+}
@@ -0,0 +1,87 @@
+package com.trail.query.cache;
+
+import com.trail.query.dto.ApplicationSummary;
+import com.trail.query.repository.ApplicationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ApplicationCacheTest {
+
+    @Mock
+    private ApplicationRepository applicationRepository;
+
+    private ApplicationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ApplicationCache(applicationRepository, 100, 600);
+    }
+
+    @Test
+    void shouldServeRepeatedLookupFromCache() {
+        ApplicationSummary application = application(UUID.randomUUID());
+        when(applicationRepository.findSummaryById(application.id())).thenReturn(Optional.of(application));
+
+        cache.findById(application.id());
+        cache.findById(application.id());
+
+        verify(applicationRepository, times(1)).findSummaryById(application.id());
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        ApplicationSummary application = application(UUID.randomUUID());
+        when(applicationRepository.findSummaryById(application.id())).thenReturn(Optional.of(application));
+
+        cache.findById(application.id());
+        cache.invalidate(application.id());
+        cache.findById(application.id());
+
+        verify(applicationRepository, times(2)).findSummaryById(application.id());
+    }
+
+    @Test
+    void shouldInvalidateOnlyApplicationsOfDeletedRace() {
+        UUID raceId = UUID.randomUUID();
+        ApplicationSummary changed = application(raceId);
+        ApplicationSummary untouched = application(UUID.randomUUID());
+        when(applicationRepository.findSummaryById(changed.id())).thenReturn(Optional.of(changed));
+        when(applicationRepository.findSummaryById(untouched.id())).thenReturn(Optional.of(untouched));
+        cache.findById(changed.id());
+        cache.findById(untouched.id());
+
+        cache.invalidateRace(raceId);
+        cache.findById(changed.id());
+        cache.findById(untouched.id());
+
+        verify(applicationRepository, times(2)).findSummaryById(changed.id());
+        verify(applicationRepository, times(1)).findSummaryById(untouched.id());
+    }
+
+    @Test
+    void shouldNotCacheMissingApplication() {
+        UUID id = UUID.randomUUID();
+        when(applicationRepository.findSummaryById(id)).thenReturn(Optional.empty());
+
+        assertThat(cache.findById(id)).isEmpty();
+        assertThat(cache.findById(id)).isEmpty();
+
+        verify(applicationRepository, times(2)).findSummaryById(id);
+    }
+
+    private static ApplicationSummary application(UUID raceId) {
+        return new ApplicationSummary(UUID.randomUUID(), "Marko", "Horvat", "AK Zagreb", raceId);
+    }
+}
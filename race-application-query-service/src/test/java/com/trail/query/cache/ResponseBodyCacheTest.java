@@ -0,0 +1,83 @@
+package com.trail.query.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBodyCacheTest {
+
+    private final ResponseBodyCache cache =
+            new ResponseBodyCache(new ObjectMapper(), new SimpleMeterRegistry(), 1, true);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldEncodeOncePerETag() {
+        ResponseBodyCache.Body first = cache.get(ResponseBodyCache.RACES, "\"races-a-1\"", this::load);
+        ResponseBodyCache.Body second = cache.get(ResponseBodyCache.RACES, "\"races-a-1\"", this::load);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(new String(first.json(), StandardCharsets.UTF_8)).isEqualTo("[\"Zagreb\",\"Split\"]");
+        assertThat(first.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRebuildWhenTheETagMovedOrTheEntryWasDropped() {
+        cache.get(ResponseBodyCache.RACES, "\"races-a-1\"", this::load);
+        cache.get(ResponseBodyCache.RACES, "\"races-a-2\"", this::load);
+        cache.invalidate(ResponseBodyCache.RACES);
+        cache.get(ResponseBodyCache.RACES, "\"races-a-2\"", this::load);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void shouldServeTheGzippedCopyUnderItsOwnETag() throws IOException {
+        ResponseBodyCache.Body body = cache.get(ResponseBodyCache.RACES, "\"races-a-1\"", this::load);
+
+        ResponseEntity<byte[]> response = body.toResponse(true, CacheControl.noCache());
+
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"races-a-1-gzip\"");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertThat(in.readAllBytes()).isEqualTo(body.json());
+        }
+    }
+
+    @Test
+    void shouldGzipOnlyWhenTheClientAcceptsIt() {
+        assertThat(cache.gzip(request("gzip, deflate, br"))).isTrue();
+        assertThat(cache.gzip(request("br;q=1.0, gzip;q=0.8"))).isTrue();
+        assertThat(cache.gzip(request("gzip;q=0"))).isFalse();
+        assertThat(cache.gzip(request("identity"))).isFalse();
+        assertThat(cache.gzip(request(null))).isFalse();
+    }
+
+    private List<String> load() {
+        loads.incrementAndGet();
+        return List.of("Zagreb", "Split");
+    }
+
+    private static ServletWebRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request);
+    }
+}
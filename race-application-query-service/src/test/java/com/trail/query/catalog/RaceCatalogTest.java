@@ -0,0 +1,106 @@
+package com.trail.query.catalog;
+
+import com.trail.query.entity.Race;
+import com.trail.query.repository.RaceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RaceCatalogTest {
+
+    @Mock
+    private RaceRepository raceRepository;
+
+    @Test
+    void shouldReadThroughToRepositoryUntilLoaded() {
+        UUID id = UUID.randomUUID();
+        Race race = race(id, "Zagreb Marathon");
+        when(raceRepository.findById(id)).thenReturn(Optional.of(race));
+        RaceCatalog catalog = new RaceCatalog(raceRepository);
+
+        assertThat(catalog.findById(id)).contains(race);
+    }
+
+    @Test
+    void shouldServeLoadedSnapshotWithoutRepository() {
+        UUID id = UUID.randomUUID();
+        when(raceRepository.findAll()).thenReturn(List.of(race(id, "Plitvice Trail")));
+        RaceCatalog catalog = new RaceCatalog(raceRepository);
+        catalog.load();
+
+        assertThat(catalog.findById(id)).get().extracting(Race::getName).isEqualTo("Plitvice Trail");
+        assertThat(catalog.findById(UUID.randomUUID())).isEmpty();
+        verify(raceRepository, never()).findById(id);
+    }
+
+    @Test
+    void shouldApplyChangesAsNewSnapshots() {
+        UUID first = new UUID(0x8000000000000000L, 1);
+        UUID second = new UUID(1, 1);
+        when(raceRepository.findAll()).thenReturn(List.of(race(first, "First")));
+        RaceCatalog catalog = new RaceCatalog(raceRepository);
+        catalog.load();
+        List<Race> before = catalog.findAll();
+
+        catalog.put(race(second, "Second"));
+        catalog.put(race(first, "First renamed"));
+
+        assertThat(before).extracting(Race::getName).containsExactly("First");
+        // Ordered as Postgres orders uuid: unsigned, so the high bit sorts last
+        assertThat(catalog.findAll()).extracting(Race::getName).containsExactly("Second", "First renamed");
+
+        catalog.remove(second);
+        assertThat(catalog.findAll()).extracting(Race::getId).containsExactly(first);
+    }
+
+    @Test
+    void shouldReloadWhenChangeArrivesDuringLoad() {
+        UUID id = UUID.randomUUID();
+        RaceCatalog catalog = new RaceCatalog(raceRepository);
+        AtomicInteger loads = new AtomicInteger();
+        when(raceRepository.findAll()).thenAnswer(invocation -> {
+            if (loads.getAndIncrement() == 0) {
+                // Committed after the query read its rows
+                catalog.put(race(id, "Late race"));
+                return List.of();
+            }
+            return List.of(race(id, "Late race"));
+        });
+
+        catalog.load();
+
+        verify(raceRepository, times(2)).findAll();
+        assertThat(catalog.findById(id)).isPresent();
+    }
+
+    @Test
+    void shouldNotExposeCallerOwnedEntity() {
+        UUID id = UUID.randomUUID();
+        when(raceRepository.findAll()).thenReturn(List.of());
+        RaceCatalog catalog = new RaceCatalog(raceRepository);
+        catalog.load();
+        Race race = race(id, "Original");
+
+        catalog.put(race);
+        race.setName("Changed later");
+
+        assertThat(catalog.findById(id)).get().extracting(Race::getName).isEqualTo("Original");
+    }
+
+    private static Race race(UUID id, String name) {
+        return new Race(id, name, Race.Distance.TenK, null);
+    }
+}
@@ -0,0 +1,116 @@
+package com.trail.query.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldBalanceReadsAcrossHealthyReplicas() throws Exception {
+        Connection first = mock(Connection.class);
+        Connection second = mock(Connection.class);
+        ReplicaPool pool = pool(primary(), replica("a", first, 0), replica("b", second, 0));
+        pool.checkReplicas();
+
+        assertThat(List.of(pool.getConnection(), pool.getConnection(), pool.getConnection(), pool.getConnection()))
+                .containsExactlyInAnyOrder(first, first, second, second);
+    }
+
+    @Test
+    void shouldFallBackToThePrimaryWhenReplicasLagOrAreDown() throws Exception {
+        Connection primaryConnection = mock(Connection.class);
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaPool.Replica lagging = replica("lagging", mock(Connection.class), 5000);
+        ReplicaPool.Replica down = new ReplicaPool.Replica("down", mock(DataSource.class), failing());
+        ReplicaPool pool = pool(primary, lagging, down);
+        pool.checkReplicas();
+
+        assertThat(lagging.healthy()).isTrue();
+        assertThat(down.healthy()).isFalse();
+        assertThat(pool.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.counter("datasource.replica.fallbacks").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEjectAReplicaWhoseConnectionFails() throws Exception {
+        Connection primaryConnection = mock(Connection.class);
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        DataSource broken = failing();
+        ReplicaPool.Replica replica = new ReplicaPool.Replica("broken", broken, checkDataSource(0));
+        ReplicaPool pool = pool(primary, replica);
+        pool.checkReplicas();
+
+        assertThat(pool.getConnection()).isSameAs(primaryConnection);
+        assertThat(replica.healthy()).isFalse();
+    }
+
+    @Test
+    void shouldUseThePrimaryWhenAsked() throws Exception {
+        Connection primaryConnection = mock(Connection.class);
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaPool pool = pool(primary, replica("a", mock(Connection.class), 0));
+        pool.checkReplicas();
+
+        Connection connection = DataSourceRouting.onPrimary(() -> {
+            try {
+                return pool.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(connection).isSameAs(primaryConnection);
+    }
+
+    private ReplicaPool pool(DataSource primary, ReplicaPool.Replica... replicas) {
+        return new ReplicaPool(primary, List.of(replicas), 1000, 1, meterRegistry);
+    }
+
+    private static DataSource primary() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        return primary;
+    }
+
+    private static ReplicaPool.Replica replica(String name, Connection connection, double lagMs) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return new ReplicaPool.Replica(name, dataSource, checkDataSource(lagMs));
+    }
+
+    private static DataSource checkDataSource(double lagMs) throws SQLException {
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.next()).thenReturn(true);
+        when(rows.getDouble(1)).thenReturn(lagMs);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(rows);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    private static DataSource failing() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        return dataSource;
+    }
+}
@@ -0,0 +1,247 @@
+package com.trail.query.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.query.controller.ChangeFeedController;
+import com.trail.query.dto.ChangeNotification;
+import com.trail.query.exception.ChangeFeedFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class ChangeFeedTest {
+
+    private static final Pattern LAST_ID = Pattern.compile("(?s).*id:(\\S+)");
+    private static final String NEVER_READS = "X-Never-Reads";
+
+    private final ChangeFeed changeFeed = new ChangeFeed(new ObjectMapper(), new SimpleMeterRegistry(), 2, 1, 2, 2, 4, 1000, 4);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ChangeFeedController(changeFeed)).build();
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.destroy();
+    }
+
+    @Test
+    void shouldPushChangesToSubscribers() throws Exception {
+        UUID raceId = UUID.randomUUID();
+        MockHttpServletResponse response = subscribe(null);
+        awaitContent(response, "event:subscribed");
+
+        changeFeed.publish(ChangeNotification.Type.APPLICATIONS_CHANGED, raceId);
+
+        awaitContent(response, "event:applications.changed\ndata:{\"type\":\"applications.changed\",\"raceId\":\""
+                + raceId + "\"}");
+    }
+
+    @Test
+    void shouldReplayMissedChangesOnResume() throws Exception {
+        MockHttpServletResponse first = subscribe(null);
+        String lastEventId = lastEventId(awaitContent(first, "event:subscribed"));
+        UUID created = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        changeFeed.publish(ChangeNotification.Type.RACE_CREATED, created);
+        changeFeed.publish(ChangeNotification.Type.RACE_DELETED, deleted);
+
+        MockHttpServletResponse resumed = subscribe(lastEventId);
+
+        String content = awaitContent(resumed, deleted.toString());
+        assertThat(content).contains(created.toString()).doesNotContain("event:subscribed", "event:reset");
+        assertThat(content.indexOf(created.toString())).isLessThan(content.indexOf(deleted.toString()));
+    }
+
+    @Test
+    void shouldResetWhenTheMissedChangesAreNoLongerKept() throws Exception {
+        String lastEventId = lastEventId(awaitContent(subscribe(null), "event:subscribed"));
+        for (int i = 0; i < 3; i++) {
+            changeFeed.publish(ChangeNotification.Type.RACE_UPDATED, UUID.randomUUID());
+        }
+
+        assertThat(awaitContent(subscribe(lastEventId), "event:reset")).doesNotContain("race.updated");
+    }
+
+    @Test
+    void shouldResetForAnIdOfAnotherProcess() throws Exception {
+        awaitContent(subscribe("lzq8a1b2-42"), "event:reset");
+    }
+
+    @Test
+    void shouldRejectSubscribersOverTheLimit() {
+        changeFeed.subscribe(null);
+        changeFeed.subscribe(null);
+
+        assertThatThrownBy(() -> changeFeed.subscribe(null)).isInstanceOf(ChangeFeedFullException.class);
+    }
+
+    @Test
+    void shouldDropASubscriberWhoseQueueIsFullWithoutWaitingForIt() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Holds every send, like a client that stopped reading
+        List<Runnable> pendingSends = new ArrayList<>();
+        ThreadPoolExecutor stalled = mock(ThreadPoolExecutor.class);
+        doAnswer(invocation -> pendingSends.add(invocation.getArgument(0))).when(stalled).execute(any());
+        ChangeFeed feed = new ChangeFeed(new ObjectMapper(), meterRegistry, 10, 1, 10, 2, 1000, 4, stalled);
+        feed.subscribe(null);
+
+        for (int i = 0; i < 3; i++) {
+            feed.publish(ChangeNotification.Type.RACE_UPDATED, UUID.randomUUID());
+        }
+
+        assertThat(meterRegistry.get("feed.subscribers.dropped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("feed.subscribers").gauge().value()).isZero();
+        // Room again for a client that reconnects
+        feed.subscribe(null);
+        assertThat(meterRegistry.get("feed.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepServingReadersWhileSeveralClientsNeverRead() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ThreadPoolExecutor senders = ChangeFeed.senders(2);
+        ChangeFeed feed = new ChangeFeed(new ObjectMapper(), meterRegistry, 10, 1, 10, 16, 50, 8, senders);
+        CountDownLatch writeTimeout = new CountDownLatch(1);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ChangeFeedController(feed))
+                .addFilter((request, response, chain) -> chain.doFilter(request,
+                        ((HttpServletRequest) request).getHeader(NEVER_READS) != null
+                                ? new NeverReadingResponse((HttpServletResponse) response, writeTimeout)
+                                : response))
+                .build();
+        try {
+            // More than there are sender threads, so without spares they would hold all of them
+            for (int i = 0; i < 4; i++) {
+                mvc.perform(get("/api/changes").header(NEVER_READS, "true")).andExpect(request().asyncStarted());
+            }
+            feed.publish(ChangeNotification.Type.RACE_CREATED, UUID.randomUUID());
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((senders.getActiveCount() < 2 || senders.getQueue().size() < 2)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            MockHttpServletResponse reader = mvc.perform(get("/api/changes"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn()
+                    .getResponse();
+            UUID raceId = UUID.randomUUID();
+            feed.publish(ChangeNotification.Type.RACE_UPDATED, raceId);
+
+            deadline = System.currentTimeMillis() + 5000;
+            while (!reader.getContentAsString().contains(raceId.toString()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(60);
+                feed.checkStalledWrites();
+            }
+
+            assertThat(reader.getContentAsString()).contains(raceId.toString());
+            // The clients queued behind the first two have blocked by now too
+            Thread.sleep(60);
+            feed.checkStalledWrites();
+            assertThat(meterRegistry.get("feed.subscribers.dropped").counter().count()).isEqualTo(4);
+            assertThat(meterRegistry.get("feed.subscribers").gauge().value()).isEqualTo(1);
+            assertThat(senders.getCorePoolSize()).isEqualTo(6);
+
+            // The spares go once the container gives up on the blocked writes
+            writeTimeout.countDown();
+            deadline = System.currentTimeMillis() + 5000;
+            while (senders.getCorePoolSize() > 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(senders.getCorePoolSize()).isEqualTo(2);
+        } finally {
+            writeTimeout.countDown();
+            feed.destroy();
+        }
+    }
+
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        var request = get("/api/changes");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = response.getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+    /**
+     * A client that stopped reading: writes of the senders block until the
+     * container's write timeout, then fail. Frames sent before the stream was
+     * set up are written by the request thread, which is let through so the
+     * test can go on.
+     */
+    private static final class NeverReadingResponse extends HttpServletResponseWrapper {
+        private final CountDownLatch writeTimeout;
+
+        NeverReadingResponse(HttpServletResponse response, CountDownLatch writeTimeout) {
+            super(response);
+            this.writeTimeout = writeTimeout;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    if (!Thread.currentThread().getName().startsWith("change-feed-")) {
+                        return;
+                    }
+                    try {
+                        writeTimeout.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IOException("Write timed out");
+                }
+
+                @Override
+                public boolean isReady() {
+                    return false;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+        }
+    }
+
+    private static String lastEventId(String content) {
+        Matcher matcher = LAST_ID.matcher(content);
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1);
+    }
+}
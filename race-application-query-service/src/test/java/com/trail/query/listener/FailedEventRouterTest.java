@@ -0,0 +1,95 @@
+package com.trail.query.listener;
+
+import com.trail.query.config.RabbitMQConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class FailedEventRouterTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FailedEventRouter router = new FailedEventRouter(rabbitTemplate, meterRegistry, 3, 1000, 2.0, 3000, 50);
+
+    @Test
+    void shouldGrowDelaysExponentiallyUpToTheMaximum() {
+        assertThat(router.delayMs(1)).isEqualTo(1000);
+        assertThat(router.delayMs(2)).isEqualTo(2000);
+        assertThat(router.delayMs(3)).isEqualTo(3000);
+    }
+
+    @Test
+    void shouldSendAFailedEventToTheDelayQueueOfItsNextAttempt() {
+        confirmWith(new CorrelationData.Confirm(true, null));
+
+        router.retry(message("p1.race.updated", 1), new IllegalArgumentException("bad distance"));
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.RETRY_EXCHANGE), eq("p1.race.updated"), sent.capture(),
+                any(CorrelationData.class));
+        assertThat(FailedEventRouter.attempts(sent.getValue())).isEqualTo(2);
+        assertThat(meterRegistry.counter("projection.events.retried").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldParkAnEventWhoseAttemptsAreUsedUp() {
+        confirmWith(new CorrelationData.Confirm(true, null));
+
+        router.retry(message("p1.race.updated", 3), new IllegalArgumentException("bad distance"));
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(""), eq(RabbitMQConfig.PARKING_LOT_QUEUE), sent.capture(),
+                any(CorrelationData.class));
+        assertThat(sent.getValue().getMessageProperties().<String>getHeader(FailedEventRouter.ORIGINAL_ROUTING_KEY_HEADER))
+                .isEqualTo("p1.race.updated");
+        assertThat(sent.getValue().getMessageProperties().<String>getHeader(FailedEventRouter.EXCEPTION_MESSAGE_HEADER))
+                .isEqualTo("bad distance");
+        assertThat(meterRegistry.counter("projection.events.parked").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFailWhenTheBrokerNacksTheRetry() {
+        confirmWith(new CorrelationData.Confirm(false, "queue full"));
+
+        assertThatThrownBy(() -> router.retry(message("p1.race.updated", 1), new IllegalArgumentException("bad distance")))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining("queue full");
+        assertThat(meterRegistry.counter("projection.events.retried").count()).isZero();
+    }
+
+    @Test
+    void shouldFailWhenTheParkedEventIsNotConfirmedInTime() {
+        assertThatThrownBy(() -> router.park(message("p1.race.updated", 0), new IllegalArgumentException("bad json")))
+                .isInstanceOf(AmqpTimeoutException.class);
+        assertThat(meterRegistry.counter("projection.events.parked").count()).isZero();
+    }
+
+    private void confirmWith(CorrelationData.Confirm confirm) {
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(confirm);
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static Message message(String routingKey, int attempts) {
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedRoutingKey(routingKey);
+        properties.setHeader(FailedEventRouter.RETRY_LEVEL_HEADER, String.valueOf(attempts));
+        return new Message("{}".getBytes(), properties);
+    }
+}
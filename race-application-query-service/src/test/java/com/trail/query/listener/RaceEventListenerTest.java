@@ -0,0 +1,196 @@
+package com.trail.query.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.query.config.RabbitMQConfig;
+import com.trail.query.entity.Race;
+import com.trail.query.event.ApplicationCreatedEvent;
+import com.trail.query.event.ApplicationDeletedEvent;
+import com.trail.query.event.ApplicationsImportedEvent;
+import com.trail.query.event.RaceUpdatedEvent;
+import com.trail.query.monitoring.ProjectionLag;
+import com.trail.query.projection.ProjectionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RaceEventListenerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    @Mock
+    private ProjectionService projectionService;
+    @Mock
+    private FailedEventRouter failedEventRouter;
+    @Mock
+    private ProjectionLag projectionLag;
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private RaceEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new RaceEventListener(projectionService, reader(objectMapper), failedEventRouter, projectionLag,
+                rabbitTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldApplyBatchInQueueOrderMergingOnlyConsecutiveApplicationEvents() throws Exception {
+        Race race = new Race(UUID.randomUUID(), "Zagreb Trail", Race.Distance.HalfMarathon, 100);
+        ApplicationCreatedEvent first = application(race);
+        ApplicationCreatedEvent second = application(race);
+        ApplicationCreatedEvent imported = application(race);
+        UUID deletedId = UUID.randomUUID();
+        when(projectionService.applyApplicationsCreated(anyMap())).thenReturn(Set.of(race.getId()));
+        when(projectionService.applyRaceUpdated(any())).thenReturn(Optional.of(race));
+        when(projectionService.applyApplicationsDeleted(anyMap())).thenReturn(Set.of(race.getId()));
+
+        listener.onMessageBatch(List.of(
+                message("p1.application.created", first),
+                message("p1.application.created", second),
+                message("p1.application.imported", new ApplicationsImportedEvent(List.of(imported))),
+                message("p1.race.updated", new RaceUpdatedEvent(race.getId(), "Zagreb Trail", "Marathon", 100)),
+                message("p1.application.deleted", new ApplicationDeletedEvent(deletedId, race.getId(), null)),
+                message("p1.application.created", application(race))));
+
+        ArgumentCaptor<Map<String, List<ApplicationCreatedEvent>>> created = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Map<String, ApplicationDeletedEvent>> deleted = ArgumentCaptor.forClass(Map.class);
+        InOrder order = inOrder(projectionService);
+        order.verify(projectionService).applyApplicationsCreated(created.capture());
+        order.verify(projectionService).applyRaceUpdated(any());
+        order.verify(projectionService).applyApplicationsDeleted(deleted.capture());
+        order.verify(projectionService).applyApplicationsCreated(created.capture());
+        order.verifyNoMoreInteractions();
+
+        assertThat(created.getAllValues().get(0)).containsOnlyKeys("m1", "m2", "m3");
+        assertThat(created.getAllValues().get(0).values()).flatMap(events -> events)
+                .extracting(ApplicationCreatedEvent::getId)
+                .containsExactly(first.getId(), second.getId(), imported.getId());
+        assertThat(deleted.getValue().get("m5").getId()).isEqualTo(deletedId);
+        assertThat(created.getAllValues().get(1)).containsOnlyKeys("m6");
+    }
+
+    @Test
+    void shouldPassAppliedEventsOnToTheViewsUnderTheirRoutingKey() throws Exception {
+        UUID raceId = UUID.randomUUID();
+        Message message = message("p0.application.deleted", new ApplicationDeletedEvent(UUID.randomUUID(), raceId, null));
+
+        listener.onMessageBatch(List.of(message));
+
+        ArgumentCaptor<Message> broadcast = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.VIEW_EXCHANGE), eq("p0.application.deleted"), broadcast.capture());
+        assertThat(broadcast.getValue().getBody()).isEqualTo(message.getBody());
+        assertThat(broadcast.getValue().getMessageProperties().getMessageId()).isEqualTo("m1");
+        verify(projectionLag).applied(message);
+    }
+
+    @Test
+    void shouldSkipMessagesWithUnknownRoutingKeys() throws Exception {
+        listener.onMessageBatch(List.of(message("p0.race.archived", new RaceUpdatedEvent())));
+
+        verifyNoInteractions(projectionService);
+    }
+
+    @Test
+    void shouldRetryOnlyTheFailingEventOfAGroup() throws Exception {
+        Race race = new Race(UUID.randomUUID(), "Zagreb Trail", Race.Distance.HalfMarathon, 100);
+        ApplicationCreatedEvent good = application(race);
+        ApplicationCreatedEvent poison = application(race);
+        when(projectionService.applyApplicationsCreated(anyMap())).thenAnswer(invocation -> {
+            Map<String, List<ApplicationCreatedEvent>> events = invocation.getArgument(0);
+            if (events.values().stream().flatMap(List::stream).anyMatch(event -> event.getId().equals(poison.getId()))) {
+                throw new IllegalArgumentException("No enum constant");
+            }
+            return Set.of(race.getId());
+        });
+        Message poisonMessage = message("p2.application.created", poison);
+
+        Message goodMessage = message("p2.application.created", good);
+
+        listener.onMessageBatch(List.of(goodMessage, poisonMessage));
+
+        verify(projectionService).applyApplicationsCreated(Map.of(goodMessage.getMessageProperties().getMessageId(), List.of(good)));
+        verify(failedEventRouter).retry(eq(poisonMessage), any(IllegalArgumentException.class));
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.VIEW_EXCHANGE), eq("p2.application.created"), any(Message.class));
+    }
+
+    @Test
+    void shouldRethrowInfrastructureFailuresForTheContainerToRetry() throws Exception {
+        when(projectionService.applyApplicationsDeleted(anyMap()))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"));
+
+        assertThatThrownBy(() -> listener.onMessageBatch(List.of(
+                message("p0.application.deleted", new ApplicationDeletedEvent(UUID.randomUUID(), UUID.randomUUID(), null)))))
+                .isInstanceOf(CannotCreateTransactionException.class);
+        verifyNoInteractions(failedEventRouter, rabbitTemplate);
+    }
+
+    @Test
+    void shouldFailTheBatchWhenAFailedEventCannotBeRerouted() throws Exception {
+        when(projectionService.applyApplicationsDeleted(anyMap())).thenThrow(new IllegalStateException("constraint"));
+        doThrow(new AmqpTimeoutException("not confirmed")).when(failedEventRouter).retry(any(), any());
+
+        assertThatThrownBy(() -> listener.onMessageBatch(List.of(
+                message("p0.application.deleted", new ApplicationDeletedEvent(UUID.randomUUID(), UUID.randomUUID(), null)))))
+                .isInstanceOf(AmqpTimeoutException.class);
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    void shouldParkUnreadableEventsWithoutRetrying() {
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedRoutingKey("p0.race.updated");
+        Message unreadable = new Message("{not json".getBytes(), properties);
+
+        listener.onMessageBatch(List.of(unreadable));
+
+        verify(failedEventRouter).park(eq(unreadable), any());
+        verifyNoInteractions(projectionService, rabbitTemplate);
+    }
+
+    static RaceEventReader reader(ObjectMapper objectMapper) {
+        return new RaceEventReader(objectMapper, "race.created", "race.updated", "race.deleted",
+                "application.created", "application.imported", "application.deleted");
+    }
+
+    private static ApplicationCreatedEvent application(Race race) {
+        return new ApplicationCreatedEvent(UUID.randomUUID(), "Ana", "Horvat", "AK Zagreb", race);
+    }
+
+    private Message message(String routingKey, Object event) throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedRoutingKey(routingKey);
+        properties.setMessageId("m" + messageIds.incrementAndGet());
+        return new Message(objectMapper.writeValueAsBytes(event), properties);
+    }
+}
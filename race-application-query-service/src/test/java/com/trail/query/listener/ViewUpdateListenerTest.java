@@ -0,0 +1,183 @@
+package com.trail.query.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trail.query.cache.ApplicationCache;
+import com.trail.query.cache.ResponseBodyCache;
+import com.trail.query.catalog.RaceCatalog;
+import com.trail.query.dto.ChangeNotification;
+import com.trail.query.entity.Race;
+import com.trail.query.event.ApplicationCreatedEvent;
+import com.trail.query.event.ApplicationDeletedEvent;
+import com.trail.query.event.ApplicationsImportedEvent;
+import com.trail.query.event.RaceCreatedEvent;
+import com.trail.query.event.RaceDeletedEvent;
+import com.trail.query.event.RaceUpdatedEvent;
+import com.trail.query.feed.ChangeFeed;
+import com.trail.query.projection.ProjectionVersions;
+import com.trail.query.search.Applicant;
+import com.trail.query.search.ApplicantSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.trail.query.listener.RaceEventListenerTest.reader;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ViewUpdateListenerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private RaceCatalog raceCatalog;
+    @Mock
+    private ApplicationCache applicationCache;
+    @Mock
+    private ProjectionVersions projectionVersions;
+    @Mock
+    private ApplicantSearchIndex searchIndex;
+    @Mock
+    private ResponseBodyCache responseBodyCache;
+    @Mock
+    private ChangeFeed changeFeed;
+
+    private ViewUpdateListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new ViewUpdateListener(reader(objectMapper), raceCatalog, applicationCache,
+                projectionVersions, searchIndex, responseBodyCache, changeFeed);
+    }
+
+    @Test
+    void shouldNotifyOncePerRaceForAllApplicationsOfABatch() throws Exception {
+        Race race = new Race(UUID.randomUUID(), "Zagreb Trail", Race.Distance.HalfMarathon, 100);
+        ApplicationCreatedEvent first = application(race);
+        ApplicationCreatedEvent imported = application(race);
+
+        listener.onMessageBatch(List.of(
+                message("p1.application.created", first),
+                message("p1.application.imported", new ApplicationsImportedEvent(List.of(imported)))));
+
+        verify(searchIndex).addAll(List.of(Applicant.of(first), Applicant.of(imported)));
+        verify(projectionVersions).raceApplicationsChanged(race.getId());
+        verify(responseBodyCache).invalidate(ResponseBodyCache.raceApplications(race.getId()));
+        verify(changeFeed, times(1)).publish(ChangeNotification.Type.APPLICATIONS_CHANGED, race.getId());
+    }
+
+    @Test
+    void shouldTakeTheRaceOfADeletedApplicationFromTheEvent() throws Exception {
+        UUID raceId = UUID.randomUUID();
+        UUID applicationId = UUID.randomUUID();
+
+        listener.onMessageBatch(List.of(
+                message("p0.application.deleted", new ApplicationDeletedEvent(applicationId, raceId, "AK Zagreb"))));
+
+        verify(applicationCache).invalidate(applicationId);
+        verify(searchIndex).remove(applicationId);
+        verify(projectionVersions).raceApplicationsChanged(raceId);
+        verify(changeFeed).publish(ChangeNotification.Type.APPLICATIONS_CHANGED, raceId);
+    }
+
+    @Test
+    void shouldApplyRaceEventsAfterTheApplicationsBeforeThem() throws Exception {
+        Race race = new Race(UUID.randomUUID(), "Zagreb Trail", Race.Distance.HalfMarathon, 100);
+        ApplicationCreatedEvent application = application(race);
+
+        listener.onMessageBatch(List.of(
+                message("p1.application.created", application),
+                message("p1.race.deleted", new RaceDeletedEvent(race.getId()))));
+
+        InOrder order = inOrder(searchIndex, changeFeed, raceCatalog);
+        order.verify(searchIndex).addAll(List.of(Applicant.of(application)));
+        order.verify(changeFeed).publish(ChangeNotification.Type.APPLICATIONS_CHANGED, race.getId());
+        order.verify(raceCatalog).remove(race.getId());
+        order.verify(searchIndex).removeRace(race.getId());
+        order.verify(changeFeed).publish(ChangeNotification.Type.RACE_DELETED, race.getId());
+        verify(applicationCache).invalidateRace(race.getId());
+    }
+
+    @Test
+    void shouldPutCreatedAndUpdatedRacesIntoTheCatalog() throws Exception {
+        UUID raceId = UUID.randomUUID();
+        when(raceCatalog.findById(raceId)).thenReturn(Optional.of(new Race()));
+
+        listener.onMessageBatch(List.of(
+                message("p2.race.created", new RaceCreatedEvent(raceId, "Zagreb Trail", "HalfMarathon", 100)),
+                message("p2.race.updated", new RaceUpdatedEvent(raceId, "Zagreb Trail", "Marathon", null))));
+
+        ArgumentCaptor<Race> put = ArgumentCaptor.forClass(Race.class);
+        verify(raceCatalog, times(2)).put(put.capture());
+        assertThat(put.getAllValues()).extracting(Race::getDistance)
+                .containsExactly(Race.Distance.HalfMarathon, Race.Distance.Marathon);
+        assertThat(put.getAllValues().get(1).getCapacity()).isNull();
+        verify(projectionVersions, times(2)).raceChanged(raceId);
+        verify(changeFeed).publish(ChangeNotification.Type.RACE_CREATED, raceId);
+        verify(changeFeed).publish(ChangeNotification.Type.RACE_UPDATED, raceId);
+    }
+
+    @Test
+    void shouldIgnoreUpdatesOfRacesItDoesNotHave() throws Exception {
+        UUID raceId = UUID.randomUUID();
+        when(raceCatalog.findById(raceId)).thenReturn(Optional.empty());
+
+        listener.onMessageBatch(List.of(
+                message("p2.race.updated", new RaceUpdatedEvent(raceId, "Zagreb Trail", "Marathon", 100))));
+
+        verify(raceCatalog, never()).put(any());
+        verifyNoInteractions(changeFeed);
+    }
+
+    @Test
+    void shouldGoOnWithTheBatchWhenAViewFails() throws Exception {
+        UUID failing = UUID.randomUUID();
+        UUID next = UUID.randomUUID();
+        doThrow(new IllegalStateException("boom")).when(raceCatalog).remove(failing);
+
+        listener.onMessageBatch(List.of(
+                message("p0.race.deleted", new RaceDeletedEvent(failing)),
+                message("p0.race.deleted", new RaceDeletedEvent(next))));
+
+        verify(raceCatalog).remove(next);
+        verify(changeFeed).publish(ChangeNotification.Type.RACE_DELETED, next);
+    }
+
+    @Test
+    void shouldSkipUnreadableEvents() {
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedRoutingKey("p0.race.updated");
+
+        listener.onMessageBatch(List.of(new Message("{not json".getBytes(), properties)));
+
+        verifyNoInteractions(raceCatalog, changeFeed);
+    }
+
+    private static ApplicationCreatedEvent application(Race race) {
+        return new ApplicationCreatedEvent(UUID.randomUUID(), "Ana", "Horvat", "AK Zagreb", race);
+    }
+
+    private Message message(String routingKey, Object event) throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedRoutingKey(routingKey);
+        properties.setMessageId(UUID.randomUUID().toString());
+        return new Message(objectMapper.writeValueAsBytes(event), properties);
+    }
+}
@@ -0,0 +1,66 @@
+package com.trail.query.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.boot.actuate.autoconfigure.health.HealthContributorAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthEndpointAutoConfiguration;
+import org.springframework.boot.actuate.health.HealthContributorRegistry;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProjectionLagHealthIndicatorTest {
+
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    HealthContributorAutoConfiguration.class, HealthEndpointAutoConfiguration.class))
+            .withBean(AmqpAdmin.class, () -> amqpAdmin)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withUserConfiguration(MonitoringConfiguration.class);
+
+    @Test
+    void shouldRegisterUnderTheKeyOfTheReadinessGroup() {
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(ProjectionLag.class);
+            assertThat(context.getBean(HealthContributorRegistry.class).getContributor("projectionLag"))
+                    .isInstanceOf(ProjectionLagHealthIndicator.class);
+        });
+    }
+
+    @Test
+    void shouldKeepAStandbyInstanceReadyWhilePartitionsHaveABacklog() {
+        when(amqpAdmin.getQueueInfo(anyString())).thenAnswer(invocation ->
+                new QueueInformation(invocation.getArgument(0), 1000, 2));
+
+        contextRunner.withPropertyValues("projection.lag.max-ready-ms=0").run(context -> {
+            context.getBean(ProjectionLag.class).checkBacklog();
+            HealthIndicator indicator = context.getBean(ProjectionLagHealthIndicator.class);
+
+            assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+            assertThat(indicator.health().getDetails()).containsEntry("maxLagMs", 0L);
+        });
+    }
+
+    // Scanned like the application does, so bean names come from the annotations
+    @Configuration
+    @ComponentScan(basePackageClasses = ProjectionLag.class, useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = {ProjectionLag.class, ProjectionLagHealthIndicator.class}))
+    static class MonitoringConfiguration {
+    }
+}
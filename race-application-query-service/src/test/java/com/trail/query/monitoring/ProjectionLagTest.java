@@ -0,0 +1,113 @@
+package com.trail.query.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.ListenerContainerConsumerFailedEvent;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProjectionLagTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private final ProjectionLag projectionLag = new ProjectionLag(amqpAdmin, meterRegistry, 2);
+
+    @Test
+    void shouldRecordPublishToAppliedLatency() {
+        long now = System.currentTimeMillis();
+        projectionLag.applied(message("race.partition.1", now - 2000, 7));
+
+        assertThat(meterRegistry.get("projection.event.latency").tag("queue", "race.partition.1").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(2000);
+        assertThat(meterRegistry.get("projection.sequence").tag("queue", "race.partition.1").gauge().value())
+                .isEqualTo(7);
+    }
+
+    @Test
+    void shouldReportNoLagForAnEmptyQueue() {
+        projectionLag.applied(message("race.partition.0", System.currentTimeMillis() - 60_000, 1));
+        backlog("race.partition.0", 0);
+        projectionLag.checkBacklog();
+
+        assertThat(projectionLag.lagByQueue()).containsEntry("race.partition.0", 0L);
+    }
+
+    @Test
+    void shouldReportTheAgeOfTheNewestAppliedEventWhileEventsWait() {
+        long now = System.currentTimeMillis();
+        projectionLag.applied(message("race.partition.0", now - 60_000, 1));
+        projectionLag.applied(message("race.partition.0", now - 10_000, 2));
+        projectionLag.applied(message("race.partition.0", now - 50_000, 3)); // a retried event
+        backlog("race.partition.0", 42);
+        projectionLag.checkBacklog();
+
+        assertThat(projectionLag.lagMs("race.partition.0", now)).isEqualTo(10_000);
+        assertThat(meterRegistry.get("projection.queue.backlog").tag("queue", "race.partition.0").gauge().value())
+                .isEqualTo(42);
+    }
+
+    @Test
+    void shouldReportNoLagForPartitionsOwnedByAnotherInstance() {
+        backlog("race.partition.0", 42);
+        backlog("race.partition.1", 42);
+        projectionLag.checkBacklog();
+
+        assertThat(projectionLag.lagByQueue()).isEmpty();
+        assertThat(projectionLag.lagMs("race.partition.0", System.currentTimeMillis() + 60_000)).isZero();
+    }
+
+    @Test
+    void shouldMeasureFromTheTakeOverUntilTheFirstEventIsApplied() {
+        projectionLag.received(message("race.partition.1", System.currentTimeMillis(), 1));
+        backlog("race.partition.1", 42);
+        projectionLag.checkBacklog();
+
+        assertThat(projectionLag.lagByQueue()).containsOnlyKeys("race.partition.1");
+        assertThat(projectionLag.lagMs("race.partition.1", System.currentTimeMillis() + 60_000))
+                .isGreaterThanOrEqualTo(60_000);
+    }
+
+    @Test
+    void shouldStopMeasuringAPartitionWhenItsConsumerFails() {
+        projectionLag.applied(message("race.partition.0", System.currentTimeMillis() - 60_000, 1));
+        backlog("race.partition.0", 42);
+        projectionLag.checkBacklog();
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+        container.setQueueNames("race.partition.0");
+
+        projectionLag.consumerFailed(new ListenerContainerConsumerFailedEvent(container, "Connection lost", null, false));
+
+        assertThat(projectionLag.lagByQueue()).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreEventsWithoutAPublishTime() {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue("race.partition.0");
+        projectionLag.applied(new Message(new byte[0], properties));
+
+        assertThat(meterRegistry.get("projection.event.latency").tag("queue", "race.partition.0").timer().count())
+                .isZero();
+    }
+
+    private void backlog(String queue, int messages) {
+        when(amqpAdmin.getQueueInfo(queue)).thenReturn(new QueueInformation(queue, messages, 1));
+    }
+
+    private static Message message(String queue, long publishedAt, long sequence) {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(queue);
+        properties.setHeader(ProjectionLag.PUBLISHED_AT_HEADER, publishedAt);
+        properties.setHeader(ProjectionLag.SEQUENCE_HEADER, sequence);
+        return new Message(new byte[0], properties);
+    }
+}
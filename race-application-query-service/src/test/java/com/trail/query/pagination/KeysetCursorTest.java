@@ -0,0 +1,58 @@
+package com.trail.query.pagination;
+
+import com.trail.query.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void shouldRoundTripId() {
+        UUID id = UUID.randomUUID();
+
+        String cursor = KeysetCursor.encode(id);
+
+        assertThat(cursor).hasSize(22).doesNotContain("=", "+", "/");
+        assertThat(KeysetCursor.decode(cursor)).isEqualTo(id);
+    }
+
+    @Test
+    void shouldTreatMissingCursorAsFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("")).isNull();
+    }
+
+    @Test
+    void shouldRejectTamperedCursor() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("AAAA"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void shouldPointNextCursorAtLastItemWhenMoreRowsExist() {
+        List<UUID> rows = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        CursorPage<UUID> page = KeysetCursor.page(rows, 2, Function.identity());
+
+        assertThat(page.items()).containsExactly(rows.get(0), rows.get(1));
+        assertThat(KeysetCursor.decode(page.nextCursor())).isEqualTo(rows.get(1));
+    }
+
+    @Test
+    void shouldEndOnLastPage() {
+        List<UUID> rows = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+        CursorPage<UUID> page = KeysetCursor.page(rows, 2, Function.identity());
+
+        assertThat(page.items()).isEqualTo(rows);
+        assertThat(page.nextCursor()).isNull();
+    }
+}
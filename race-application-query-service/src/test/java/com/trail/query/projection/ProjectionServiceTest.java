@@ -0,0 +1,297 @@
+package com.trail.query.projection;
+
+import com.trail.query.entity.Race;
+import com.trail.query.entity.RaceClubStats;
+import com.trail.query.event.ApplicationCreatedEvent;
+import com.trail.query.event.ApplicationDeletedEvent;
+import com.trail.query.repository.ApplicationRepository;
+import com.trail.query.repository.RaceClubStatsRepository;
+import com.trail.query.repository.RaceRepository;
+import com.trail.query.repository.RaceStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectionServiceTest {
+
+    @Mock
+    private RaceRepository raceRepository;
+    @Mock
+    private ApplicationRepository applicationRepository;
+    @Mock
+    private RaceStatsRepository raceStatsRepository;
+    @Mock
+    private RaceClubStatsRepository raceClubStatsRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ProjectionService projectionService;
+
+    private final Database database = new Database();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws SQLException {
+        lenient().when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> database.query(invocation.getArgument(0)));
+        lenient().when(jdbcTemplate.update(any(PreparedStatementCreator.class)))
+                .thenAnswer(invocation -> database.update(invocation.getArgument(0)));
+        lenient().doAnswer(invocation -> database.raceStats.merge(invocation.getArgument(0), invocation.getArgument(1), Long::sum))
+                .when(raceStatsRepository).add(any(), anyLong());
+    }
+
+    @Test
+    void shouldCountNewApplicationsOncePerRaceAndClub() {
+        Race zagreb = race();
+        Race plitvice = race();
+        Map<String, List<ApplicationCreatedEvent>> events = new LinkedHashMap<>();
+        events.put("1", List.of(event(zagreb, "AK Zagreb")));
+        events.put("2", List.of(event(zagreb, "AK Zagreb"), event(zagreb, null), event(plitvice, "AK Zagreb")));
+
+        Set<UUID> changed = projectionService.applyApplicationsCreated(events);
+
+        assertThat(changed).containsExactlyInAnyOrder(zagreb.getId(), plitvice.getId());
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<ApplicationCreatedEvent> inserted) -> inserted.size() == 4),
+                eq(4), any());
+        verify(raceStatsRepository).add(zagreb.getId(), 3L);
+        verify(raceStatsRepository).add(plitvice.getId(), 1L);
+        verify(raceClubStatsRepository).add(zagreb.getId(), "AK Zagreb", 2L);
+        verify(raceClubStatsRepository).add(zagreb.getId(), RaceClubStats.NO_CLUB, 1L);
+        verify(raceClubStatsRepository).add(plitvice.getId(), "AK Zagreb", 1L);
+    }
+
+    @Test
+    void shouldNotCountRedeliveredEvent() {
+        ApplicationCreatedEvent event = event(race(), "AK Zagreb");
+        database.processed.add("1");
+
+        Set<UUID> changed = projectionService.applyApplicationsCreated(Map.of("1", List.of(event)));
+
+        assertThat(changed).isEmpty();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(raceStatsRepository, never()).add(any(), anyLong());
+    }
+
+    @Test
+    void shouldCountOnlyTheNewEventsOfABatch() {
+        ApplicationCreatedEvent redelivered = event(race(), "AK Zagreb");
+        ApplicationCreatedEvent fresh = event(race(), "AK Zagreb");
+        Map<String, List<ApplicationCreatedEvent>> events = new LinkedHashMap<>();
+        events.put("1", List.of(redelivered));
+        events.put("2", List.of(fresh));
+        database.processed.add("1");
+
+        assertThat(projectionService.applyApplicationsCreated(events)).containsExactly(fresh.getRace().getId());
+        verify(raceStatsRepository).add(fresh.getRace().getId(), 1L);
+        verify(raceStatsRepository, never()).add(eq(redelivered.getRace().getId()), anyLong());
+    }
+
+    @Test
+    void shouldUncountDeletionsFromTheCountedRowWhenTheApplicationRowIsGone() {
+        Race race = race();
+        ApplicationCreatedEvent withoutClub = event(race, null);
+        ApplicationCreatedEvent withClub = event(race, "AK Zagreb");
+        projectionService.applyApplicationsCreated(Map.of("1", List.of(withoutClub, withClub)));
+        Map<String, ApplicationDeletedEvent> events = new LinkedHashMap<>();
+        // Published before deletions carried the race and club
+        events.put("2", new ApplicationDeletedEvent(withoutClub.getId(), null, null));
+        events.put("3", new ApplicationDeletedEvent(withClub.getId(), race.getId(), "AK Zagreb"));
+
+        Set<UUID> changed = projectionService.applyApplicationsDeleted(events);
+
+        assertThat(changed).containsExactly(race.getId());
+        verify(applicationRepository).deleteAllByIdInBatch(List.of(withoutClub.getId(), withClub.getId()));
+        verify(raceStatsRepository).add(race.getId(), -2L);
+        verify(raceClubStatsRepository).add(race.getId(), RaceClubStats.NO_CLUB, -1L);
+        verify(raceClubStatsRepository).add(race.getId(), "AK Zagreb", -1L);
+        verify(raceClubStatsRepository).deleteEmpty(race.getId());
+        assertThat(database.raceStats).containsEntry(race.getId(), 0L);
+    }
+
+    @Test
+    void shouldIgnoreRedeliveredDeletion() {
+        database.processed.add("1");
+
+        assertThat(projectionService.applyApplicationsDeleted(
+                Map.of("1", new ApplicationDeletedEvent(UUID.randomUUID(), UUID.randomUUID(), null)))).isEmpty();
+        verify(raceStatsRepository, never()).add(any(), anyLong());
+        verify(raceClubStatsRepository, never()).add(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void shouldNotUncountADeletionOfAnApplicationThatWasNeverCounted() {
+        UUID raceId = UUID.randomUUID();
+
+        Set<UUID> changed = projectionService.applyApplicationsDeleted(
+                Map.of("1", new ApplicationDeletedEvent(UUID.randomUUID(), raceId, "AK Zagreb")));
+
+        assertThat(changed).containsExactly(raceId);
+        verify(raceStatsRepository, never()).add(any(), anyLong());
+        verify(raceClubStatsRepository, never()).deleteEmpty(any());
+    }
+
+    @Test
+    void shouldNotCountACreationThatArrivesAfterItsDeletion() {
+        ApplicationCreatedEvent event = event(race(), "AK Zagreb");
+        projectionService.applyApplicationsDeleted(
+                Map.of("1", new ApplicationDeletedEvent(event.getId(), event.getRace().getId(), "AK Zagreb")));
+
+        // Back from a delay queue after the deletion went through
+        projectionService.applyApplicationsCreated(Map.of("2", List.of(event)));
+
+        verify(raceStatsRepository, never()).add(any(), anyLong());
+        assertThat(database.counted.get(event.getId()).deleted()).isTrue();
+    }
+
+    @Test
+    void shouldCountEventsInFlightDuringARebuildExactlyOnce() {
+        Race race = race();
+        ApplicationCreatedEvent kept = event(race, "AK Zagreb");
+        ApplicationCreatedEvent deleted = event(race, "AK Zagreb");
+        // The command service has written both rows; their events are still queued when the rebuild starts
+        database.applications.addAll(List.of(kept, deleted));
+
+        database.rebuild();
+        assertThat(database.raceStats).containsEntry(race.getId(), 2L);
+
+        projectionService.applyApplicationsCreated(Map.of("1", List.of(kept), "2", List.of(deleted)));
+        projectionService.applyApplicationsDeleted(
+                Map.of("3", new ApplicationDeletedEvent(deleted.getId(), race.getId(), "AK Zagreb")));
+        assertThat(database.raceStats).containsEntry(race.getId(), 1L);
+
+        // The statistics equal a recount once the events are in
+        database.rebuild();
+        assertThat(database.raceStats).containsEntry(race.getId(), 1L);
+    }
+
+    private static Race race() {
+        return new Race(UUID.randomUUID(), "Race", Race.Distance.TenK, null);
+    }
+
+    private static ApplicationCreatedEvent event(Race race, String club) {
+        return new ApplicationCreatedEvent(UUID.randomUUID(), "Marko", "Horvat", club, race);
+    }
+
+    /**
+     * Plays the tables behind the statements of {@link ProjectionService}, so
+     * tests can follow counts across events without Postgres.
+     */
+    private static class Database {
+        private final Set<String> processed = new HashSet<>();
+        private final List<ApplicationCreatedEvent> applications = new ArrayList<>();
+        private final Map<UUID, Row> counted = new LinkedHashMap<>();
+        private final Map<UUID, Long> raceStats = new HashMap<>();
+
+        private record Row(UUID raceId, String club, boolean deleted) {
+        }
+
+        // What StatisticsRebuilder does under the exclusive lock
+        void rebuild() {
+            applications.forEach(application -> counted.putIfAbsent(application.getId(),
+                    new Row(application.getRace().getId(), application.getClub(), false)));
+            raceStats.clear();
+            counted.values().stream().filter(row -> !row.deleted())
+                    .forEach(row -> raceStats.merge(row.raceId(), 1L, Long::sum));
+        }
+
+        List<?> query(PreparedStatementCreator creator) throws SQLException {
+            Statement statement = Statement.of(creator);
+            if (statement.sql().startsWith("INSERT INTO processed_event")) {
+                return statement.column(0).stream().map(String.class::cast).filter(processed::add).toList();
+            }
+            List<ProjectionService.Counted> changed = new ArrayList<>();
+            List<Object> ids = statement.column(0);
+            for (int i = 0; i < ids.size(); i++) {
+                UUID id = (UUID) ids.get(i);
+                Row row = counted.get(id);
+                if (statement.sql().startsWith("INSERT INTO counted_application") && row == null) {
+                    row = new Row((UUID) statement.column(1).get(i), (String) statement.column(2).get(i), false);
+                    counted.put(id, row);
+                    changed.add(new ProjectionService.Counted(row.raceId(), row.club()));
+                } else if (statement.sql().startsWith("UPDATE counted_application") && row != null && !row.deleted()) {
+                    counted.put(id, new Row(row.raceId(), row.club(), true));
+                    changed.add(new ProjectionService.Counted(row.raceId(), row.club()));
+                }
+            }
+            return changed;
+        }
+
+        int update(PreparedStatementCreator creator) throws SQLException {
+            Statement statement = Statement.of(creator);
+            assertThat(statement.sql()).startsWith("INSERT INTO counted_application").contains("true");
+            int inserted = 0;
+            List<Object> ids = statement.column(0);
+            for (int i = 0; i < ids.size(); i++) {
+                Row tombstone = new Row((UUID) statement.column(1).get(i), (String) statement.column(2).get(i), true);
+                if (counted.putIfAbsent((UUID) ids.get(i), tombstone) == null) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private record Statement(String sql, Map<Integer, Object[]> arrays) {
+
+        static Statement of(PreparedStatementCreator creator) throws SQLException {
+            Map<Integer, Object[]> arrays = new HashMap<>();
+            PreparedStatement prepared = mock(PreparedStatement.class, invocation -> {
+                if (invocation.getMethod().getName().equals("setArray")) {
+                    arrays.put(invocation.getArgument(0), (Object[]) ((Array) invocation.getArgument(1)).getArray());
+                }
+                return null;
+            });
+            String[] sql = new String[1];
+            Connection connection = mock(Connection.class, invocation -> switch (invocation.getMethod().getName()) {
+                case "prepareStatement" -> {
+                    sql[0] = invocation.getArgument(0);
+                    yield prepared;
+                }
+                case "createArrayOf" -> mock(Array.class, getArray -> invocation.getRawArguments()[1]);
+                default -> null;
+            });
+            creator.createPreparedStatement(connection);
+            return new Statement(sql[0], arrays);
+        }
+
+        List<Object> column(int index) {
+            return Arrays.asList(arrays.get(index + 1));
+        }
+    }
+}
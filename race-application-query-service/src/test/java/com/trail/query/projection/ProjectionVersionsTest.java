@@ -0,0 +1,49 @@
+package com.trail.query.projection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectionVersionsTest {
+
+    private final ProjectionVersions versions = new ProjectionVersions();
+
+    @Test
+    void shouldIssueQuotedStrongTags() {
+        assertThat(versions.racesETag()).startsWith("\"races-").endsWith("\"").doesNotStartWith("W/");
+    }
+
+    @Test
+    void shouldChangeRaceTagsWhenRaceChanges() {
+        UUID raceId = UUID.randomUUID();
+        UUID otherRaceId = UUID.randomUUID();
+        String races = versions.racesETag();
+        String race = versions.raceETag(raceId);
+        String applications = versions.raceApplicationsETag(raceId);
+        String otherApplications = versions.raceApplicationsETag(otherRaceId);
+
+        versions.raceChanged(raceId);
+
+        assertThat(versions.racesETag()).isNotEqualTo(races);
+        assertThat(versions.raceETag(raceId)).isNotEqualTo(race);
+        // Applications embed their race, so their list changes too
+        assertThat(versions.raceApplicationsETag(raceId)).isNotEqualTo(applications);
+        assertThat(versions.raceApplicationsETag(otherRaceId)).isEqualTo(otherApplications);
+    }
+
+    @Test
+    void shouldChangeOnlyApplicationTagWhenApplicationsChange() {
+        UUID raceId = UUID.randomUUID();
+        String races = versions.racesETag();
+        String race = versions.raceETag(raceId);
+        String applications = versions.raceApplicationsETag(raceId);
+
+        versions.raceApplicationsChanged(raceId);
+
+        assertThat(versions.racesETag()).isEqualTo(races);
+        assertThat(versions.raceETag(raceId)).isEqualTo(race);
+        assertThat(versions.raceApplicationsETag(raceId)).isNotEqualTo(applications);
+    }
+}
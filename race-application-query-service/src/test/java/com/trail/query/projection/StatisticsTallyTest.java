@@ -0,0 +1,37 @@
+package com.trail.query.projection;
+
+import com.trail.query.entity.RaceClubStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatisticsTallyTest {
+
+    @Test
+    void shouldMergeChunksIntoClubAndRaceCounts() {
+        UUID zagreb = UUID.randomUUID();
+        UUID plitvice = UUID.randomUUID();
+
+        StatisticsTally first = new StatisticsTally();
+        first.add(zagreb, "AK Zagreb", 3);
+        first.add(zagreb, null, 1);
+        StatisticsTally second = new StatisticsTally();
+        second.add(zagreb, "AK Zagreb", 2);
+        second.add(zagreb, RaceClubStats.NO_CLUB, 4);
+        second.add(plitvice, "TK Rijeka", 5);
+
+        StatisticsTally total = new StatisticsTally();
+        total.addAll(first);
+        total.addAll(second);
+
+        assertThat(total.applications()).isEqualTo(15);
+        assertThat(total.perClub()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                new RaceClubStats.Key(zagreb, "AK Zagreb"), 5L,
+                new RaceClubStats.Key(zagreb, RaceClubStats.NO_CLUB), 5L,
+                new RaceClubStats.Key(plitvice, "TK Rijeka"), 5L));
+        assertThat(total.perRace()).containsExactlyInAnyOrderEntriesOf(Map.of(zagreb, 10L, plitvice, 5L));
+    }
+}
@@ -0,0 +1,111 @@
+package com.trail.query.repository;
+
+import com.trail.query.dto.ApplicationSummary;
+import com.trail.query.entity.Application;
+import com.trail.query.entity.Race;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ApplicationRepositoryQueryCountTest {
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private QueryCount queryCount;
+    private final List<Race> races = new ArrayList<>();
+    private final List<UUID> applicationIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        queryCount = new QueryCount(entityManager);
+        for (int r = 0; r < 3; r++) {
+            Race race = new Race(UUID.randomUUID(), "Race " + r, Race.Distance.TenK, null);
+            entityManager.persist(race);
+            races.add(race);
+            for (int a = 0; a < 4; a++) {
+                Application application = new Application(UUID.randomUUID(), "First" + a, "Last" + a, "Club", race);
+                entityManager.persist(application);
+                applicationIds.add(application.getId());
+            }
+        }
+    }
+
+    @Test
+    void shouldListAllApplicationsWithOneQuery() {
+        List<ApplicationSummary> applications = queryCount.assertStatements(1,
+                applicationRepository::findAllSummaries);
+
+        assertThat(applications).hasSize(12);
+        assertThat(applications).extracting(ApplicationSummary::raceId)
+                .containsAll(races.stream().map(Race::getId).toList());
+    }
+
+    @Test
+    void shouldListApplicationsOfARaceWithOneQuery() {
+        UUID raceId = races.get(1).getId();
+
+        List<ApplicationSummary> applications = queryCount.assertStatements(1,
+                () -> applicationRepository.findSummariesByRaceId(raceId));
+
+        assertThat(applications).hasSize(4).allMatch(application -> raceId.equals(application.raceId()));
+    }
+
+    @Test
+    void shouldPageApplicationsWithOneQueryPerPage() {
+        List<ApplicationSummary> first = queryCount.assertStatements(1,
+                () -> applicationRepository.findSummaries(Limit.of(5)));
+        List<ApplicationSummary> next = queryCount.assertStatements(1,
+                () -> applicationRepository.findSummariesAfter(first.get(4).id(), Limit.of(5)));
+
+        assertThat(first).hasSize(5);
+        assertThat(next).hasSize(5).first().extracting(ApplicationSummary::id)
+                .isNotEqualTo(first.get(4).id());
+    }
+
+    @Test
+    void shouldPageApplicationsOfARaceWithOneQueryPerPage() {
+        UUID raceId = races.get(2).getId();
+
+        List<ApplicationSummary> first = queryCount.assertStatements(1,
+                () -> applicationRepository.findSummariesByRaceId(raceId, Limit.of(3)));
+        List<ApplicationSummary> rest = queryCount.assertStatements(1,
+                () -> applicationRepository.findSummariesByRaceIdAfter(raceId, first.get(2).id(), Limit.of(3)));
+
+        assertThat(first).hasSize(3);
+        assertThat(rest).hasSize(1);
+    }
+
+    @Test
+    void shouldLookUpOneApplicationWithOneQuery() {
+        UUID id = applicationIds.get(0);
+
+        assertThat(queryCount.assertStatements(1, () -> applicationRepository.findSummaryById(id)))
+                .get().extracting(ApplicationSummary::raceId).isEqualTo(races.get(0).getId());
+    }
+
+    @Test
+    void shouldNotLoadRacesOfLoadedApplications() {
+        // The projection reads race ids of applications it deletes; the lazy race must not be fetched for them
+        List<UUID> raceIds = queryCount.assertStatements(1, () -> applicationRepository.findAllById(applicationIds)
+                .stream()
+                .map(application -> application.getRace().getId())
+                .distinct()
+                .toList());
+
+        assertThat(raceIds).hasSize(3);
+    }
+}
@@ -0,0 +1,38 @@
+package com.trail.query.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements Hibernate prepares while a block runs, so tests
+ * can pin the number of queries behind a read and fail on an N+1.
+ * Needs {@code hibernate.generate_statistics}.
+ */
+final class QueryCount {
+
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    QueryCount(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Runs the block against an empty persistence context and asserts how many
+     * statements it issued.
+     */
+    <T> T assertStatements(long expected, java.util.function.Supplier<T> block) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        T result = block.get();
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements issued")
+                .isEqualTo(expected);
+        return result;
+    }
+}
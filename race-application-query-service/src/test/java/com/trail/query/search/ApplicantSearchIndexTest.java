@@ -0,0 +1,101 @@
+package com.trail.query.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicantSearchIndexTest {
+
+    private static final UUID RACE = UUID.randomUUID();
+
+    private ApplicantSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ApplicantSearchIndex();
+        index.markReady();
+    }
+
+    @Test
+    void shouldFoldCaseAndDiacritics() {
+        assertThat(ApplicantSearchIndex.fold("Marković Đurđa ŠTEFANIĆ")).isEqualTo("markovic durda stefanic");
+    }
+
+    @Test
+    void shouldMatchPrefixIgnoringDiacritics() {
+        index.add(applicant("Ivan", "Marković", "AK Zagreb"));
+        index.add(applicant("Ana", "Petrić", null));
+
+        assertThat(names(index.search("markov", 10))).containsExactly("Marković");
+        assertThat(names(index.search("PETRIC", 10))).containsExactly("Petrić");
+        assertThat(names(index.search("Petrić", 10))).containsExactly("Petrić");
+    }
+
+    @Test
+    void shouldRequireEveryQueryWord() {
+        index.add(applicant("Ana", "Marković", null));
+        index.add(applicant("Ivan", "Marković", null));
+
+        assertThat(index.search("mark ana", 10)).extracting(Applicant::firstName).containsExactly("Ana");
+    }
+
+    @Test
+    void shouldRankWholeWordAndLastNameFirst() {
+        index.add(applicant("Markus", "Horvat", null));
+        index.add(applicant("Ivan", "Markovac", null));
+        index.add(applicant("Ana", "Horvat", "Mark Runners"));
+        index.add(applicant("Petra", "Mark", null));
+
+        assertThat(names(index.search("mark", 10))).containsExactly("Mark", "Markovac", "Horvat", "Horvat");
+        assertThat(index.search("mark", 10).get(2).firstName()).isEqualTo("Markus");
+    }
+
+    @Test
+    void shouldCapResults() {
+        for (int i = 0; i < 50; i++) {
+            index.add(applicant("Ivan", "Horvat", null));
+        }
+
+        assertThat(index.search("horvat", 5)).hasSize(5);
+    }
+
+    @Test
+    void shouldForgetRemovedApplicants() {
+        Applicant removed = applicant("Ivan", "Marković", null);
+        UUID otherRace = UUID.randomUUID();
+        index.add(removed);
+        index.add(new Applicant(UUID.randomUUID(), "Ana", "Marković", null, otherRace));
+
+        index.remove(removed.id());
+        assertThat(index.search("markovic", 10)).extracting(Applicant::firstName).containsExactly("Ana");
+
+        index.removeRace(otherRace);
+        assertThat(index.search("markovic", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void shouldSkipLoadedRowsDeletedDuringLoad() {
+        ApplicantSearchIndex loading = new ApplicantSearchIndex();
+        Applicant deleted = applicant("Ivan", "Marković", null);
+        Applicant kept = applicant("Ana", "Marković", null);
+
+        loading.remove(deleted.id());
+        loading.addLoaded(List.of(deleted, kept));
+        loading.markReady();
+
+        assertThat(loading.search("markovic", 10)).containsExactly(kept);
+    }
+
+    private static Applicant applicant(String firstName, String lastName, String club) {
+        return new Applicant(UUID.randomUUID(), firstName, lastName, club, RACE);
+    }
+
+    private static List<String> names(List<Applicant> applicants) {
+        return applicants.stream().map(Applicant::lastName).toList();
+    }
+}
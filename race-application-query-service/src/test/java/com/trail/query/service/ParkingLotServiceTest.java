@@ -0,0 +1,94 @@
+package com.trail.query.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.trail.query.config.RabbitMQConfig;
+import com.trail.query.dto.ParkingLotReplay;
+import com.trail.query.listener.FailedEventRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParkingLotServiceTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final FailedEventRouter failedEventRouter = mock(FailedEventRouter.class);
+    private final Channel channel = mock(Channel.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ParkingLotService service = new ParkingLotService(
+            rabbitTemplate, mock(AmqpAdmin.class), failedEventRouter, meterRegistry, "race.exchange", 10);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(rabbitTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<ChannelCallback<?>>getArgument(0).doInRabbit(channel));
+    }
+
+    @Test
+    void shouldAcknowledgeAParkedEventOnlyOnceItsCopyIsConfirmed() throws Exception {
+        when(channel.basicGet(RabbitMQConfig.PARKING_LOT_QUEUE, false)).thenReturn(parked(1), (GetResponse) null);
+
+        ParkingLotReplay result = service.replay(10);
+
+        assertThat(result.replayed()).isEqualTo(1);
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        InOrder order = inOrder(failedEventRouter, channel);
+        order.verify(failedEventRouter).sendConfirmed(eq("race.exchange"), eq("p1.race.updated"), sent.capture());
+        order.verify(channel).basicAck(1, false);
+        assertThat(sent.getValue().getMessageProperties().getHeaders())
+                .doesNotContainKeys(FailedEventRouter.ORIGINAL_ROUTING_KEY_HEADER, FailedEventRouter.RETRY_LEVEL_HEADER)
+                .containsEntry("trace", "abc");
+        assertThat(meterRegistry.counter("projection.events.replayed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnAnEventToTheParkingLotWhenItsCopyIsNacked() throws Exception {
+        when(channel.basicGet(RabbitMQConfig.PARKING_LOT_QUEUE, false)).thenReturn(parked(1), parked(2));
+        doThrow(new AmqpException("Broker nacked p1.race.updated event: queue full")).doNothing()
+                .when(failedEventRouter).sendConfirmed(any(), any(), any());
+
+        assertThatThrownBy(() -> service.replay(10))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining("queue full");
+        verify(channel).basicNack(1, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        verify(channel).basicGet(RabbitMQConfig.PARKING_LOT_QUEUE, false);
+        assertThat(meterRegistry.counter("projection.events.replayed").count()).isZero();
+    }
+
+    private static GetResponse parked(long deliveryTag) {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(
+                        FailedEventRouter.ORIGINAL_ROUTING_KEY_HEADER, "p1.race.updated",
+                        FailedEventRouter.RETRY_LEVEL_HEADER, "5",
+                        "trace", "abc"))
+                .build();
+        return new GetResponse(new Envelope(deliveryTag, false, "", RabbitMQConfig.PARKING_LOT_QUEUE),
+                properties, "{}".getBytes(StandardCharsets.UTF_8), 0);
+    }
+}